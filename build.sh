@@ -0,0 +1,77 @@
+#!/bin/sh
+# Compiles the analysis tools and runs their tests or JMH benchmarks, fetching the libraries they need from Maven
+# Central.
+#
+# Usage: ./build.sh [classes | test]
+#        ./build.sh jmh [JMH options, e.g. -l to list the benchmarks or ResultsBenchmark -f 1 to run one class]
+#        ./build.sh jmh-matrix <config> [output folder] [benchmark regex]
+#
+# Classes are compiled to out/classes and libraries are cached in out/lib. The java and javac on the PATH are used,
+# or those of JAVA_HOME if it is set. The jmh-matrix target runs the benchmarks on every JVM of a campaign properties
+# file, see src/jmh/benchmark/jmh/JvmMatrix.java. See native/build.sh for the jar and the native executable.
+set -e
+
+ROOT=$(cd "$(dirname "$0")" && pwd)
+OUTPUT=$ROOT/out
+MAVEN=https://repo1.maven.org/maven2
+JUNIT_VERSION=1.10.2
+JMH_VERSION=1.37
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JAVAC=${JAVA_HOME:+$JAVA_HOME/bin/}javac
+
+# Prints the path of a cached Maven Central jar, downloading it first if needed: fetch <group> <artifact> <version>
+fetch() {
+    jar=$OUTPUT/lib/$2-$3.jar
+    if [ ! -f "$jar" ]; then
+        mkdir -p "$OUTPUT/lib"
+        curl -fsSL -o "$jar.part" "$MAVEN/$(echo "$1" | tr . /)/$2/$3/$2-$3.jar"
+        mv "$jar.part" "$jar"
+    fi
+    echo "$jar"
+}
+
+compile_classes() {
+    rm -rf "$OUTPUT/classes"
+    mkdir -p "$OUTPUT/classes"
+    "$JAVAC" --release 11 -d "$OUTPUT/classes" $(find "$ROOT/src/java" -name '*.java')
+}
+
+run_tests() {
+    compile_classes
+    junit=$(fetch org.junit.platform junit-platform-console-standalone $JUNIT_VERSION)
+    rm -rf "$OUTPUT/test-classes"
+    mkdir -p "$OUTPUT/test-classes"
+    "$JAVAC" --release 11 -cp "$OUTPUT/classes:$junit" -d "$OUTPUT/test-classes" \
+             $(find "$ROOT/src/test" -name '*.java')
+    "$JAVA" -cp "$OUTPUT/classes:$OUTPUT/test-classes:$junit" org.junit.platform.console.ConsoleLauncher \
+            execute --disable-banner --scan-class-path "$OUTPUT/test-classes"
+}
+
+# Compiles the benchmarks, whose annotations JMH turns into generated classes and a benchmark list
+compile_benchmarks() {
+    compile_classes
+    jmh=$(fetch org.openjdk.jmh jmh-core $JMH_VERSION)
+    jmh=$jmh:$(fetch net.sf.jopt-simple jopt-simple 5.0.4)
+    jmh=$jmh:$(fetch org.apache.commons commons-math3 3.6.1)
+    processor=$(fetch org.openjdk.jmh jmh-generator-annprocess $JMH_VERSION):$jmh
+    rm -rf "$OUTPUT/jmh-classes"
+    mkdir -p "$OUTPUT/jmh-classes"
+    "$JAVAC" --release 11 -cp "$OUTPUT/classes:$jmh" -processorpath "$processor" -d "$OUTPUT/jmh-classes" \
+             $(find "$ROOT/src/jmh" -name '*.java')
+}
+
+case ${1:-classes} in
+    classes) compile_classes ;;
+    test) run_tests ;;
+    jmh)
+        shift
+        compile_benchmarks
+        "$JAVA" -cp "$OUTPUT/classes:$OUTPUT/jmh-classes:$jmh" org.openjdk.jmh.Main "$@"
+        ;;
+    jmh-matrix)
+        shift
+        compile_benchmarks
+        "$JAVA" -cp "$OUTPUT/classes:$OUTPUT/jmh-classes:$jmh" benchmark.jmh.JvmMatrix "$@"
+        ;;
+    *) echo "Usage: $0 [classes | test | jmh [options] | jmh-matrix <config> [folder] [regex]]" >&2; exit 1 ;;
+esac
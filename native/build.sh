@@ -0,0 +1,22 @@
+#!/bin/sh
+# Builds the analysis CLI as a jar and, using GraalVM's native-image, as a native executable.
+#
+# Usage: native/build.sh [output folder]
+#
+# Requires JAVA_HOME to point to a GraalVM with native-image installed ('gu install native-image').
+# The results are <output>/benchmark.jar and <output>/benchmark, both accepting the commands of benchmark.Main.
+set -e
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+OUTPUT=${1:-$ROOT/native/out}
+JAVA_HOME=${JAVA_HOME:?JAVA_HOME must point to a GraalVM installation}
+
+rm -rf "$OUTPUT/classes"
+mkdir -p "$OUTPUT/classes"
+
+"$JAVA_HOME/bin/javac" --release 11 -d "$OUTPUT/classes" $(find "$ROOT/src/java" -name '*.java')
+cp -r "$ROOT/src/java/META-INF" "$OUTPUT/classes/"
+cp "$ROOT/config/registry.toml" "$OUTPUT/classes/benchmark/"
+"$JAVA_HOME/bin/jar" --create --file "$OUTPUT/benchmark.jar" --main-class benchmark.Main -C "$OUTPUT/classes" .
+
+"$JAVA_HOME/bin/native-image" -jar "$OUTPUT/benchmark.jar" "$OUTPUT/benchmark"
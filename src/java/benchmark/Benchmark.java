@@ -1,34 +1,75 @@
 package benchmark;
 
-public enum Benchmark {
-    AVRORA("avrora"),
-    FOP("fop"),
-    H2("h2"),
-    JYTHON("jython"),
-    LUINDEX("luindex"),
-    LUSEARCH_FIX("lusearch-fix"),
-    PMD("pmd"),
-    SUNFLOW("sunflow"),
-    TRADEBEANS("tradebeans"),
-    XALAN("xalan");
-
-    private String name;
-
-    Benchmark(String name) {
+/**
+ * A benchmark known to the {@link Registry}. Instances are interned, so they can be compared with ==, and mimic the
+ * enum this class used to be: {@link #name()} is the id, e.g. 'LUSEARCH_FIX', and {@link #ordinal()} the position
+ * in the registry.
+ */
+public final class Benchmark {
+    private final String id;
+    private final String name;
+    private final String suite;
+    private final int ordinal;
+
+    Benchmark(String id, String name, String suite, int ordinal) {
+        this.id = id;
         this.name = name;
+        this.suite = suite;
+        this.ordinal = ordinal;
+    }
+
+    public String name() {
+        return id;
+    }
+
+    public int ordinal() {
+        return ordinal;
     }
 
     public String getName() {
         return name;
     }
 
-    public static Benchmark getBenchmark(String name) {
-        for(Benchmark b : Benchmark.values()) {
-            if(b.name.equals(name)) {
-                return b;
-            }
+    /**
+     * Gets the suite the benchmark belongs to.
+     *
+     * @return The suite, e.g. 'dacapo'
+     */
+    public String getSuite() {
+        return suite;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+    /**
+     * Gets all registered benchmarks.
+     *
+     * @return The benchmarks, in the order of the registry
+     */
+    public static Benchmark[] values() {
+        return Registry.get().getBenchmarks();
+    }
+
+    /**
+     * Gets a benchmark by its id.
+     *
+     * @param id The id, e.g. 'H2'
+     * @return The benchmark
+     * @throws IllegalArgumentException If no benchmark has the id
+     */
+    public static Benchmark valueOf(String id) {
+        var benchmark = Registry.get().findBenchmarkById(id);
+        if(benchmark == null) {
+            throw new IllegalArgumentException("No benchmark with id " + id);
         }
 
-        return null;
+        return benchmark;
+    }
+
+    public static Benchmark getBenchmark(String name) {
+        return Registry.get().findBenchmark(name);
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,20 @@
 package benchmark;
 
 public enum ConfidenceLevel {
-    PERCENT_99("99%", 2.576),
-    PERCENT_98("98%", 2.326),
-    PERCENT_95("95%", 1.960),
-    PERCENT_90("90%", 1.645),
-    PERCENT_85("85%", 1.440),
-    PERCENT_80("80%", 1.282);
+    PERCENT_99("99%", 0.99, 2.576),
+    PERCENT_98("98%", 0.98, 2.326),
+    PERCENT_95("95%", 0.95, 1.960),
+    PERCENT_90("90%", 0.90, 1.645),
+    PERCENT_85("85%", 0.85, 1.440),
+    PERCENT_80("80%", 0.80, 1.282);
 
     private String name;
+    private double level;
     private double z;
 
-    ConfidenceLevel(String name, double z) {
+    ConfidenceLevel(String name, double level, double z) {
         this.name = name;
+        this.level = level;
         this.z = z;
     }
 
@@ -20,6 +22,10 @@ public enum ConfidenceLevel {
         return name;
     }
 
+    public double getLevel() {
+        return level;
+    }
+
     public double getZ() {
         return z;
     }
@@ -1,32 +1,75 @@
 package benchmark;
 
-public enum JVM {
-    OPENJDK_8("OpenJDK 8"),
-    ORACLEJDK_8("OracleJDK 8"),
-    GRAALVM_CE_8("GraalVM CE 8"),
-    GRAALVM_EE_8("GraalVM EE 8"),
-    OPENJDK_11("OpenJDK 11"),
-    ORACLEJDK_11("OracleJDK 11"),
-    GRAALVM_CE_11("GraalVM CE 11"),
-    GRAALVM_EE_11("GraalVM EE 11");
-
-    private String name;
-
-    JVM(String name) {
+/**
+ * A JVM known to the {@link Registry}. Instances are interned, so they can be compared with ==, and mimic the enum
+ * this class used to be: {@link #name()} is the id, e.g. 'GRAALVM_EE_11', and {@link #ordinal()} the position in the
+ * registry.
+ */
+public final class JVM {
+    private final String id;
+    private final String name;
+    private final int version;
+    private final int ordinal;
+
+    JVM(String id, String name, int version, int ordinal) {
+        this.id = id;
         this.name = name;
+        this.version = version;
+        this.ordinal = ordinal;
+    }
+
+    public String name() {
+        return id;
+    }
+
+    public int ordinal() {
+        return ordinal;
     }
 
     public String getName() {
         return name;
     }
 
-    public static JVM getJVM(String name) {
-        for(JVM j : JVM.values()) {
-            if(j.name.equals(name)) {
-                return j;
-            }
+    /**
+     * Gets the Java version the JVM implements, which decides e.g. the command line flags it accepts.
+     *
+     * @return The major version, e.g. 8 or 11
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+    /**
+     * Gets all registered JVMs.
+     *
+     * @return The JVMs, in the order of the registry
+     */
+    public static JVM[] values() {
+        return Registry.get().getJvms();
+    }
+
+    /**
+     * Gets a JVM by its id.
+     *
+     * @param id The id, e.g. 'OPENJDK_8'
+     * @return The JVM
+     * @throws IllegalArgumentException If no JVM has the id
+     */
+    public static JVM valueOf(String id) {
+        var jvm = Registry.get().findJvmById(id);
+        if(jvm == null) {
+            throw new IllegalArgumentException("No JVM with id " + id);
         }
 
-        return null;
+        return jvm;
+    }
+
+    public static JVM getJVM(String name) {
+        return Registry.get().findJvm(name);
     }
-}
\ No newline at end of file
+}
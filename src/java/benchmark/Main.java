@@ -1,39 +1,302 @@
 package benchmark;
 
+import benchmark.results.Bootstrap;
+import benchmark.results.CoefficientOfVariationDetector;
+import benchmark.results.ComparisonEngine;
+import benchmark.results.ComparisonMatrix;
+import benchmark.results.LogArchive;
+import benchmark.results.ReportGenerator;
+import benchmark.results.QueryServer;
+import benchmark.results.Results;
+import benchmark.results.ResultsHistory;
 import benchmark.results.ResultsManager;
 import benchmark.results.ResultsParser;
+import benchmark.results.ResultsSnapshot;
+import benchmark.results.ResultsWatcher;
+import benchmark.results.ShardMerger;
+import benchmark.results.SteadyStateDetector;
+import benchmark.results.TukeyOutlierDetector;
+import benchmark.runner.Coordinator;
+import benchmark.runner.Orchestrator;
+import benchmark.runner.RunConfiguration;
 
 import java.io.File;
-import java.net.URI;
-import java.net.URL;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.function.Function;
 
 public class Main {
+    private static final String RESULTS_ROOT_PATH = "/home/knickus/graalvm_performance/results";
     private static final String TEST_RESULTS_PATH = "/home/knickus/graalvm_performance/results/2020-04-15/raw";
-    private static final String TOML_RESULTS_PATH = "/home/knickus/graalvm_performance/results/2020-04-15/results.toml";
-    private static ResultsManager manager = new ResultsManager();
+    private static final double PEAK_TOLERANCE = 0.05;
+    private static final int WARMUP_AREA_ITERATIONS = 10;
+    private static final int SERVER_PORT = 8080;
+    private static final int SERVER_CACHE_SIZE = 1024;
+    private static final Bootstrap BOOTSTRAP = new Bootstrap(10000, 42, 0.90, 0.99);
+    private static ResultsManager manager;
     private static ResultsParser parser = new ResultsParser();
+    private static SteadyStateDetector detector = new CoefficientOfVariationDetector();
 
+    /**
+     * Commands are dispatched by name rather than looked up reflectively, so that the closed world seen by
+     * native-image contains every code path. See native/build.sh.
+     */
     public static void main(String[] args) throws Exception {
-        parser.parseFolder(manager, new File(TEST_RESULTS_PATH), 20);
-        manager.saveAsToml(new File(TOML_RESULTS_PATH), ConfidenceLevel.PERCENT_99, true);
+        var command = args.length > 0 ? args[0] : "parse";
+
+        // Load the registry before anything enumerates benchmarks or JVMs, so a missing one fails here
+        try {
+            Registry.get();
+        } catch(UncheckedIOException e) {
+            System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+            System.exit(1);
+        }
+        manager = new ResultsManager();
+
+        switch(command) {
+            case "parse":
+                parse(args.length > 1 ? args[1] : TEST_RESULTS_PATH, args.length > 2 ? args[2] : null);
+                break;
+            case "watch":
+                watch(args.length > 1 ? args[1] : TEST_RESULTS_PATH, args.length > 2 ? args[2] : null);
+                break;
+            case "run":
+                if(args.length < 2) {
+                    usage();
+                }
+                run(args[1], args.length > 2 ? args[2] : null);
+                break;
+            case "worker":
+                if(args.length < 6) {
+                    usage();
+                }
+                worker(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), args[4], args[5]);
+                break;
+            case "history":
+                history(args.length > 1 ? args[1] : RESULTS_ROOT_PATH, args.length > 2 ? args[2] : null);
+                break;
+            case "query":
+                if(args.length < 3) {
+                    usage();
+                }
+                query(args[1], args[2], args.length > 3 ? args[3] : null, args.length > 4 ? args[4] : null);
+                break;
+            case "archive":
+                if(args.length < 2) {
+                    usage();
+                }
+                archive(args[1], args.length > 2 ? args[2] : null);
+                break;
+            case "serve":
+                if(args.length < 2) {
+                    usage();
+                }
+                serve(args[1], args.length > 2 ? Integer.parseInt(args[2]) : SERVER_PORT);
+                break;
+            default:
+                usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: benchmark [parse [raw folder or archive] [output folder]]");
+        System.err.println("       benchmark watch [raw folder] [summary]");
+        System.err.println("       benchmark run <config> [summary]");
+        System.err.println("       benchmark worker <config> <shard> <shards> <host> <snapshot>");
+        System.err.println("       benchmark history [results folder] [report]");
+        System.err.println("       benchmark query <snapshot, archive or raw folder> <benchmark> [jvm] [type]");
+        System.err.println("       benchmark serve <snapshot, archive or raw folder> [port]");
+        System.err.println("       benchmark archive <raw folder> [archive]");
+        System.exit(1);
+    }
+
+    /**
+     * Watches a raw folder being written, keeping the summary and a report in a 'report' folder next to it up to date.
+     * The summary is by default 'results.toml' next to the raw folder.
+     */
+    private static void watch(String folder, String summary) throws Exception {
+        var summaryFile = summary == null
+                          ? new File(new File(folder).getAbsoluteFile().getParentFile(), "results.toml")
+                          : new File(summary).getAbsoluteFile();
+        var report = createReport(new File(summaryFile.getParentFile(), "report"));
+        new ResultsWatcher(manager, new File(folder), detector).watch(summaryFile, ConfidenceLevel.PERCENT_99, report);
+    }
+
+    private static ReportGenerator createReport(File folder) {
+        return new ReportGenerator(folder,
+                                   ConfidenceLevel.PERCENT_99,
+                                   JVM.values()[0],
+                                   MeasurementType.STARTUP,
+                                   MeasurementType.STEADY_STATE);
+    }
+
+    /**
+     * Runs a campaign, split across the configured workers if there are any. Results where the workers disagree are
+     * printed and left out of the summary.
+     */
+    private static void run(String configuration, String summaryPath) throws Exception {
+        var file = new File(configuration);
+        var runConfiguration = RunConfiguration.load(file);
+        if(runConfiguration.getWorkers().isEmpty()) {
+            new Orchestrator(runConfiguration).run(manager);
+        } else {
+            var merger = new ShardMerger(ConfidenceLevel.PERCENT_99,
+                                         MeasurementType.STARTUP,
+                                         MeasurementType.STEADY_STATE);
+            for(ShardMerger.Conflict conflict : new Coordinator(runConfiguration, file).run(manager, merger)) {
+                System.out.println("Not merged, hosts differ: " + conflict);
+            }
+        }
+        if(summaryPath != null) {
+            var summary = new File(summaryPath).getAbsoluteFile();
+            manager.saveAsToml(summary, ConfidenceLevel.PERCENT_99, false);
+            manager.saveTradeoffTable(new File(summary.getParentFile(), "tradeoff.csv"), ConfidenceLevel.PERCENT_99);
+        }
         manager.prettyPrintAll();
+    }
+
+    private static void worker(String configuration, int shard, int shards, String host, String snapshot)
+            throws Exception {
+        new Orchestrator(RunConfiguration.load(new File(configuration)), host, shard, shards).run(manager);
+        ResultsSnapshot.write(manager, new File(snapshot), host);
+    }
+
+    private static void history(String folder, String reportPath) throws Exception {
+        var history = ResultsHistory.load(new File(folder), parser, detector);
+        for(ResultsHistory.Run run : history.getRuns()) {
+            System.out.println(run.getDate() + (run.isCached() ? " (cached)" : " (parsed)"));
+        }
+
+        var report = history.detectChanges(ConfidenceLevel.PERCENT_99,
+                                           MeasurementType.STARTUP,
+                                           MeasurementType.STEADY_STATE);
+        report.prettyPrint();
+        if(reportPath != null) {
+            report.saveAsToml(new File(reportPath));
+        }
+    }
+
+    /**
+     * Prints the {@link Results} of one benchmark, optionally narrowed down to one JVM and one type. Names are
+     * those printed by the other commands, e.g. 'h2', 'GraalVM EE 11' and 'Steady state', or the constant
+     * names, e.g. 'H2', 'GRAALVM_EE_11' and 'STEADY_STATE'. Reading a snapshot only touches the queried entries,
+     * and reading an archive only inflates the invocations of the queried benchmark and JVM.
+     */
+    private static void query(String source, String benchmarkName, String jvmName, String typeName) throws Exception {
+        var benchmark = findConstant(Benchmark.values(), Benchmark::name, Benchmark::getName, benchmarkName);
+        var jvm = jvmName == null ? null : findConstant(JVM.values(), JVM::name, JVM::getName, jvmName);
+        var type = typeName == null
+                   ? null
+                   : findConstant(MeasurementType.values(), MeasurementType::name, MeasurementType::getName, typeName);
+        if(benchmark == null || (jvmName != null && jvm == null) || (typeName != null && type == null)) {
+            System.err.println("Unknown benchmark, JVM or type");
+            System.exit(1);
+        }
+
+        var file = new File(source);
+        if(LogArchive.isArchive(file)) {
+            var archive = LogArchive.open(file);
+            var invocations = new ArrayList<LogArchive.Entry>();
+            for(LogArchive.Entry entry : archive.getEntries()) {
+                if(entry.getBenchmark() == benchmark && (jvm == null || entry.getJvm() == jvm)) {
+                    invocations.add(entry);
+                }
+            }
+            parser.parseArchive(manager, archive, invocations, detector);
+        } else if(file.isFile()) {
+            for(ResultsSnapshot.Entry entry : ResultsSnapshot.open(file).getEntries()) {
+                if(entry.getBenchmark() == benchmark
+                   && (jvm == null || entry.getJvm() == jvm)
+                   && (type == null || entry.getType() == type)) {
+                    entry.toResults().prettyPrint();
+                }
+            }
+            return;
+        } else {
+            parser.parseFolder(manager, file, detector);
+        }
+
+        for(Results results : manager.getResults(benchmark, type == null ? MeasurementType.STEADY_STATE : type)) {
+            if(jvm == null || results.getJvm() == jvm) {
+                results.prettyPrint();
+            }
+        }
+    }
+
+    /**
+     * Serves queries over HTTP on localhost until the process is stopped, see {@link QueryServer}. A raw folder is
+     * watched, so that invocations written while serving are included in later answers.
+     */
+    private static void serve(String source, int port) throws Exception {
+        var file = new File(source);
+        ResultsWatcher watcher = null;
+        if(LogArchive.isArchive(file)) {
+            parser.parseArchive(manager, file, detector);
+        } else if(file.isFile()) {
+            manager = ResultsSnapshot.open(file).toManager();
+        } else {
+            watcher = new ResultsWatcher(manager, file, detector);
+            watcher.poll();
+        }
+
+        var server = new QueryServer(manager, watcher, SERVER_CACHE_SIZE);
+        System.out.println("Serving on http://localhost:" + server.start(port) + "/summary?benchmark=h2");
+    }
 
-//        var avroraOpenJDK8 = manager.getResults(Benchmark.AVRORA, JVM.OPENJDK_8, MeasurementType.STEADY_STATE);
-//        var avroraGraalCE8 = manager.getResults(Benchmark.AVRORA, JVM.GRAALVM_CE_8, MeasurementType.STEADY_STATE);
-//        var avroraGraalEE8 = manager.getResults(Benchmark.AVRORA, JVM.GRAALVM_EE_8, MeasurementType.STEADY_STATE);
-//
-//        var mean = avroraOpenJDK8.getMean();
-//
-//        avroraOpenJDK8 = avroraOpenJDK8.createNormalizedResults(mean);
-//        avroraGraalCE8 = avroraGraalCE8.createNormalizedResults(mean);
-//        avroraGraalEE8 = avroraGraalEE8.createNormalizedResults(mean);
-//
-//        avroraOpenJDK8.prettyPrint();
-//        avroraGraalCE8.prettyPrint();
-//        avroraGraalEE8.prettyPrint();
-//
-//        System.out.println("avroraOpenJDK8.isConfidenceIntervalOverlapping(ConfidenceLevel.PERCENT_95, avroraGraalCE8) = " + avroraOpenJDK8.isConfidenceIntervalOverlapping(ConfidenceLevel.PERCENT_95, avroraGraalCE8));
-//        System.out.println("avroraOpenJDK8.isConfidenceIntervalOverlapping(ConfidenceLevel.PERCENT_95, avroraGraalEE8) = " + avroraOpenJDK8.isConfidenceIntervalOverlapping(ConfidenceLevel.PERCENT_95, avroraGraalEE8));
+    private static <E> E findConstant(E[] constants,
+                                      Function<E, String> getId,
+                                      Function<E, String> getName,
+                                      String name) {
+        for(E constant : constants) {
+            if(getId.apply(constant).equalsIgnoreCase(name) || getName.apply(constant).equalsIgnoreCase(name)) {
+                return constant;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Compresses a raw folder into a {@link LogArchive}, by default named 'raw.archive' next to it, which the other
+     * commands accept in place of the folder.
+     */
+    private static void archive(String folder, String archivePath) throws Exception {
+        var raw = new File(folder).getAbsoluteFile();
+        var archive = archivePath == null
+                      ? new File(raw.getParentFile(), raw.getName() + ".archive")
+                      : new File(archivePath);
+        var bytes = LogArchive.write(raw, archive);
+        System.out.println("Archived " + bytes + " bytes into " + archive.length() + " bytes: " + archive.getPath());
+    }
+
+    /**
+     * Parses a raw folder or archive and saves the summary, snapshot, comparisons, outliers, campaign plan, warmup
+     * curves and report of the run into an output folder, by default the folder holding the source.
+     */
+    private static void parse(String source, String outputPath) throws Exception {
+        var file = new File(source).getAbsoluteFile();
+        var output = outputPath == null ? file.getParentFile() : new File(outputPath);
+        output.mkdirs();
+        var statistics = LogArchive.isArchive(file)
+                         ? parser.parseArchive(manager, file, detector)
+                         : parser.parseFolder(manager, file, detector);
+        statistics.prettyPrint();
+        ResultsSnapshot.write(manager, new File(output, "results.snapshot"));
+        manager.addWarmupResults(PEAK_TOLERANCE, WARMUP_AREA_ITERATIONS);
+        manager.saveWarmupCurves(new File(output, "warmup"), ConfidenceLevel.PERCENT_99);
+        manager.saveAsToml(new File(output, "results.toml"), ConfidenceLevel.PERCENT_99, true, BOOTSTRAP);
+        manager.saveOutliers(new File(output, "outliers.csv"),
+                             new TukeyOutlierDetector(),
+                             MeasurementType.STARTUP,
+                             MeasurementType.STEADY_STATE);
+        manager.saveCampaignPlan(new File(output, "plan.csv"), ConfidenceLevel.PERCENT_99);
+
+        var engine = new ComparisonEngine(ConfidenceLevel.PERCENT_99);
+        var matrices = new ArrayList<ComparisonMatrix>();
+        matrices.addAll(engine.compare(manager, MeasurementType.STEADY_STATE));
+        matrices.addAll(engine.compare(manager, MeasurementType.STARTUP));
+        engine.saveAsToml(matrices, new File(output, "comparisons.toml"));
+        createReport(new File(output, "report")).render(manager);
+        manager.prettyPrintAll();
     }
 }
@@ -2,7 +2,17 @@ package benchmark;
 
 public enum MeasurementType {
     STARTUP("Startup"),
-    STEADY_STATE("Steady state");
+    STEADY_STATE("Steady state"),
+    WARMUP_ITERATIONS("Iterations to steady state"),
+    WARMUP_CURVE("Warmup curve"),
+    TIME_TO_PEAK("Time to peak"),
+    WARMUP_AREA("Area under warmup curve"),
+    GC_PAUSE_TIME("GC pause time"),
+    ALLOCATION_RATE("Allocation rate"),
+    JIT_TIME("JIT compilation time"),
+    PEAK_RSS("Peak RSS"),
+    HEAP_AFTER_GC("Heap after GC"),
+    APPLICATION_METRIC("Application metric");
 
     private String name;
 
@@ -0,0 +1,294 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link Benchmark}s and {@link JVM}s known to the analysis tools, loaded from a registry file so that new JVM
+ * builds and benchmarks can be evaluated without recompiling. The Python scripts read the same file.
+ * <p>
+ * The registry is loaded on first use from the file named by the system property 'benchmark.registry', or else from
+ * the resource 'benchmark/registry.toml' bundled by native/build.sh, or else from 'config/registry.toml' in the
+ * checkout the classes were loaded from, found by walking up from their code source, or else from
+ * 'config/registry.toml' in the working directory. The file is a small subset of TOML: arrays of tables named
+ * 'benchmark' and 'jvm', holding string and integer values, see config/registry.toml.
+ * <p>
+ * Every entry is created once, so entries can be compared with ==. Lookups by id and by name are hash lookups.
+ */
+public final class Registry {
+    public static final String PROPERTY = "benchmark.registry";
+    private static final String RESOURCE = "/benchmark/registry.toml";
+    private static final String DEFAULT_FILE = "config/registry.toml";
+
+    private static volatile Registry instance;
+
+    private final Benchmark[] benchmarks;
+    private final JVM[] jvms;
+    private final Map<String, Benchmark> benchmarksById = new HashMap<>();
+    private final Map<String, Benchmark> benchmarksByName = new HashMap<>();
+    private final Map<String, JVM> jvmsById = new HashMap<>();
+    private final Map<String, JVM> jvmsByName = new HashMap<>();
+
+    private Registry(List<Map<String, String>> benchmarkTables, List<Map<String, String>> jvmTables, String source)
+            throws IOException {
+        benchmarks = new Benchmark[benchmarkTables.size()];
+        for(int i = 0; i < benchmarks.length; i++) {
+            var table = benchmarkTables.get(i);
+            var benchmark = new Benchmark(getRequired(table, "id", source),
+                                          getRequired(table, "name", source),
+                                          table.getOrDefault("suite", "dacapo"),
+                                          i);
+            benchmarks[i] = benchmark;
+            if(benchmarksById.put(benchmark.name(), benchmark) != null
+               || benchmarksByName.put(benchmark.getName(), benchmark) != null) {
+                throw new IOException("Benchmark " + benchmark.name() + " is defined twice in " + source);
+            }
+        }
+
+        jvms = new JVM[jvmTables.size()];
+        for(int i = 0; i < jvms.length; i++) {
+            var table = jvmTables.get(i);
+            JVM jvm;
+            try {
+                jvm = new JVM(getRequired(table, "id", source),
+                              getRequired(table, "name", source),
+                              Integer.parseInt(getRequired(table, "version", source)),
+                              i);
+            } catch(NumberFormatException e) {
+                throw new IOException("Invalid JVM version in " + source, e);
+            }
+            jvms[i] = jvm;
+            if(jvmsById.put(jvm.name(), jvm) != null || jvmsByName.put(jvm.getName(), jvm) != null) {
+                throw new IOException("JVM " + jvm.name() + " is defined twice in " + source);
+            }
+        }
+
+        if(benchmarks.length == 0 || jvms.length == 0) {
+            throw new IOException(source + " must define at least one benchmark and one JVM");
+        }
+    }
+
+    /**
+     * Gets the registry in use, loading it on first use.
+     *
+     * @return The registry
+     * @throws UncheckedIOException If the registry can not be loaded
+     */
+    public static Registry get() {
+        var registry = instance;
+        if(registry == null) {
+            synchronized(Registry.class) {
+                registry = instance;
+                if(registry == null) {
+                    try {
+                        registry = loadDefault();
+                    } catch(IOException e) {
+                        throw new UncheckedIOException("Could not load the benchmark and JVM registry", e);
+                    }
+                    instance = registry;
+                }
+            }
+        }
+
+        return registry;
+    }
+
+    private static Registry loadDefault() throws IOException {
+        var path = System.getProperty(PROPERTY);
+        if(path != null) {
+            return load(new File(path));
+        }
+
+        var resource = Registry.class.getResourceAsStream(RESOURCE);
+        if(resource != null) {
+            try(var reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+                return parse(reader, RESOURCE);
+            }
+        }
+
+        var file = findInCheckout();
+        if(file == null) {
+            file = new File(DEFAULT_FILE).getAbsoluteFile();
+        }
+        if(!file.isFile()) {
+            throw new IOException("No registry found next to the classes or at " + file + ", set -D" + PROPERTY
+                                  + " to the path of registry.toml");
+        }
+
+        return load(file);
+    }
+
+    private static File findInCheckout() {
+        var codeSource = Registry.class.getProtectionDomain().getCodeSource();
+        if(codeSource == null || codeSource.getLocation() == null) {
+            return null;
+        }
+
+        File location;
+        try {
+            location = new File(codeSource.getLocation().toURI());
+        } catch(URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+
+        for(var folder = location.getParentFile(); folder != null; folder = folder.getParentFile()) {
+            var file = new File(folder, DEFAULT_FILE);
+            if(file.isFile()) {
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Loads a registry file.
+     *
+     * @param file The file
+     * @return The registry
+     * @throws IOException If the file can not be read or is not a valid registry
+     */
+    public static Registry load(File file) throws IOException {
+        try(var reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader, file.getAbsolutePath());
+        }
+    }
+
+    private static Registry parse(Reader reader, String source) throws IOException {
+        var tables = new LinkedHashMap<String, List<Map<String, String>>>();
+        tables.put("benchmark", new ArrayList<>());
+        tables.put("jvm", new ArrayList<>());
+        Map<String, String> table = null;
+
+        var lines = new BufferedReader(reader);
+        String line;
+        for(int number = 1; (line = lines.readLine()) != null; number++) {
+            line = stripComment(line).strip();
+            if(line.isEmpty()) {
+                continue;
+            }
+
+            if(line.startsWith("[[") && line.endsWith("]]")) {
+                var list = tables.get(line.substring(2, line.length() - 2).strip());
+                if(list == null) {
+                    throw new IOException("Unknown table " + line + " on line " + number + " of " + source);
+                }
+                table = new HashMap<>();
+                list.add(table);
+                continue;
+            }
+
+            var separator = line.indexOf('=');
+            if(table == null || separator < 0) {
+                throw new IOException("Unsupported line " + number + " of " + source);
+            }
+
+            table.put(line.substring(0, separator).strip(), parseValue(line.substring(separator + 1).strip()));
+        }
+
+        return new Registry(tables.get("benchmark"), tables.get("jvm"), source);
+    }
+
+    private static String stripComment(String line) {
+        var quoted = false;
+        for(int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if(c == '\\' && quoted) {
+                i++;
+            } else if(c == '"') {
+                quoted = !quoted;
+            } else if(c == '#' && !quoted) {
+                return line.substring(0, i);
+            }
+        }
+
+        return line;
+    }
+
+    private static String parseValue(String value) {
+        if(value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return value;
+        }
+
+        return value.substring(1, value.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    private static String getRequired(Map<String, String> table, String key, String source) throws IOException {
+        var value = table.get(key);
+        if(value == null || value.isEmpty()) {
+            throw new IOException("An entry in " + source + " has no " + key);
+        }
+
+        return value;
+    }
+
+    /**
+     * Gets all benchmarks.
+     *
+     * @return A copy of the benchmarks, in the order they are listed
+     */
+    public Benchmark[] getBenchmarks() {
+        return benchmarks.clone();
+    }
+
+    /**
+     * Gets all JVMs.
+     *
+     * @return A copy of the JVMs, in the order they are listed
+     */
+    public JVM[] getJvms() {
+        return jvms.clone();
+    }
+
+    /**
+     * Finds a benchmark by the name printed by its suite.
+     *
+     * @param name The name, e.g. 'lusearch-fix'
+     * @return The benchmark or null if none has the name
+     */
+    public Benchmark findBenchmark(String name) {
+        return benchmarksByName.get(name);
+    }
+
+    /**
+     * Finds a benchmark by its id.
+     *
+     * @param id The id, e.g. 'LUSEARCH_FIX'
+     * @return The benchmark or null if none has the id
+     */
+    public Benchmark findBenchmarkById(String id) {
+        return benchmarksById.get(id);
+    }
+
+    /**
+     * Finds a JVM by its name.
+     *
+     * @param name The name, e.g. 'GraalVM EE 11'
+     * @return The JVM or null if none has the name
+     */
+    public JVM findJvm(String name) {
+        return jvmsByName.get(name);
+    }
+
+    /**
+     * Finds a JVM by its id.
+     *
+     * @param id The id, e.g. 'GRAALVM_EE_11'
+     * @return The JVM or null if none has the id
+     */
+    public JVM findJvmById(String id) {
+        return jvmsById.get(id);
+    }
+}
@@ -0,0 +1,170 @@
+package benchmark.results;
+
+import benchmark.ConfidenceLevel;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates percentile bootstrap confidence intervals, which unlike {@link Results#getMarginOfError(ConfidenceLevel)}
+ * make no assumption of normally distributed data.
+ * <p>
+ * Resamples are drawn in parallel. Every resample uses its own random generator derived from the seed, so the
+ * intervals are reproducible regardless of the number of threads. Percentiles of a resample are found by counting
+ * how many times each value of the sorted original data is drawn, which avoids sorting every resample.
+ */
+public class Bootstrap {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final int resamples;
+    private final long seed;
+    private final double[] percentiles;
+    private final ThreadLocal<int[]> counts = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * Creates a new {@link Bootstrap}.
+     *
+     * @param resamples   The number of resamples drawn per interval
+     * @param seed        The seed of the random generators
+     * @param percentiles The percentiles, between 0 and 1, reported in addition to the mean and median
+     */
+    public Bootstrap(int resamples, long seed, double... percentiles) {
+        if(resamples < 1) {
+            throw new IllegalArgumentException("At least one resample is required");
+        }
+
+        for(double percentile : percentiles) {
+            if(percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("Percentile " + percentile + " is not between 0 and 1");
+            }
+        }
+
+        this.resamples = resamples;
+        this.seed = seed;
+        this.percentiles = percentiles.clone();
+    }
+
+    public int getResamples() {
+        return resamples;
+    }
+
+    /**
+     * Gets the percentiles reported in addition to the mean and median.
+     *
+     * @return The percentiles, between 0 and 1
+     */
+    public double[] getPercentiles() {
+        return percentiles.clone();
+    }
+
+    /**
+     * Calculates a confidence interval for the mean.
+     *
+     * @param results         The data
+     * @param confidenceLevel The confidence level to calculate for
+     * @return The interval, with all values -1 if no data has been saved
+     */
+    public ConfidenceInterval getMeanInterval(Results results, ConfidenceLevel confidenceLevel) {
+        var values = results.toArray();
+        var size = values.length;
+        if(size == 0) {
+            return new ConfidenceInterval(confidenceLevel, -1, -1, -1);
+        }
+
+        var estimates = IntStream.range(0, resamples).parallel().mapToDouble(i -> {
+            var random = createRandom(i);
+            double sum = 0;
+            for(int j = 0; j < size; j++) {
+                sum += values[random.nextInt(size)];
+            }
+            return sum / size;
+        }).toArray();
+
+        return createInterval(confidenceLevel, results.getMean(), estimates);
+    }
+
+    /**
+     * Calculates a confidence interval for the median.
+     *
+     * @param results         The data
+     * @param confidenceLevel The confidence level to calculate for
+     * @return The interval, with all values -1 if no data has been saved
+     */
+    public ConfidenceInterval getMedianInterval(Results results, ConfidenceLevel confidenceLevel) {
+        return getPercentileInterval(results, 0.5, confidenceLevel);
+    }
+
+    /**
+     * Calculates a confidence interval for a percentile.
+     *
+     * @param results         The data
+     * @param percentile      The percentile, between 0 and 1
+     * @param confidenceLevel The confidence level to calculate for
+     * @return The interval, with all values -1 if no data has been saved
+     */
+    public ConfidenceInterval getPercentileInterval(Results results, double percentile, ConfidenceLevel confidenceLevel) {
+        var sorted = results.toArray();
+        var size = sorted.length;
+        if(size == 0) {
+            return new ConfidenceInterval(confidenceLevel, -1, -1, -1);
+        }
+
+        Arrays.sort(sorted);
+        var position = percentile * (size - 1);
+        var lowerRank = (int) Math.floor(position);
+        var upperRank = (int) Math.ceil(position);
+        var fraction = position - lowerRank;
+
+        var estimates = IntStream.range(0, resamples).parallel().mapToDouble(i -> {
+            var random = createRandom(i);
+            var drawn = counts.get();
+            if(drawn.length < size) {
+                drawn = new int[size];
+                counts.set(drawn);
+            } else {
+                Arrays.fill(drawn, 0, size, 0);
+            }
+
+            for(int j = 0; j < size; j++) {
+                drawn[random.nextInt(size)]++;
+            }
+
+            var lower = valueAtRank(sorted, drawn, lowerRank);
+            var upper = upperRank == lowerRank ? lower : valueAtRank(sorted, drawn, upperRank);
+            return lower + fraction * (upper - lower);
+        }).toArray();
+
+        return createInterval(confidenceLevel, SampleStore.percentile(sorted, size, percentile), estimates);
+    }
+
+    private static double valueAtRank(double[] sorted, int[] drawn, int rank) {
+        var cumulative = 0;
+        for(int i = 0; i < sorted.length; i++) {
+            cumulative += drawn[i];
+            if(cumulative > rank) {
+                return sorted[i];
+            }
+        }
+
+        return sorted[sorted.length - 1];
+    }
+
+    private ConfidenceInterval createInterval(ConfidenceLevel confidenceLevel, double estimate, double[] estimates) {
+        Arrays.sort(estimates);
+        var alpha = 1 - confidenceLevel.getLevel();
+
+        return new ConfidenceInterval(confidenceLevel,
+                                      estimate,
+                                      SampleStore.percentile(estimates, estimates.length, alpha / 2),
+                                      SampleStore.percentile(estimates, estimates.length, 1 - alpha / 2));
+    }
+
+    private SplittableRandom createRandom(int resample) {
+        // Mix the seed so that the sequences of neighbouring resamples do not overlap
+        var z = seed + (resample + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark.results;
+
+/**
+ * A {@link SteadyStateDetector} sliding a window over the iterations of an invocation. Steady state begins
+ * with the first window whose coefficient of variation (standard deviation divided by mean) is at or below
+ * a threshold. If no window qualifies, steady state begins with the window having the lowest coefficient of
+ * variation. The first iteration is always treated as warmup.
+ */
+public class CoefficientOfVariationDetector implements SteadyStateDetector {
+    private final int window;
+    private final double threshold;
+
+    /**
+     * Creates a detector using a window of 10 iterations and a threshold of 3%.
+     */
+    public CoefficientOfVariationDetector() {
+        this(10, 0.03);
+    }
+
+    /**
+     * Creates a new {@link CoefficientOfVariationDetector}.
+     *
+     * @param window    The number of iterations in the sliding window
+     * @param threshold The highest coefficient of variation accepted as steady, e.g. 0.03 for 3%
+     */
+    public CoefficientOfVariationDetector(int window, double threshold) {
+        if(window < 2) {
+            throw new IllegalArgumentException("The window must contain at least two iterations");
+        }
+
+        this.window = window;
+        this.threshold = threshold;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public int detect(double[] iterationTimes, int count) {
+        if(count <= 1) {
+            return 0;
+        }
+
+        var size = Math.min(window, count - 1);
+        var best = 1;
+        var bestCoefficient = Double.POSITIVE_INFINITY;
+
+        double sum = 0;
+        double squareSum = 0;
+        var missing = 0;
+
+        for(int i = 1; i < count; i++) {
+            var value = iterationTimes[i];
+            if(Double.isNaN(value)) {
+                missing++;
+            } else {
+                sum += value;
+                squareSum += value * value;
+            }
+
+            var start = i - size + 1;
+            if(start > 1) {
+                var removed = iterationTimes[start - 1];
+                if(Double.isNaN(removed)) {
+                    missing--;
+                } else {
+                    sum -= removed;
+                    squareSum -= removed * removed;
+                }
+            }
+
+            if(start < 1 || missing > 0) {
+                continue;
+            }
+
+            var mean = sum / size;
+            var variance = Math.max(0, squareSum / size - mean * mean);
+            var coefficient = Math.sqrt(variance) / mean;
+
+            if(coefficient <= threshold) {
+                return start;
+            }
+
+            if(coefficient < bestCoefficient) {
+                bestCoefficient = coefficient;
+                best = start;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,219 @@
+package benchmark.results;
+
+import benchmark.ConfidenceLevel;
+
+/**
+ * The outcome of comparing two {@link Results}, A and B, produced by a {@link ComparisonEngine}.
+ * Lower values are considered better, as is the case for execution times.
+ */
+public class Comparison {
+    /**
+     * The conclusion of a {@link Comparison}, seen from A.
+     */
+    public enum Verdict {
+        FASTER(1),
+        INCONCLUSIVE(0),
+        SLOWER(-1);
+
+        private int value;
+
+        Verdict(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Gets the value used for this verdict in heatmaps.
+         *
+         * @return 1 if A is faster, -1 if A is slower and 0 otherwise
+         */
+        public int getValue() {
+            return value;
+        }
+
+        Verdict reverse() {
+            return this == FASTER ? SLOWER : this == SLOWER ? FASTER : INCONCLUSIVE;
+        }
+    }
+
+    private final Results a;
+    private final Results b;
+    private final ConfidenceLevel confidenceLevel;
+    private final double welchT;
+    private final double welchDegreesOfFreedom;
+    private final double welchP;
+    private final double mannWhitneyU;
+    private final double mannWhitneyP;
+    private final double hedgesG;
+    private final double cliffsDelta;
+    private final ConfidenceInterval speedup;
+    private double welchPAdjusted;
+    private double mannWhitneyPAdjusted;
+    private Verdict verdict = Verdict.INCONCLUSIVE;
+
+    Comparison(Results a,
+               Results b,
+               ConfidenceLevel confidenceLevel,
+               double welchT,
+               double welchDegreesOfFreedom,
+               double welchP,
+               double mannWhitneyU,
+               double mannWhitneyP,
+               double hedgesG,
+               double cliffsDelta,
+               ConfidenceInterval speedup) {
+        this.a = a;
+        this.b = b;
+        this.confidenceLevel = confidenceLevel;
+        this.welchT = welchT;
+        this.welchDegreesOfFreedom = welchDegreesOfFreedom;
+        this.welchP = welchP;
+        this.mannWhitneyU = mannWhitneyU;
+        this.mannWhitneyP = mannWhitneyP;
+        this.hedgesG = hedgesG;
+        this.cliffsDelta = cliffsDelta;
+        this.speedup = speedup;
+        this.welchPAdjusted = welchP;
+        this.mannWhitneyPAdjusted = mannWhitneyP;
+    }
+
+    public Results getA() {
+        return a;
+    }
+
+    public Results getB() {
+        return b;
+    }
+
+    public ConfidenceLevel getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public double getWelchT() {
+        return welchT;
+    }
+
+    public double getWelchDegreesOfFreedom() {
+        return welchDegreesOfFreedom;
+    }
+
+    /**
+     * Gets the two-sided p-value of Welch's t-test, before correcting for multiple comparisons.
+     *
+     * @return The p-value or NaN if either data set holds fewer than two values
+     */
+    public double getWelchP() {
+        return welchP;
+    }
+
+    /**
+     * Gets the p-value of Welch's t-test after Holm-Bonferroni correction.
+     *
+     * @return The p-value
+     */
+    public double getWelchPAdjusted() {
+        return welchPAdjusted;
+    }
+
+    /**
+     * Gets the U statistic of the Mann-Whitney test, i.e. the number of pairs where A is larger than B,
+     * counting ties as one half.
+     *
+     * @return The U statistic
+     */
+    public double getMannWhitneyU() {
+        return mannWhitneyU;
+    }
+
+    /**
+     * Gets the two-sided p-value of the Mann-Whitney U test, before correcting for multiple comparisons.
+     *
+     * @return The p-value or NaN if either data set is empty
+     */
+    public double getMannWhitneyP() {
+        return mannWhitneyP;
+    }
+
+    /**
+     * Gets the p-value of the Mann-Whitney U test after Holm-Bonferroni correction.
+     *
+     * @return The p-value
+     */
+    public double getMannWhitneyPAdjusted() {
+        return mannWhitneyPAdjusted;
+    }
+
+    /**
+     * Gets Hedges' g, the bias corrected standardized difference between the mean of A and the mean of B.
+     *
+     * @return The effect size, negative if A has the lower mean
+     */
+    public double getHedgesG() {
+        return hedgesG;
+    }
+
+    /**
+     * Gets Cliff's delta, P(A &gt; B) - P(A &lt; B) for a random value from each data set.
+     *
+     * @return The effect size between -1 and 1, negative if A tends to be lower
+     */
+    public double getCliffsDelta() {
+        return cliffsDelta;
+    }
+
+    /**
+     * Gets the speedup of A over B, the mean of B divided by the mean of A, with its confidence interval.
+     *
+     * @return The speedup, above 1 if A is faster
+     */
+    public ConfidenceInterval getSpeedup() {
+        return speedup;
+    }
+
+    /**
+     * Gets the verdict. A is only considered faster or slower if both tests are significant after correction
+     * and agree on the direction.
+     *
+     * @return The verdict
+     */
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    void adjust(double welchPAdjusted, double mannWhitneyPAdjusted) {
+        this.welchPAdjusted = welchPAdjusted;
+        this.mannWhitneyPAdjusted = mannWhitneyPAdjusted;
+
+        var alpha = 1 - confidenceLevel.getLevel();
+        if(welchPAdjusted < alpha && mannWhitneyPAdjusted < alpha && Math.signum(welchT) == Math.signum(cliffsDelta)) {
+            verdict = welchT < 0 ? Verdict.FASTER : Verdict.SLOWER;
+        } else {
+            verdict = Verdict.INCONCLUSIVE;
+        }
+    }
+
+    /**
+     * Creates the same comparison seen from B.
+     *
+     * @return The reversed comparison
+     */
+    Comparison reverse() {
+        var reversed = new Comparison(b,
+                                      a,
+                                      confidenceLevel,
+                                      -welchT,
+                                      welchDegreesOfFreedom,
+                                      welchP,
+                                      a.getSize() * (double) b.getSize() - mannWhitneyU,
+                                      mannWhitneyP,
+                                      -hedgesG,
+                                      -cliffsDelta,
+                                      new ConfidenceInterval(confidenceLevel,
+                                                             1 / speedup.getEstimate(),
+                                                             1 / speedup.getUpper(),
+                                                             1 / speedup.getLower()));
+        reversed.welchPAdjusted = welchPAdjusted;
+        reversed.mannWhitneyPAdjusted = mannWhitneyPAdjusted;
+        reversed.verdict = verdict.reverse();
+        return reversed;
+    }
+}
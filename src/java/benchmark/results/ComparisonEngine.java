@@ -0,0 +1,306 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compares every pair of {@link JVM}s for every {@link Benchmark} using both Welch's t-test and the Mann-Whitney U
+ * test, which unlike overlapping confidence intervals give an actual probability of the observed difference.
+ * <p>
+ * Since many pairs are tested per benchmark, the p-values of each benchmark are corrected using the Holm-Bonferroni
+ * method, which keeps the probability of any false verdict for the benchmark below 1 - the confidence level.
+ * Benchmarks are compared in parallel.
+ */
+public class ComparisonEngine {
+    private final ConfidenceLevel confidenceLevel;
+
+    /**
+     * Creates a new {@link ComparisonEngine}.
+     *
+     * @param confidenceLevel The confidence level of the verdicts and the speedup intervals
+     */
+    public ComparisonEngine(ConfidenceLevel confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    public ConfidenceLevel getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    /**
+     * Compares all {@link JVM}s with at least two values of the specified type, one matrix per {@link Benchmark}.
+     *
+     * @param manager The manager holding the data
+     * @param type    The type of data to compare
+     * @return The matrices of benchmarks with data for at least two JVMs
+     */
+    public List<ComparisonMatrix> compare(ResultsManager manager, MeasurementType type) {
+        return Arrays.stream(Benchmark.values())
+                     .parallel()
+                     .map(benchmark -> compare(manager, benchmark, type))
+                     .filter(matrix -> matrix.getJvms().size() > 1)
+                     .collect(Collectors.toList());
+    }
+
+    /**
+     * Compares all {@link JVM}s with at least two values of the specified type for one {@link Benchmark}.
+     *
+     * @param manager   The manager holding the data
+     * @param benchmark The benchmark to compare
+     * @param type      The type of data to compare
+     * @return The matrix
+     */
+    public ComparisonMatrix compare(ResultsManager manager, Benchmark benchmark, MeasurementType type) {
+        var jvms = new ArrayList<JVM>();
+        var results = new ArrayList<Results>();
+        var sorted = new ArrayList<double[]>();
+
+        for(Results candidate : manager.getResults(benchmark, type)) {
+            if(candidate.getSize() > 1) {
+                var values = candidate.toArray();
+                Arrays.sort(values);
+                jvms.add(candidate.getJvm());
+                results.add(candidate);
+                sorted.add(values);
+            }
+        }
+
+        var matrix = new Comparison[jvms.size()][jvms.size()];
+        var pairs = new ArrayList<Comparison>();
+
+        for(int i = 0; i < jvms.size(); i++) {
+            for(int j = i + 1; j < jvms.size(); j++) {
+                matrix[i][j] = compare(results.get(i), sorted.get(i), results.get(j), sorted.get(j));
+                pairs.add(matrix[i][j]);
+            }
+        }
+
+        adjust(pairs);
+
+        for(int i = 0; i < jvms.size(); i++) {
+            for(int j = i + 1; j < jvms.size(); j++) {
+                matrix[j][i] = matrix[i][j].reverse();
+            }
+        }
+
+        return new ComparisonMatrix(benchmark, type, jvms, matrix);
+    }
+
+    /**
+     * Compares two {@link Results} without correcting for multiple comparisons.
+     *
+     * @param a The data used as A
+     * @param b The data used as B
+     * @return The comparison
+     */
+    public Comparison compare(Results a, Results b) {
+        var sortedA = a.toArray();
+        var sortedB = b.toArray();
+        Arrays.sort(sortedA);
+        Arrays.sort(sortedB);
+
+        var comparison = compare(a, sortedA, b, sortedB);
+        comparison.adjust(comparison.getWelchP(), comparison.getMannWhitneyP());
+        return comparison;
+    }
+
+    private Comparison compare(Results a, double[] sortedA, Results b, double[] sortedB) {
+        double sizeA = a.getSize();
+        double sizeB = b.getSize();
+        var meanA = a.getMean();
+        var meanB = b.getMean();
+        var varianceA = sampleVariance(a);
+        var varianceB = sampleVariance(b);
+
+        // Welch's t-test with the Welch-Satterthwaite degrees of freedom
+        var squaredErrorA = varianceA / sizeA;
+        var squaredErrorB = varianceB / sizeB;
+        var standardError = Math.sqrt(squaredErrorA + squaredErrorB);
+        double t;
+        double degreesOfFreedom;
+        double welchP;
+
+        if(standardError > 0) {
+            t = (meanA - meanB) / standardError;
+            degreesOfFreedom = Math.pow(squaredErrorA + squaredErrorB, 2)
+                    / (squaredErrorA * squaredErrorA / (sizeA - 1) + squaredErrorB * squaredErrorB / (sizeB - 1));
+            welchP = Distributions.studentTTwoSided(t, degreesOfFreedom);
+        } else {
+            t = meanA == meanB ? 0 : Math.copySign(Double.POSITIVE_INFINITY, meanA - meanB);
+            degreesOfFreedom = sizeA + sizeB - 2;
+            welchP = meanA == meanB ? 1 : 0;
+        }
+
+        // Mann-Whitney U test using the normal approximation with tie and continuity correction
+        var u = 0.0;
+        var tieSum = 0.0;
+        var i = 0;
+        var j = 0;
+        var rank = 1;
+
+        while(i < sortedA.length || j < sortedB.length) {
+            var value = j == sortedB.length || (i < sortedA.length && sortedA[i] <= sortedB[j]) ? sortedA[i] : sortedB[j];
+            var tiesA = 0;
+            var tiesB = 0;
+            while(i < sortedA.length && sortedA[i] == value) {
+                i++;
+                tiesA++;
+            }
+            while(j < sortedB.length && sortedB[j] == value) {
+                j++;
+                tiesB++;
+            }
+
+            var ties = tiesA + tiesB;
+            u += tiesA * (rank + (ties - 1) / 2.0);
+            tieSum += (double) ties * ties * ties - ties;
+            rank += ties;
+        }
+
+        var size = sizeA + sizeB;
+        u -= sizeA * (sizeA + 1) / 2;
+        var expectedU = sizeA * sizeB / 2;
+        var deviationU = Math.sqrt(sizeA * sizeB / 12 * (size + 1 - tieSum / (size * (size - 1))));
+        double mannWhitneyP;
+
+        if(deviationU > 0) {
+            var z = Math.max(0, Math.abs(u - expectedU) - 0.5) / deviationU;
+            mannWhitneyP = Distributions.normalTwoSided(z);
+        } else {
+            mannWhitneyP = 1;
+        }
+
+        // Effect sizes
+        var pooledDeviation = Math.sqrt(((sizeA - 1) * varianceA + (sizeB - 1) * varianceB) / (size - 2));
+        var hedgesG = pooledDeviation > 0
+                ? (meanA - meanB) / pooledDeviation * (1 - 3 / (4 * size - 9))
+                : 0;
+        var cliffsDelta = 2 * u / (sizeA * sizeB) - 1;
+
+        // Speedup with an interval from the delta method on the logarithm of the ratio
+        var speedup = meanB / meanA;
+        var logError = Math.sqrt(squaredErrorA / (meanA * meanA) + squaredErrorB / (meanB * meanB));
+        var quantile = Distributions.studentTQuantile(1 - (1 - confidenceLevel.getLevel()) / 2, degreesOfFreedom);
+        var interval = new ConfidenceInterval(confidenceLevel,
+                                              speedup,
+                                              speedup * Math.exp(-quantile * logError),
+                                              speedup * Math.exp(quantile * logError));
+
+        return new Comparison(a,
+                              b,
+                              confidenceLevel,
+                              t,
+                              degreesOfFreedom,
+                              welchP,
+                              u,
+                              mannWhitneyP,
+                              hedgesG,
+                              cliffsDelta,
+                              interval);
+    }
+
+    private static double sampleVariance(Results results) {
+        var size = results.getSize();
+        var deviation = results.getStandardDeviation();
+        return deviation * deviation * size / (size - 1);
+    }
+
+    /**
+     * Corrects the p-values of a family of comparisons for multiple comparisons and updates their verdicts.
+     *
+     * @param comparisons The comparisons
+     */
+    static void adjust(List<Comparison> comparisons) {
+        var welch = holm(comparisons.stream().mapToDouble(Comparison::getWelchP).toArray());
+        var mannWhitney = holm(comparisons.stream().mapToDouble(Comparison::getMannWhitneyP).toArray());
+        for(int i = 0; i < comparisons.size(); i++) {
+            comparisons.get(i).adjust(welch[i], mannWhitney[i]);
+        }
+    }
+
+    /**
+     * Applies the Holm-Bonferroni correction to a family of p-values. A NaN p-value is treated as 1.
+     *
+     * @param pValues The p-values
+     * @return The adjusted p-values, in the same order
+     */
+    static double[] holm(double[] pValues) {
+        var order = new Integer[pValues.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(pValues[x], pValues[y]));
+
+        var adjusted = new double[pValues.length];
+        var previous = 0.0;
+        for(int i = 0; i < order.length; i++) {
+            var p = Double.isNaN(pValues[order[i]]) ? 1 : pValues[order[i]];
+            previous = Math.max(previous, Math.min(1, (order.length - i) * p));
+            adjusted[order[i]] = previous;
+        }
+
+        return adjusted;
+    }
+
+    static String toToml(double value) {
+        if(Double.isNaN(value)) {
+            return "nan";
+        }
+        if(Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Saves the matrices as TOML, one table per {@link Benchmark}, {@link MeasurementType} and ordered pair of
+     * {@link JVM}s, e.g. [AVRORA.STEADY_STATE.OPENJDK_8.GRAALVM_CE_8].
+     *
+     * @param matrices The matrices to save
+     * @param file     The file to write
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveAsToml(List<ComparisonMatrix> matrices, File file) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            for(ComparisonMatrix matrix : matrices) {
+                for(JVM a : matrix.getJvms()) {
+                    for(JVM b : matrix.getJvms()) {
+                        var comparison = matrix.getComparison(a, b);
+                        if(comparison == null) {
+                            continue;
+                        }
+
+                        writer.write("[" + matrix.getBenchmark() + "." + matrix.getType() + "." + a + "." + b + "]\n");
+                        writer.write("verdict = \"" + comparison.getVerdict() + "\"\n");
+                        writer.write("verdict_value = " + comparison.getVerdict().getValue() + "\n");
+                        writer.write("confidence_level = \"" + confidenceLevel.getName() + "\"\n");
+                        writer.write("welch_t = " + toToml(comparison.getWelchT()) + "\n");
+                        writer.write("welch_df = " + toToml(comparison.getWelchDegreesOfFreedom()) + "\n");
+                        writer.write("welch_p = " + toToml(comparison.getWelchP()) + "\n");
+                        writer.write("welch_p_adjusted = " + toToml(comparison.getWelchPAdjusted()) + "\n");
+                        writer.write("mann_whitney_u = " + toToml(comparison.getMannWhitneyU()) + "\n");
+                        writer.write("mann_whitney_p = " + toToml(comparison.getMannWhitneyP()) + "\n");
+                        writer.write("mann_whitney_p_adjusted = " + toToml(comparison.getMannWhitneyPAdjusted()) + "\n");
+                        writer.write("hedges_g = " + toToml(comparison.getHedgesG()) + "\n");
+                        writer.write("cliffs_delta = " + toToml(comparison.getCliffsDelta()) + "\n");
+                        writer.write("speedup = " + toToml(comparison.getSpeedup().getEstimate()) + "\n");
+                        writer.write("speedup_lower = " + toToml(comparison.getSpeedup().getLower()) + "\n");
+                        writer.write("speedup_upper = " + toToml(comparison.getSpeedup().getUpper()) + "\n");
+                        writer.write("\n");
+                    }
+                }
+            }
+        }
+    }
+}
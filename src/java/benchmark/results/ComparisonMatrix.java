@@ -0,0 +1,59 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.util.List;
+
+/**
+ * The pairwise {@link Comparison}s of every {@link JVM} with data for one {@link Benchmark} and
+ * {@link MeasurementType}, created by a {@link ComparisonEngine}.
+ */
+public class ComparisonMatrix {
+    private final Benchmark benchmark;
+    private final MeasurementType type;
+    private final List<JVM> jvms;
+    private final Comparison[][] comparisons;
+
+    ComparisonMatrix(Benchmark benchmark, MeasurementType type, List<JVM> jvms, Comparison[][] comparisons) {
+        this.benchmark = benchmark;
+        this.type = type;
+        this.jvms = List.copyOf(jvms);
+        this.comparisons = comparisons;
+    }
+
+    public Benchmark getBenchmark() {
+        return benchmark;
+    }
+
+    public MeasurementType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the JVMs forming the rows and columns of the matrix.
+     *
+     * @return The JVMs, in the order of {@link JVM#values()}
+     */
+    public List<JVM> getJvms() {
+        return jvms;
+    }
+
+    /**
+     * Gets the comparison of two JVMs.
+     *
+     * @param a The JVM used as A
+     * @param b The JVM used as B
+     * @return The comparison, or null if a and b are the same or either is missing from the matrix
+     */
+    public Comparison getComparison(JVM a, JVM b) {
+        var row = jvms.indexOf(a);
+        var column = jvms.indexOf(b);
+        if(row < 0 || column < 0) {
+            return null;
+        }
+
+        return comparisons[row][column];
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark.results;
+
+import benchmark.ConfidenceLevel;
+
+/**
+ * A point estimate together with a confidence interval around it.
+ */
+public class ConfidenceInterval {
+    private final ConfidenceLevel confidenceLevel;
+    private final double estimate;
+    private final double lower;
+    private final double upper;
+
+    /**
+     * Creates a new {@link ConfidenceInterval}.
+     *
+     * @param confidenceLevel The confidence level of the interval
+     * @param estimate        The point estimate
+     * @param lower           The lower bound
+     * @param upper           The upper bound
+     */
+    public ConfidenceInterval(ConfidenceLevel confidenceLevel, double estimate, double lower, double upper) {
+        this.confidenceLevel = confidenceLevel;
+        this.estimate = estimate;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    public ConfidenceLevel getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public double getEstimate() {
+        return estimate;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * Checks whether this interval shares any value with another.
+     *
+     * @param other The interval to compare against
+     * @return True if the intervals overlap
+     */
+    public boolean isOverlapping(ConfidenceInterval other) {
+        return lower <= other.upper && other.lower <= upper;
+    }
+
+    @Override
+    public String toString() {
+        return estimate + " [" + lower + ", " + upper + "] at " + confidenceLevel.getName();
+    }
+}
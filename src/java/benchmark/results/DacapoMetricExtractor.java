@@ -0,0 +1,74 @@
+package benchmark.results;
+
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Extracts the metrics printed by every DaCapo benchmark, i.e. the number of threads driving the workload from
+ * 'Using scaled threading model. 4 processors detected, 4 threads used to drive the workload' or 'Using a single
+ * thread to drive the workload.'. The thread count is printed once per invocation and reported for each of its
+ * iterations.
+ * <p>
+ * Lines are parsed by hand, like the scanner does, rather than with regular expressions, whose compilation by the
+ * JIT outweighs the few lines matched.
+ */
+public class DacapoMetricExtractor implements MetricExtractor {
+    public static final Metric THREADS = new Metric("threads", "Driver threads", "threads");
+
+    private static final String THREADING_PREFIX = "Using ";
+    private static final String SINGLE_THREAD = "Using a single thread to drive the workload";
+    private static final String THREADS_SUFFIX = " threads used to drive the workload";
+
+    private double threads = Double.NaN;
+
+    @Override
+    public String getFirstCharacters() {
+        return THREADING_PREFIX.substring(0, 1);
+    }
+
+    @Override
+    public void accept(String line) {
+        if(line.startsWith(SINGLE_THREAD)) {
+            threads = 1;
+        } else if(line.startsWith(THREADING_PREFIX)) {
+            var end = line.indexOf(THREADS_SUFFIX);
+            var count = end < 0 ? -1 : parseCount(line, line.lastIndexOf(' ', end - 1) + 1, end);
+            if(count >= 0) {
+                threads = count;
+            }
+        }
+    }
+
+    /**
+     * Parses a non-negative decimal number.
+     *
+     * @return The number, or -1 if the range is empty or holds anything but digits
+     */
+    protected static long parseCount(String line, int start, int end) {
+        if(start >= end) {
+            return -1;
+        }
+
+        long value = 0;
+        for(int i = start; i < end; i++) {
+            var c = line.charAt(i);
+            if(c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    @Override
+    public void completeIteration(double millis, ObjDoubleConsumer<Metric> metrics) {
+        if(!Double.isNaN(threads)) {
+            metrics.accept(THREADS, threads);
+        }
+    }
+
+    @Override
+    public void reset() {
+        threads = Double.NaN;
+    }
+}
@@ -0,0 +1,194 @@
+package benchmark.results;
+
+/**
+ * Cumulative distribution functions needed by the statistical tests in this package.
+ */
+final class Distributions {
+    private static final double[] LANCZOS = {
+            76.18009172947146,
+            -86.50532032941677,
+            24.01409824083091,
+            -1.231739572450155,
+            0.1208650973866179e-2,
+            -0.5395239384953e-5
+    };
+
+    private Distributions() {
+    }
+
+    /**
+     * Gets the cumulative probability of the standard normal distribution.
+     *
+     * @param z The value
+     * @return P(Z &lt;= z)
+     */
+    static double normalCdf(double z) {
+        return 0.5 * erfc(-z / Math.sqrt(2));
+    }
+
+    /**
+     * Gets the cumulative probability of Student's t distribution.
+     *
+     * @param t                The value
+     * @param degreesOfFreedom The degrees of freedom, which need not be an integer
+     * @return P(T &lt;= t)
+     */
+    static double studentTCdf(double t, double degreesOfFreedom) {
+        if(Double.isInfinite(degreesOfFreedom)) {
+            return normalCdf(t);
+        }
+
+        var tail = 0.5 * regularizedIncompleteBeta(degreesOfFreedom / (degreesOfFreedom + t * t),
+                                                   degreesOfFreedom / 2,
+                                                   0.5);
+        return t > 0 ? 1 - tail : tail;
+    }
+
+    /**
+     * Gets the value of Student's t distribution below which the specified probability lies.
+     *
+     * @param probability      The cumulative probability, between 0.5 and 1
+     * @param degreesOfFreedom The degrees of freedom
+     * @return The quantile
+     */
+    static double studentTQuantile(double probability, double degreesOfFreedom) {
+        double low = 0;
+        double high = 1;
+        while(studentTCdf(high, degreesOfFreedom) < probability && high < 1e9) {
+            high *= 2;
+        }
+
+        for(int i = 0; i < 100; i++) {
+            var middle = (low + high) / 2;
+            if(studentTCdf(middle, degreesOfFreedom) < probability) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+
+        return (low + high) / 2;
+    }
+
+    /**
+     * Gets the two-sided p-value of a value of Student's t distribution.
+     *
+     * @param t                The value
+     * @param degreesOfFreedom The degrees of freedom
+     * @return The p-value
+     */
+    static double studentTTwoSided(double t, double degreesOfFreedom) {
+        return Math.min(1, 2 * studentTCdf(-Math.abs(t), degreesOfFreedom));
+    }
+
+    /**
+     * Gets the upper tail probability of the F distribution, i.e. the p-value of an F-test.
+     *
+     * @param f                  The value
+     * @param numeratorDegrees   The degrees of freedom of the numerator
+     * @param denominatorDegrees The degrees of freedom of the denominator
+     * @return P(F &gt;= f)
+     */
+    static double fUpperTail(double f, double numeratorDegrees, double denominatorDegrees) {
+        if(!(f > 0)) {
+            return 1;
+        }
+
+        return regularizedIncompleteBeta(denominatorDegrees / (denominatorDegrees + numeratorDegrees * f),
+                                         denominatorDegrees / 2,
+                                         numeratorDegrees / 2);
+    }
+
+    /**
+     * Gets the two-sided p-value of a value of the standard normal distribution.
+     *
+     * @param z The value
+     * @return The p-value
+     */
+    static double normalTwoSided(double z) {
+        return Math.min(1, 2 * normalCdf(-Math.abs(z)));
+    }
+
+    private static double erfc(double x) {
+        // Chebyshev approximation with a fractional error below 1.2e-7
+        var z = Math.abs(x);
+        var t = 1 / (1 + 0.5 * z);
+        var result = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? result : 2 - result;
+    }
+
+    private static double logGamma(double x) {
+        var y = x;
+        var tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        var series = 1.000000000190015;
+        for(double coefficient : LANCZOS) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    private static double regularizedIncompleteBeta(double x, double a, double b) {
+        if(x <= 0) {
+            return 0;
+        }
+        if(x >= 1) {
+            return 1;
+        }
+
+        var front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+
+        if(x < (a + 1) / (a + b + 2)) {
+            return front * betaContinuedFraction(x, a, b) / a;
+        }
+
+        return 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    private static double betaContinuedFraction(double x, double a, double b) {
+        final var tiny = 1e-300;
+        var c = 1.0;
+        var d = 1 - (a + b) * x / (a + 1);
+        if(Math.abs(d) < tiny) {
+            d = tiny;
+        }
+        d = 1 / d;
+        var h = d;
+
+        for(int m = 1; m <= 300; m++) {
+            var m2 = 2 * m;
+            var aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + aa * d;
+            if(Math.abs(d) < tiny) {
+                d = tiny;
+            }
+            c = 1 + aa / c;
+            if(Math.abs(c) < tiny) {
+                c = tiny;
+            }
+            d = 1 / d;
+            h *= d * c;
+
+            aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + aa * d;
+            if(Math.abs(d) < tiny) {
+                d = tiny;
+            }
+            c = 1 + aa / c;
+            if(Math.abs(c) < tiny) {
+                c = tiny;
+            }
+            d = 1 / d;
+            var delta = d * c;
+            h *= delta;
+
+            if(Math.abs(delta - 1) < 1e-12) {
+                break;
+            }
+        }
+
+        return h;
+    }
+}
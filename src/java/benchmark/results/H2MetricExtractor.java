@@ -0,0 +1,104 @@
+package benchmark.results;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Extracts the throughput of the TPC-C like workload of h2 from the summary printed after each iteration:
+ * <pre>
+ * Completed 4000 transactions
+ *     Stock level .............   155 ( 3.9%)
+ *     New order ...............  1774 (44.4%)
+ * </pre>
+ * Both the total and every transaction type are reported in transactions per second of the iteration time, e.g.
+ * 'transactions_per_second' and 'new_order_per_second', next to the metrics of a {@link DacapoMetricExtractor}.
+ */
+public class H2MetricExtractor extends DacapoMetricExtractor {
+    public static final Metric TRANSACTIONS = new Metric("transactions_per_second", "Transactions per second", "1/s");
+
+    private static final String COMPLETED_PREFIX = "Completed ";
+    private static final String COMPLETED_SUFFIX = " transactions";
+    private static final String TYPE_SEPARATOR = " ..";
+    private static final Map<String, Metric> TYPE_METRICS = new ConcurrentHashMap<>();
+
+    private long transactions = -1;
+    private final List<Metric> types = new ArrayList<>();
+    private final List<Long> counts = new ArrayList<>();
+
+    /**
+     * The transaction types are indented with a tab.
+     */
+    @Override
+    public String getFirstCharacters() {
+        return super.getFirstCharacters() + COMPLETED_PREFIX.charAt(0) + "\t ";
+    }
+
+    @Override
+    public void accept(String line) {
+        if(line.startsWith(COMPLETED_PREFIX)) {
+            var end = line.indexOf(COMPLETED_SUFFIX);
+            transactions = end < 0 ? -1 : parseCount(line, COMPLETED_PREFIX.length(), end);
+            types.clear();
+            counts.clear();
+        } else if(transactions >= 0) {
+            acceptType(line);
+        } else {
+            super.accept(line);
+        }
+    }
+
+    /**
+     * Reads 'New order ...............  1774 (44.4%)'.
+     */
+    private void acceptType(String line) {
+        var separator = line.indexOf(TYPE_SEPARATOR);
+        if(separator <= 0) {
+            return;
+        }
+
+        var start = separator + 1;
+        while(start < line.length() && (line.charAt(start) == '.' || line.charAt(start) == ' ')) {
+            start++;
+        }
+        var end = line.indexOf(' ', start);
+        var count = parseCount(line, start, end < 0 ? line.length() : end);
+        if(count >= 0) {
+            types.add(TYPE_METRICS.computeIfAbsent(line.substring(0, separator), H2MetricExtractor::createTypeMetric));
+            counts.add(count);
+        }
+    }
+
+    private static Metric createTypeMetric(String type) {
+        var id = type.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_") + "_per_second";
+        return new Metric(id, type + " per second", "1/s");
+    }
+
+    @Override
+    public void completeIteration(double millis, ObjDoubleConsumer<Metric> metrics) {
+        super.completeIteration(millis, metrics);
+
+        if(transactions >= 0 && millis > 0) {
+            var seconds = millis / 1000;
+            metrics.accept(TRANSACTIONS, transactions / seconds);
+            for(int i = 0; i < types.size(); i++) {
+                metrics.accept(types.get(i), counts.get(i) / seconds);
+            }
+        }
+
+        transactions = -1;
+        types.clear();
+        counts.clear();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        transactions = -1;
+        types.clear();
+        counts.clear();
+    }
+}
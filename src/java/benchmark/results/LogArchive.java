@@ -0,0 +1,546 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.Registry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compressed archive of the raw files of a run, in the format accepted by {@link ResultsParser}, which can be
+ * parsed without being extracted.
+ * <p>
+ * Every raw file, a log, is split into blocks at its '#START ITERATION' lines, so that each block holds one
+ * invocation. The lines preceding the first invocation, i.e. the tags of the log, form a block of invocation 0.
+ * Each block is deflated on its own, so any invocation can be read by inflating it and the tags of its log only.
+ * As most of a block is the banner printed by DaCapo, blocks are deflated with a preset dictionary made of the
+ * start of the first invocation of every benchmark, which compresses them about as well as whole files.
+ * <p>
+ * The file starts with a header holding the offset of the index and the dictionary, followed by the blocks and
+ * the index. The index holds the name, {@link Benchmark} and {@link JVM} of every log, and the invocation, offset
+ * and sizes of its blocks. Numbers are stored in little endian order.
+ */
+public class LogArchive {
+    private static final int MAGIC = 0x414c4344; // "DCLA"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final byte[] START_TAG = "#START ITERATION".getBytes(StandardCharsets.US_ASCII);
+    private static final String JVM_TAG = "#JVM";
+    private static final String BENCHMARK_TAG = "#BENCHMARK";
+
+    /**
+     * A single invocation of a log, or the tags of a log if its invocation is 0.
+     */
+    public static class Entry {
+        private final int log;
+        private final Benchmark benchmark;
+        private final JVM jvm;
+        private final int invocation;
+        private final long offset;
+        private final int compressedSize;
+        private final int size;
+
+        private Entry(int log,
+                      Benchmark benchmark,
+                      JVM jvm,
+                      int invocation,
+                      long offset,
+                      int compressedSize,
+                      int size) {
+            this.log = log;
+            this.benchmark = benchmark;
+            this.jvm = jvm;
+            this.invocation = invocation;
+            this.offset = offset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        int getLog() {
+            return log;
+        }
+
+        public Benchmark getBenchmark() {
+            return benchmark;
+        }
+
+        public JVM getJvm() {
+            return jvm;
+        }
+
+        public int getInvocation() {
+            return invocation;
+        }
+
+        /**
+         * Gets the size of the block once inflated.
+         *
+         * @return The size in bytes
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the size of the block in the archive.
+         *
+         * @return The size in bytes
+         */
+        public int getCompressedSize() {
+            return compressedSize;
+        }
+
+        @Override
+        public String toString() {
+            return benchmark.getName() + ", " + jvm.getName() + ", invocation " + invocation;
+        }
+    }
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final byte[] dictionary;
+    private final List<String> names;
+    private final List<Entry> headers;
+    private final List<Entry> entries;
+
+    private LogArchive(File file,
+                       ByteBuffer buffer,
+                       byte[] dictionary,
+                       List<String> names,
+                       List<Entry> headers,
+                       List<Entry> entries) {
+        this.file = file;
+        this.buffer = buffer;
+        this.dictionary = dictionary;
+        this.names = names;
+        this.headers = headers;
+        this.entries = entries;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of logs, i.e. raw files, in this archive.
+     *
+     * @return The number of logs
+     */
+    public int getLogCount() {
+        return names.size();
+    }
+
+    /**
+     * Gets every invocation of every log, in the order they were written.
+     *
+     * @return The entries, without the tags of the logs
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Finds an invocation.
+     *
+     * @param benchmark  The benchmark
+     * @param jvm        The JVM
+     * @param invocation The invocation, as numbered by its '#START ITERATION' line
+     * @return The first matching entry or null if there is none
+     */
+    public Entry find(Benchmark benchmark, JVM jvm, int invocation) {
+        for(Entry entry : entries) {
+            if(entry.benchmark == benchmark && entry.jvm == jvm && entry.invocation == invocation) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes an invocation as it was found in its raw file, preceded by the tags of its log, so that the output is a
+     * valid raw file on its own.
+     *
+     * @param entry The invocation
+     * @param out   The stream to write to, in chunks as they are inflated
+     * @throws IOException If the block is corrupt or the stream can not be written
+     */
+    public void inflate(Entry entry, OutputStream out) throws IOException {
+        inflate(entry.log, List.of(entry), out);
+    }
+
+    /**
+     * Writes the tags of a log followed by some of its invocations.
+     *
+     * @param log         The log, see {@link Entry#getLog()}
+     * @param invocations The invocations, all of the log
+     * @param out         The stream to write to, in chunks as they are inflated
+     */
+    void inflate(int log, List<Entry> invocations, OutputStream out) throws IOException {
+        var inflater = new Inflater();
+        try {
+            inflate(headers.get(log), inflater, out);
+            for(Entry entry : invocations) {
+                inflate(entry, inflater, out);
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    String getSource(int log) {
+        return file.getAbsolutePath() + ":" + names.get(log);
+    }
+
+    private void inflate(Entry entry, Inflater inflater, OutputStream out) throws IOException {
+        var chunk = new byte[Math.min(CHUNK_SIZE, Math.max(entry.size, 1))];
+        var remaining = entry.size;
+        inflater.reset();
+        inflater.setInput(slice(buffer, entry.offset, entry.compressedSize));
+
+        try {
+            while(remaining > 0) {
+                var length = inflater.inflate(chunk);
+                if(length == 0) {
+                    if(inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                        continue;
+                    }
+                    throw new IOException("Truncated block (" + entry + ") in " + file.getAbsolutePath());
+                }
+
+                out.write(chunk, 0, Math.min(length, remaining));
+                remaining -= length;
+            }
+        } catch(DataFormatException e) {
+            throw new IOException("Corrupt block (" + entry + ") in " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Archives every file of a raw folder. The files are read through memory mappings and deflated one invocation
+     * at a time.
+     *
+     * @param folder The raw folder, holding files in the format accepted by {@link ResultsParser}
+     * @param file   The archive to write, any existing file is replaced
+     * @return The number of bytes archived, before compression
+     * @throws IOException If a file can not be read, is not tagged with a known JVM and benchmark, or the archive
+     *                     can not be written
+     */
+    public static long write(File folder, File file) throws IOException {
+        var files = folder.listFiles(File::isFile);
+        if(files == null) {
+            throw new IOException("Provided folder is not a directory");
+        }
+        Arrays.sort(files);
+
+        var logs = new ArrayList<ByteBuffer>();
+        for(File log : files) {
+            try(var channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+                logs.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        var blocks = new ArrayList<List<ByteBuffer>>();
+        for(ByteBuffer log : logs) {
+            blocks.add(split(log));
+        }
+
+        var dictionary = createDictionary(blocks);
+        var index = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        var output = ByteBuffer.allocate(CHUNK_SIZE);
+        long bytes = 0;
+
+        try(var channel = FileChannel.open(file.toPath(),
+                                           StandardOpenOption.CREATE,
+                                           StandardOpenOption.TRUNCATE_EXISTING,
+                                           StandardOpenOption.WRITE)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE + 4 + dictionary.length).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(0).putInt(dictionary.length).put(dictionary).flip();
+            writeFully(channel, header);
+            long offset = header.limit();
+
+            index.putInt(files.length);
+            for(int i = 0; i < files.length; i++) {
+                var log = blocks.get(i);
+                var tags = StandardCharsets.UTF_8.decode(log.get(0).duplicate()).toString();
+                var benchmark = Benchmark.getBenchmark(getTag(tags, BENCHMARK_TAG));
+                var jvm = JVM.getJVM(getTag(tags, JVM_TAG));
+                if(benchmark == null || jvm == null) {
+                    throw new IOException("No known '#JVM' and '#BENCHMARK' found in " + files[i].getAbsolutePath()
+                                          + ", add them to the registry");
+                }
+
+                index = putName(index, files[i].getName());
+                index = putName(index, benchmark.name());
+                index = putName(index, jvm.name());
+                index = ensureRemaining(index, 4 + log.size() * 20);
+                index.putInt(log.size());
+
+                for(int j = 0; j < log.size(); j++) {
+                    var block = log.get(j);
+                    var size = block.remaining();
+                    var invocation = j == 0 ? 0 : (int) parseNumber(block, START_TAG.length);
+                    deflater.reset();
+                    if(dictionary.length > 0) {
+                        deflater.setDictionary(dictionary);
+                    }
+                    deflater.setInput(block);
+                    deflater.finish();
+
+                    long compressedSize = 0;
+                    while(!deflater.finished()) {
+                        output.clear();
+                        deflater.deflate(output);
+                        output.flip();
+                        compressedSize += output.remaining();
+                        writeFully(channel, output);
+                    }
+
+                    index.putInt(invocation).putLong(offset).putInt(Math.toIntExact(compressedSize)).putInt(size);
+                    offset += compressedSize;
+                    bytes += size;
+                }
+            }
+
+            index.flip();
+            writeFully(channel, index);
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, offset), 8);
+        } finally {
+            deflater.end();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Splits a log before every line starting with '#START ITERATION'. The first block holds the lines before the
+     * first invocation, and may be empty.
+     */
+    private static List<ByteBuffer> split(ByteBuffer log) {
+        var blocks = new ArrayList<ByteBuffer>();
+        var start = 0;
+        for(int i = 0; i < log.limit(); i++) {
+            if((i == 0 || log.get(i - 1) == '\n') && startsWith(log, i, START_TAG)) {
+                blocks.add(slice(log, start, i - start));
+                start = i;
+            }
+        }
+        blocks.add(slice(log, start, log.limit() - start));
+
+        return blocks;
+    }
+
+    /**
+     * Takes an equal share of the dictionary from the start of the first invocation of every benchmark, which is
+     * mostly the banner printed by DaCapo.
+     */
+    private static byte[] createDictionary(List<List<ByteBuffer>> blocks) {
+        var firsts = new LinkedHashMap<String, ByteBuffer>();
+        for(List<ByteBuffer> log : blocks) {
+            if(log.size() > 1) {
+                var tags = StandardCharsets.UTF_8.decode(log.get(0).duplicate()).toString();
+                firsts.putIfAbsent(getTag(tags, BENCHMARK_TAG), log.get(1));
+            }
+        }
+
+        if(firsts.isEmpty()) {
+            return new byte[0];
+        }
+
+        var share = DICTIONARY_SIZE / firsts.size();
+        var dictionary = ByteBuffer.allocate(DICTIONARY_SIZE);
+        for(ByteBuffer first : firsts.values()) {
+            var head = first.duplicate();
+            head.limit(Math.min(head.limit(), head.position() + share));
+            dictionary.put(head);
+        }
+
+        return Arrays.copyOf(dictionary.array(), dictionary.position());
+    }
+
+    private static String getTag(String tags, String tag) {
+        for(String line : tags.split("\n")) {
+            if(line.startsWith(tag + " ")) {
+                return line.substring(tag.length()).strip();
+            }
+        }
+
+        return "";
+    }
+
+    /**
+     * Opens an archive by mapping it into memory and reading its index.
+     *
+     * @param file The archive
+     * @return The archive
+     * @throws IOException If the file can not be read or is not a valid archive
+     */
+    public static LogArchive open(File file) throws IOException {
+        ByteBuffer buffer;
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            if(buffer.getInt() != MAGIC) {
+                throw new IOException(file.getAbsolutePath() + " is not a log archive");
+            }
+
+            var version = buffer.getInt();
+            if(version != VERSION) {
+                throw new IOException("Unsupported archive version " + version + " in " + file.getAbsolutePath());
+            }
+
+            var indexOffset = buffer.getLong();
+            var dictionary = new byte[buffer.getInt()];
+            buffer.get(dictionary);
+            buffer.position(Math.toIntExact(indexOffset));
+
+            var logs = buffer.getInt();
+            var names = new ArrayList<String>(logs);
+            var headers = new ArrayList<Entry>(logs);
+            var entries = new ArrayList<Entry>();
+
+            for(int i = 0; i < logs; i++) {
+                names.add(readName(buffer));
+                var benchmarkName = readName(buffer);
+                var jvmName = readName(buffer);
+                var benchmark = Registry.get().findBenchmarkById(benchmarkName);
+                var jvm = Registry.get().findJvmById(jvmName);
+                if(benchmark == null || jvm == null) {
+                    throw new IOException("'" + benchmarkName + "' or '" + jvmName + "' specified in "
+                                          + file.getAbsolutePath() + " not defined in the registry");
+                }
+
+                var blocks = buffer.getInt();
+                for(int j = 0; j < blocks; j++) {
+                    var entry = new Entry(i,
+                                          benchmark,
+                                          jvm,
+                                          buffer.getInt(),
+                                          buffer.getLong(),
+                                          buffer.getInt(),
+                                          buffer.getInt());
+                    if(j == 0) {
+                        headers.add(entry);
+                    } else {
+                        entries.add(entry);
+                    }
+                }
+            }
+
+            return new LogArchive(file,
+                                  buffer,
+                                  dictionary,
+                                  names,
+                                  headers,
+                                  Collections.unmodifiableList(entries));
+        } catch(RuntimeException e) {
+            throw new IOException("Corrupt archive " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Checks if a file is a log archive, without reading more than its first bytes.
+     *
+     * @param file The file
+     * @return True if the file starts like an archive
+     */
+    public static boolean isArchive(File file) {
+        if(!file.isFile()) {
+            return false;
+        }
+
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(magic) == 4 && magic.getInt(0) == MAGIC;
+        } catch(IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int start, byte[] prefix) {
+        if(buffer.limit() - start < prefix.length) {
+            return false;
+        }
+
+        for(int i = 0; i < prefix.length; i++) {
+            if(buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long parseNumber(ByteBuffer buffer, int start) {
+        var position = start;
+        while(position < buffer.limit() && buffer.get(position) == ' ') {
+            position++;
+        }
+
+        long value = 0;
+        while(position < buffer.limit() && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+            value = value * 10 + (buffer.get(position) - '0');
+            position++;
+        }
+
+        return value;
+    }
+
+    private static ByteBuffer putName(ByteBuffer buffer, String name) {
+        var bytes = name.getBytes(StandardCharsets.UTF_8);
+        var result = ensureRemaining(buffer, 2 + bytes.length);
+        result.putShort((short) bytes.length).put(bytes);
+        return result;
+    }
+
+    private static ByteBuffer ensureRemaining(ByteBuffer buffer, int remaining) {
+        if(buffer.remaining() >= remaining) {
+            return buffer;
+        }
+
+        var larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + remaining))
+                               .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        return larger.put(buffer);
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, long length) {
+        var slice = buffer.duplicate();
+        slice.limit(Math.toIntExact(offset + length));
+        slice.position(Math.toIntExact(offset));
+        return slice.slice();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Scans output from the DaCapo suite line by line, working directly on the raw bytes.
+ * Iteration times are buffered per invocation (a '#START ITERATION' ... '#END ITERATION' block)
+ * and committed to the {@link ResultsManager} once the invocation ends, which means a scanner
+ * can be fed its input in arbitrarily sized chunks.
+ * <p>
+ * If the input also holds GC log lines, in the format of -verbose:gc or of -Xlog:gc, and '#JIT' and '#RSS' lines
+ * inserted by the orchestrator, GC pause time, allocation rate, heap occupancy after GC, compilation time and
+ * peak resident set size are recorded for every iteration. A GC is attributed to the iteration in progress when
+ * it is logged. Sizes are recorded in megabytes.
+ * <p>
+ * Any other line starting with one of the first characters of the {@link MetricExtractor} of the benchmark, if it has
+ * one, is passed to it, and the {@link Metric}s it reports when an iteration completes are recorded for that
+ * iteration.
+ */
+class LogScanner {
+    private static final byte[] JVM_TAG = ascii("#JVM");
+    private static final byte[] BENCHMARK_TAG = ascii("#BENCHMARK");
+    private static final byte[] START_TAG = ascii("#START ITERATION");
+    private static final byte[] END_TAG = ascii("#END ITERATION");
+    private static final byte[] WARMUP_TAG = ascii("completed warmup ");
+    private static final byte[] PASSED_TAG = ascii("PASSED in ");
+    private static final byte[] JIT_TAG = ascii("#JIT");
+    private static final byte[] RSS_TAG = ascii("#RSS");
+    private static final byte[] GC_ARROW = ascii("->");
+    private static final Pattern GC_PATTERN =
+            Pattern.compile("(\\d+)([KMG])->(\\d+)([KMG])\\(\\d+[KMG]\\),? (\\d+(?:\\.\\d+)?) ?(ms|secs)");
+
+    private final ResultsManager manager;
+    private final String source;
+    private final SteadyStateDetector detector;
+
+    private JVM jvm;
+    private Benchmark benchmark;
+    private Results startupResults;
+    private Results steadyResults;
+    private Results warmupResults;
+    private Results curveResults;
+    private Results gcPauseResults;
+    private Results allocationResults;
+    private Results jitResults;
+    private Results rssResults;
+    private Results heapResults;
+    private MetricExtractor extractor;
+    private final boolean[] extractorFirsts = new boolean[128];
+    private final List<String> extractorLines = new ArrayList<>();
+    private int[] extractorLineEnds = new int[64];
+
+    private int invocation;
+    private double[] iterationTimes = new double[64];
+    private int iterationCount;
+    private double passedTime = Double.NaN;
+
+    private double[] gcPauses = new double[64];
+    private double[] allocations = new double[64];
+    private double[] compilationTimes = missing(64);
+    private double[] peakRss = missing(64);
+    private double[] heapAfterGc = missing(64);
+    private final Map<Metric, double[]> metricValues = new LinkedHashMap<>();
+    private double heapAfterLastGc;
+    private boolean gcSeen;
+    private boolean jitSeen;
+    private boolean rssSeen;
+    private int lastCompleted = -1;
+
+    /**
+     * Creates a new scanner storing its data in the provided {@link ResultsManager}.
+     *
+     * @param manager  The {@link ResultsManager} where results should be stored
+     * @param source   A description of the input, used in error messages
+     * @param detector Decides which iterations of an invocation are recorded as steady state data
+     */
+    LogScanner(ResultsManager manager, String source, SteadyStateDetector detector) {
+        this.manager = manager;
+        this.source = source;
+        this.detector = detector;
+    }
+
+    /**
+     * Scans all complete lines between the position and the limit of the buffer. A trailing line without a
+     * line break is only scanned if the end of the input has been reached, otherwise it is left in the buffer.
+     * The position of the buffer is advanced past the scanned lines.
+     *
+     * @param buffer     The input
+     * @param endOfInput True if no more input will follow the content of the buffer
+     * @return The number of bytes consumed
+     * @throws IOException If the input is tagged with an unknown JVM or benchmark
+     */
+    int scan(ByteBuffer buffer, boolean endOfInput) throws IOException {
+        var start = buffer.position();
+        var limit = buffer.limit();
+        var lineStart = start;
+
+        for(int i = start; i < limit; i++) {
+            if(buffer.get(i) == '\n') {
+                parseLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+
+        if(endOfInput && lineStart < limit) {
+            parseLine(buffer, lineStart, limit);
+            lineStart = limit;
+        }
+
+        buffer.position(lineStart);
+        return lineStart - start;
+    }
+
+    /**
+     * Commits any invocation still in progress. Should be called once all input has been scanned.
+     *
+     * @throws IOException If the input was never tagged with a JVM or a benchmark
+     */
+    void finish() throws IOException {
+        if(jvm == null) {
+            throw new IOException("No value for key '#JVM' found in " + source);
+        }
+
+        if(benchmark == null) {
+            throw new IOException("No value for key '#BENCHMARK' found in " + source);
+        }
+
+        commitInvocation();
+    }
+
+    /**
+     * Gets the steady state {@link Results} the scanned input is recorded into.
+     *
+     * @return The results or null if the input has not yet been tagged with both a JVM and a benchmark
+     */
+    Results getSteadyStateResults() {
+        return steadyResults;
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end) throws IOException {
+        if(end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+
+        if(end == start) {
+            return;
+        }
+
+        var first = buffer.get(start);
+
+        if(first == '#') {
+            if(startsWith(buffer, start, end, START_TAG)) {
+                commitInvocation();
+                invocation = (int) parseNumber(buffer, start + START_TAG.length, end);
+            } else if(startsWith(buffer, start, end, END_TAG)) {
+                commitInvocation();
+            } else if(startsWith(buffer, start, end, JIT_TAG)) {
+                recordCompilationTime(parseNumber(buffer, start + JIT_TAG.length, end));
+            } else if(startsWith(buffer, start, end, RSS_TAG)) {
+                recordRss(parseNumber(buffer, start + RSS_TAG.length, end));
+            } else if(startsWith(buffer, start, end, JVM_TAG)) {
+                var name = getValue(buffer, start + JVM_TAG.length, end);
+                jvm = JVM.getJVM(name);
+                if(jvm == null) {
+                    throw new IOException("JVM '" + name + "' specified in " + source
+                                          + " not defined, add it to the registry");
+                }
+                resolveResults();
+            } else if(startsWith(buffer, start, end, BENCHMARK_TAG)) {
+                var name = getValue(buffer, start + BENCHMARK_TAG.length, end);
+                benchmark = Benchmark.getBenchmark(name);
+                if(benchmark == null) {
+                    throw new IOException("Benchmark '" + name + "' specified in " + source
+                                          + " not defined, add it to the registry");
+                }
+                resolveResults();
+            }
+        } else if(first == '=') {
+            var index = indexOf(buffer, start, end, WARMUP_TAG);
+            if(index >= 0) {
+                var position = index + WARMUP_TAG.length;
+                var iteration = parseNumber(buffer, position, end);
+                position = skipNumber(buffer, position, end);
+                recordIteration((int) iteration, parseNumber(buffer, position, end));
+                markExtractorLines((int) iteration - 1);
+                lastCompleted = (int) iteration - 1;
+                return;
+            }
+
+            index = indexOf(buffer, start, end, PASSED_TAG);
+            if(index >= 0) {
+                passedTime = parseNumber(buffer, index + PASSED_TAG.length, end);
+                markExtractorLines(iterationCount);
+                lastCompleted = iterationCount;
+            }
+        } else if(first == '[' && indexOf(buffer, start, end, GC_ARROW) >= 0) {
+            recordGc(getValue(buffer, start, end));
+        } else if(first >= 0 && extractorFirsts[first]) {
+            extractorLines.add(getValue(buffer, start, end));
+        }
+    }
+
+    private void resolveResults() {
+        if(jvm != null && benchmark != null) {
+            startupResults = manager.getResults(benchmark, jvm, MeasurementType.STARTUP);
+            steadyResults = manager.getResults(benchmark, jvm, MeasurementType.STEADY_STATE);
+            warmupResults = manager.getResults(benchmark, jvm, MeasurementType.WARMUP_ITERATIONS);
+            curveResults = manager.getResults(benchmark, jvm, MeasurementType.WARMUP_CURVE);
+            extractor = MetricExtractors.create(benchmark);
+            Arrays.fill(extractorFirsts, false);
+            if(extractor != null) {
+                extractor.getFirstCharacters().chars().filter(c -> c < 128).forEach(c -> extractorFirsts[c] = true);
+            }
+        }
+    }
+
+    private void recordIteration(int iteration, long millis) {
+        if(iteration < 1) {
+            return;
+        }
+
+        ensureCapacity(iteration + 1);
+
+        if(iteration > iterationCount) {
+            Arrays.fill(iterationTimes, iterationCount, iteration - 1, Double.NaN);
+            iterationCount = iteration;
+        }
+
+        iterationTimes[iteration - 1] = millis;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > iterationTimes.length) {
+            var length = Math.max(capacity, iterationTimes.length * 2);
+            iterationTimes = Arrays.copyOf(iterationTimes, length);
+            gcPauses = Arrays.copyOf(gcPauses, length);
+            allocations = Arrays.copyOf(allocations, length);
+            compilationTimes = growMissing(compilationTimes, length);
+            peakRss = growMissing(peakRss, length);
+            heapAfterGc = growMissing(heapAfterGc, length);
+            extractorLineEnds = Arrays.copyOf(extractorLineEnds, length);
+            metricValues.replaceAll((metric, values) -> growMissing(values, length));
+        }
+    }
+
+    /**
+     * Marks the lines read for the extractor so far as output of a completed iteration. The lines are only passed to
+     * the extractor when the invocation is committed, which keeps the extractors, whose types vary from one input to
+     * the next, out of the compiled scan of every other line.
+     */
+    private void markExtractorLines(int index) {
+        if(extractor == null || index < 0) {
+            return;
+        }
+
+        ensureCapacity(index + 2);
+        extractorLineEnds[index] = extractorLines.size();
+    }
+
+    private void extractMetrics(int count) {
+        if(extractor == null) {
+            return;
+        }
+
+        var line = 0;
+        for(int i = 0; i < count; i++) {
+            if(Double.isNaN(iterationTimes[i])) {
+                continue;
+            }
+
+            for(; line < extractorLineEnds[i]; line++) {
+                extractor.accept(extractorLines.get(line));
+            }
+            var index = i;
+            extractor.completeIteration(iterationTimes[i], (metric, value) -> {
+                metricValues.computeIfAbsent(metric, key -> missing(iterationTimes.length))[index] = value;
+            });
+        }
+    }
+
+    private void recordGc(String line) {
+        var matcher = GC_PATTERN.matcher(line);
+        if(!matcher.find() || !Double.isNaN(passedTime)) {
+            return;
+        }
+
+        var before = toMegabytes(Long.parseLong(matcher.group(1)), matcher.group(2).charAt(0));
+        var after = toMegabytes(Long.parseLong(matcher.group(3)), matcher.group(4).charAt(0));
+        var pause = Double.parseDouble(matcher.group(5));
+        if(matcher.group(6).equals("secs")) {
+            pause *= 1000;
+        }
+
+        // The collection belongs to the iteration in progress, which follows the last completed one
+        var index = iterationCount;
+        ensureCapacity(index + 2);
+        gcPauses[index] += pause;
+        allocations[index] += Math.max(0, before - heapAfterLastGc);
+        heapAfterLastGc = after;
+        heapAfterGc[index] = Double.isNaN(heapAfterGc[index]) ? after : Math.max(heapAfterGc[index], after);
+        gcSeen = true;
+    }
+
+    private void recordCompilationTime(long total) {
+        if(lastCompleted < 0) {
+            return;
+        }
+
+        ensureCapacity(lastCompleted + 2);
+        compilationTimes[lastCompleted] = total;
+        jitSeen = true;
+    }
+
+    private void recordRss(long kilobytes) {
+        if(lastCompleted < 0) {
+            return;
+        }
+
+        ensureCapacity(lastCompleted + 2);
+        peakRss[lastCompleted] = kilobytes / 1024.0;
+        rssSeen = true;
+    }
+
+    private static double toMegabytes(long value, char unit) {
+        switch(unit) {
+            case 'K':
+                return value / 1024.0;
+            case 'G':
+                return value * 1024.0;
+            default:
+                return value;
+        }
+    }
+
+    private void commitInvocation() throws IOException {
+        if(iterationCount == 0 && Double.isNaN(passedTime)) {
+            return;
+        }
+
+        if(startupResults == null) {
+            throw new IOException("Iteration data found before '#JVM' and '#BENCHMARK' in " + source);
+        }
+
+        if(iterationCount > 0 && !Double.isNaN(iterationTimes[0])) {
+            synchronized(startupResults) {
+                startupResults.addData(iterationTimes[0], invocation, 1);
+            }
+        }
+
+        // The timed iteration reported as PASSED follows the warmup iterations and is always steady state
+        var count = iterationCount;
+        if(!Double.isNaN(passedTime)) {
+            iterationTimes[count++] = passedTime;
+        }
+
+        var warmup = Math.max(0, Math.min(detector.detect(iterationTimes, count), count));
+        if(warmup == count && !Double.isNaN(passedTime)) {
+            warmup--;
+        }
+
+        synchronized(steadyResults) {
+            for(int i = warmup; i < count; i++) {
+                if(!Double.isNaN(iterationTimes[i])) {
+                    steadyResults.addData(iterationTimes[i], invocation, i + 1);
+                }
+            }
+        }
+
+        synchronized(warmupResults) {
+            warmupResults.addData(warmup, invocation, 0);
+        }
+
+        synchronized(curveResults) {
+            for(int i = 0; i < count; i++) {
+                if(!Double.isNaN(iterationTimes[i])) {
+                    curveResults.addData(iterationTimes[i], invocation, i + 1);
+                }
+            }
+        }
+
+        // Telemetry results are only created once telemetry is found, so that plain logs produce no empty results
+        if(gcSeen) {
+            if(gcPauseResults == null) {
+                gcPauseResults = manager.getResults(benchmark, jvm, MeasurementType.GC_PAUSE_TIME);
+                allocationResults = manager.getResults(benchmark, jvm, MeasurementType.ALLOCATION_RATE);
+                heapResults = manager.getResults(benchmark, jvm, MeasurementType.HEAP_AFTER_GC);
+            }
+
+            synchronized(gcPauseResults) {
+                for(int i = 0; i < count; i++) {
+                    if(!Double.isNaN(iterationTimes[i])) {
+                        gcPauseResults.addData(gcPauses[i], invocation, i + 1);
+                    }
+                }
+            }
+
+            synchronized(allocationResults) {
+                for(int i = 0; i < count; i++) {
+                    if(!Double.isNaN(iterationTimes[i]) && iterationTimes[i] > 0) {
+                        allocationResults.addData(allocations[i] / (iterationTimes[i] / 1000), invocation, i + 1);
+                    }
+                }
+            }
+
+            addIterations(heapResults, heapAfterGc, count);
+        }
+
+        if(jitSeen) {
+            if(jitResults == null) {
+                jitResults = manager.getResults(benchmark, jvm, MeasurementType.JIT_TIME);
+            }
+
+            synchronized(jitResults) {
+                double previous = 0;
+                for(int i = 0; i < count; i++) {
+                    // Iterations without a '#JIT' line are skipped, and their time is attributed to the next one
+                    if(!Double.isNaN(compilationTimes[i]) && !Double.isNaN(iterationTimes[i])) {
+                        jitResults.addData(compilationTimes[i] - previous, invocation, i + 1);
+                        previous = compilationTimes[i];
+                    }
+                }
+            }
+        }
+
+        if(rssSeen) {
+            if(rssResults == null) {
+                rssResults = manager.getResults(benchmark, jvm, MeasurementType.PEAK_RSS);
+            }
+
+            addIterations(rssResults, peakRss, count);
+        }
+
+        extractMetrics(count);
+        for(Map.Entry<Metric, double[]> entry : metricValues.entrySet()) {
+            addIterations(manager.getMetricResults(benchmark, jvm, entry.getKey()), entry.getValue(), count);
+        }
+
+        iterationCount = 0;
+        passedTime = Double.NaN;
+        resetTelemetry(count);
+    }
+
+    private void addIterations(Results results, double[] values, int count) {
+        synchronized(results) {
+            for(int i = 0; i < count; i++) {
+                if(!Double.isNaN(values[i]) && !Double.isNaN(iterationTimes[i])) {
+                    results.addData(values[i], invocation, i + 1);
+                }
+            }
+        }
+    }
+
+    private void resetTelemetry(int count) {
+        var length = Math.min(count + 1, gcPauses.length);
+        Arrays.fill(gcPauses, 0, length, 0);
+        Arrays.fill(allocations, 0, length, 0);
+        Arrays.fill(compilationTimes, 0, length, Double.NaN);
+        Arrays.fill(peakRss, 0, length, Double.NaN);
+        Arrays.fill(heapAfterGc, 0, length, Double.NaN);
+        for(double[] values : metricValues.values()) {
+            Arrays.fill(values, 0, length, Double.NaN);
+        }
+        if(extractor != null) {
+            extractor.reset();
+        }
+        extractorLines.clear();
+        heapAfterLastGc = 0;
+        gcSeen = false;
+        jitSeen = false;
+        rssSeen = false;
+        lastCompleted = -1;
+    }
+
+    private static double[] missing(int length) {
+        var values = new double[length];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    private static double[] growMissing(double[] values, int length) {
+        var grown = Arrays.copyOf(values, length);
+        Arrays.fill(grown, values.length, length, Double.NaN);
+        return grown;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int start, int end, byte[] tag) {
+        if(end - start < tag.length) {
+            return false;
+        }
+
+        for(int i = 0; i < tag.length; i++) {
+            if(buffer.get(start + i) != tag[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer buffer, int start, int end, byte[] tag) {
+        var last = end - tag.length;
+
+        outer:
+        for(int i = start; i <= last; i++) {
+            for(int j = 0; j < tag.length; j++) {
+                if(buffer.get(i + j) != tag[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+
+        return -1;
+    }
+
+    private static String getValue(ByteBuffer buffer, int start, int end) {
+        var bytes = new byte[end - start];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8).strip();
+    }
+
+    private static long parseNumber(ByteBuffer buffer, int start, int end) {
+        var position = start;
+        while(position < end && !isDigit(buffer.get(position))) {
+            position++;
+        }
+
+        long value = 0;
+        while(position < end && isDigit(buffer.get(position))) {
+            value = value * 10 + (buffer.get(position) - '0');
+            position++;
+        }
+
+        return value;
+    }
+
+    private static int skipNumber(ByteBuffer buffer, int start, int end) {
+        var position = start;
+        while(position < end && !isDigit(buffer.get(position))) {
+            position++;
+        }
+
+        while(position < end && isDigit(buffer.get(position))) {
+            position++;
+        }
+
+        return position;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark.results;
+
+/**
+ * An {@link OutlierDetector} using the modified z-score of Iglewicz and Hoaglin, 0.6745 * (x - median) / MAD where MAD
+ * is the median absolute deviation. Values whose modified z-score exceeds a threshold are outliers. Unlike
+ * {@link TukeyOutlierDetector}, the fences are symmetric around the median.
+ * <p>
+ * If more than half of the values are equal, the MAD is 0 and no values are flagged, since millisecond timings
+ * often repeat and every other value would otherwise be an outlier.
+ */
+public class MadOutlierDetector implements OutlierDetector {
+    private static final double NORMAL_CONSISTENCY = 0.6745;
+
+    private final double threshold;
+
+    /**
+     * Creates a detector using the conventional threshold of 3.5.
+     */
+    public MadOutlierDetector() {
+        this(3.5);
+    }
+
+    /**
+     * Creates a new {@link MadOutlierDetector}.
+     *
+     * @param threshold The highest modified z-score not considered an outlier
+     */
+    public MadOutlierDetector(double threshold) {
+        if(threshold <= 0) {
+            throw new IllegalArgumentException("The threshold must be positive");
+        }
+
+        this.threshold = threshold;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public double getLowerFence(Results results) {
+        var mad = results.getMedianAbsoluteDeviation();
+        return mad == 0 ? Double.NEGATIVE_INFINITY : results.getMedian() - threshold * mad / NORMAL_CONSISTENCY;
+    }
+
+    @Override
+    public double getUpperFence(Results results) {
+        var mad = results.getMedianAbsoluteDeviation();
+        return mad == 0 ? Double.POSITIVE_INFINITY : results.getMedian() + threshold * mad / NORMAL_CONSISTENCY;
+    }
+
+    @Override
+    public String getName() {
+        return "mad";
+    }
+}
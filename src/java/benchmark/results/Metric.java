@@ -0,0 +1,52 @@
+package benchmark.results;
+
+/**
+ * An application level metric found in the output of a benchmark by a {@link MetricExtractor}, e.g. the
+ * transactions per second of h2. Metrics are identified by their id, so extractors may create them on the fly, e.g.
+ * one per transaction type.
+ */
+public final class Metric {
+    private final String id;
+    private final String name;
+    private final String unit;
+
+    /**
+     * Creates a new {@link Metric}.
+     *
+     * @param id   The id used in summaries, e.g. 'transactions_per_second'
+     * @param name The name used when printing, e.g. 'Transactions per second'
+     * @param unit The unit of the values, e.g. '1/s'
+     */
+    public Metric(String id, String name, String unit) {
+        this.id = id;
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Metric && ((Metric) other).id.equals(id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,39 @@
+package benchmark.results;
+
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Extracts {@link Metric}s from the output of a benchmark which the scanner does not otherwise use, e.g. the
+ * transaction counts printed by h2. One extractor is created per scanned input, see
+ * {@link MetricExtractors#create(benchmark.Benchmark)}, so extractors need not be thread safe.
+ */
+public interface MetricExtractor {
+    /**
+     * The characters the lines of interest start with. Most of the output is not of interest, so the scanner only
+     * decodes and passes lines starting with one of these.
+     *
+     * @return The ASCII characters lines may start with, including any leading whitespace
+     */
+    String getFirstCharacters();
+
+    /**
+     * Reads a line of output of the iteration in progress. Lines tagged by the runner, iteration markers and GC logs
+     * are not passed.
+     *
+     * @param line The line, without surrounding whitespace
+     */
+    void accept(String line);
+
+    /**
+     * Reports the metrics of the iteration that just completed, and prepares for the next one.
+     *
+     * @param millis  The time of the iteration
+     * @param metrics Receives every metric of the iteration and its value
+     */
+    void completeIteration(double millis, ObjDoubleConsumer<Metric> metrics);
+
+    /**
+     * Forgets everything read, as a new invocation starts.
+     */
+    void reset();
+}
@@ -0,0 +1,51 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Dispatches {@link MetricExtractor}s by {@link Benchmark} id. Benchmarks without a registered extractor get a
+ * {@link DacapoMetricExtractor} if they belong to the 'dacapo' suite, and none otherwise.
+ * <p>
+ * Extractors are registered in code rather than looked up reflectively, so that the closed world seen by
+ * native-image contains all of them.
+ */
+public final class MetricExtractors {
+    private static final String DACAPO_SUITE = "dacapo";
+    private static final Map<String, Supplier<? extends MetricExtractor>> EXTRACTORS = new ConcurrentHashMap<>();
+
+    static {
+        register("H2", H2MetricExtractor::new);
+    }
+
+    private MetricExtractors() {
+    }
+
+    /**
+     * Registers the extractor of a benchmark, replacing any previously registered one.
+     *
+     * @param benchmarkId The id of the benchmark, e.g. 'H2'
+     * @param extractor   Creates a new extractor
+     */
+    public static void register(String benchmarkId, Supplier<? extends MetricExtractor> extractor) {
+        EXTRACTORS.put(benchmarkId, extractor);
+    }
+
+    /**
+     * Creates the extractor of a benchmark.
+     *
+     * @param benchmark The benchmark
+     * @return A new extractor, or null if the benchmark has none
+     */
+    public static MetricExtractor create(Benchmark benchmark) {
+        var extractor = EXTRACTORS.get(benchmark.name());
+        if(extractor != null) {
+            return extractor.get();
+        }
+
+        return DACAPO_SUITE.equals(benchmark.getSuite()) ? new DacapoMetricExtractor() : null;
+    }
+}
@@ -0,0 +1,30 @@
+package benchmark.results;
+
+/**
+ * Decides which values of a {@link Results} are outliers, by placing a fence on either side of the bulk of the data.
+ * Outliers are only flagged, see {@link Results#findOutliers(OutlierDetector)}; they are never removed from the data.
+ */
+public interface OutlierDetector {
+    /**
+     * Gets the lowest value not considered an outlier.
+     *
+     * @param results The results to find the fence of
+     * @return The lower fence
+     */
+    double getLowerFence(Results results);
+
+    /**
+     * Gets the highest value not considered an outlier.
+     *
+     * @param results The results to find the fence of
+     * @return The upper fence
+     */
+    double getUpperFence(Results results);
+
+    /**
+     * Gets the name used when reporting outliers found by this detector, e.g. 'tukey'.
+     *
+     * @return The name
+     */
+    String getName();
+}
@@ -0,0 +1,94 @@
+package benchmark.results;
+
+import java.text.DecimalFormat;
+
+/**
+ * Throughput figures reached by a {@link ResultsParser} while parsing a set of files.
+ */
+public class ParseStatistics {
+    private final int files;
+    private final long bytes;
+    private final long nanos;
+
+    /**
+     * Creates a new {@link ParseStatistics}.
+     *
+     * @param files The number of files parsed
+     * @param bytes The total size of the parsed files in bytes
+     * @param nanos The wall clock time spent parsing, in nanoseconds
+     */
+    public ParseStatistics(int files, long bytes, long nanos) {
+        this.files = files;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Gets the number of files parsed.
+     *
+     * @return The number of files
+     */
+    public int getFiles() {
+        return files;
+    }
+
+    /**
+     * Gets the total size of the parsed files.
+     *
+     * @return The size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the wall clock time spent parsing.
+     *
+     * @return The time in seconds
+     */
+    public double getSeconds() {
+        return nanos / 1e9;
+    }
+
+    /**
+     * Gets the number of files parsed per second.
+     *
+     * @return The files per second or -1 if no time was measured
+     */
+    public double getFilesPerSecond() {
+        if(nanos <= 0) {
+            return -1;
+        }
+
+        return files / getSeconds();
+    }
+
+    /**
+     * Gets the number of megabytes parsed per second.
+     *
+     * @return The megabytes per second or -1 if no time was measured
+     */
+    public double getMegabytesPerSecond() {
+        if(nanos <= 0) {
+            return -1;
+        }
+
+        return bytes / (1024.0 * 1024.0) / getSeconds();
+    }
+
+    /**
+     * Prints all relevant information stored in this object in an easy to read format.
+     */
+    public void prettyPrint() {
+        var zeroDecimals = new DecimalFormat("#");
+        var twoDecimals = new DecimalFormat("0.00");
+
+        System.out.println("*****************************************************************");
+        System.out.format("%30s : %s", "Files parsed", zeroDecimals.format(files) + "\n");
+        System.out.format("%30s : %s", "Megabytes parsed", twoDecimals.format(bytes / (1024.0 * 1024.0)) + "\n");
+        System.out.format("%30s : %s", "Seconds", twoDecimals.format(getSeconds()) + "\n");
+        System.out.format("%30s : %s", "Files per second", twoDecimals.format(getFilesPerSecond()) + "\n");
+        System.out.format("%30s : %s", "Megabytes per second", twoDecimals.format(getMegabytesPerSecond()) + "\n");
+        System.out.println("*****************************************************************");
+    }
+}
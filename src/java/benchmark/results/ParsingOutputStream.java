@@ -0,0 +1,55 @@
+package benchmark.results;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link OutputStream} parsing everything written to it with a {@link LogScanner}. Complete lines are
+ * parsed as soon as they are written, and the input is finished when the stream is closed.
+ */
+class ParsingOutputStream extends OutputStream {
+    private final LogScanner scanner;
+    private ByteBuffer buffer = ByteBuffer.allocate(8192);
+    private boolean closed;
+
+    ParsingOutputStream(LogScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+
+        if(buffer.remaining() < len) {
+            var larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + len));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        buffer.put(b, off, len);
+        buffer.flip();
+        scanner.scan(buffer, false);
+        buffer.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+
+        closed = true;
+        buffer.flip();
+        scanner.scan(buffer, true);
+        scanner.finish();
+    }
+}
@@ -0,0 +1,359 @@
+package benchmark.results;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram of non-negative samples, in the manner of HdrHistogram. Every power of two is split into
+ * 2^precision equally wide buckets, so the width of a bucket is at most 2^-precision of its lower bound. A bucket
+ * index is the exponent and the leading mantissa bits of the sample's IEEE 754 representation, found with a single
+ * shift.
+ * <p>
+ * Error bounds: a sample is estimated as the middle of its bucket, clamped to the exact min and max, so every
+ * estimated order statistic is within a relative error of 2^-(precision + 1) of the exact one. The same bound holds
+ * for percentiles interpolated between two ranks, and for trimmed and winsorized means. The median absolute deviation
+ * is within 2^-precision of the max in absolute terms. The count, sum, min, max and variance are exact.
+ * <p>
+ * Memory is bounded by the range of the samples rather than their number: 2^precision counters per power of two
+ * between the smallest and the largest sample, e.g. 2560 counters for samples from 1 ms to 1000 s at precision 7.
+ * Two sketches with the same precision merge by adding their counters, regardless of the order samples were added in.
+ * <p>
+ * A sketch is saved as its counters and a fixed size state of {@link #STATE_SIZE} bytes, holding the index of the
+ * first counter, the count of zeros and the exact moments, see {@link #writeState(ByteBuffer)}.
+ */
+class QuantileSketch implements SampleSummary {
+    /**
+     * The number of bytes written by {@link #writeState(ByteBuffer)}.
+     */
+    static final int STATE_SIZE = 4 + 8 + 4 + 5 * 8;
+
+    private static final int MANTISSA_BITS = 52;
+
+    private final int precision;
+    private final int shift;
+
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+
+    private int size;
+    private double sum;
+    private double mean;
+    private double squaredDistanceSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision The number of mantissa bits kept, between 1 and 20
+     */
+    QuantileSketch(int precision) {
+        if(precision < 1 || precision > 20) {
+            throw new IllegalArgumentException("The precision must be between 1 and 20 bits");
+        }
+
+        this.precision = precision;
+        this.shift = MANTISSA_BITS - precision;
+    }
+
+    /**
+     * Restores a sketch saved via {@link #getCounts()} and {@link #writeState(ByteBuffer)}.
+     *
+     * @param precision The precision of the saved sketch
+     * @param counts    The counters of the saved sketch
+     * @param state     The state of the saved sketch, starting at its position
+     * @return The sketch
+     */
+    static QuantileSketch read(int precision, LongBuffer counts, ByteBuffer state) {
+        var sketch = new QuantileSketch(precision);
+        sketch.counts = new long[counts.remaining()];
+        counts.duplicate().get(sketch.counts);
+        sketch.offset = state.getInt();
+        sketch.zeroCount = state.getLong();
+        sketch.size = state.getInt();
+        sketch.sum = state.getDouble();
+        sketch.mean = state.getDouble();
+        sketch.squaredDistanceSum = state.getDouble();
+        sketch.min = state.getDouble();
+        sketch.max = state.getDouble();
+
+        return sketch;
+    }
+
+    /**
+     * Gets the counters of the buckets, starting at the bucket of index offset. The array must not be modified.
+     *
+     * @return The counters
+     */
+    long[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Writes everything but the counters, i.e. {@link #STATE_SIZE} bytes, at the position of a buffer.
+     *
+     * @param buffer The buffer
+     */
+    void writeState(ByteBuffer buffer) {
+        buffer.putInt(offset)
+              .putLong(zeroCount)
+              .putInt(size)
+              .putDouble(sum)
+              .putDouble(mean)
+              .putDouble(squaredDistanceSum)
+              .putDouble(min)
+              .putDouble(max);
+    }
+
+    int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Gets the largest relative error of an estimated order statistic.
+     *
+     * @return The relative error, e.g. 0.0039 for a precision of 7 bits
+     */
+    double getRelativeError() {
+        return Math.scalb(1.0, -(precision + 1));
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @param value The sample, at least 0
+     */
+    void add(double value) {
+        if(!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Only finite non-negative samples can be sketched: " + value);
+        }
+
+        if(value == 0) {
+            zeroCount++;
+        } else {
+            var index = index(value);
+            grow(index, index);
+            counts[index - offset]++;
+        }
+
+        size++;
+        sum += value;
+        var delta = value - mean;
+        mean += delta / size;
+        squaredDistanceSum += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every sample of another sketch to this one. The other sketch is left unchanged.
+     *
+     * @param other The sketch to merge, with the same precision
+     */
+    void merge(QuantileSketch other) {
+        if(other.precision != precision) {
+            throw new IllegalArgumentException("Sketches of " + precision + " and " + other.precision
+                                               + " bits can not be merged");
+        }
+        if(other.size == 0) {
+            return;
+        }
+
+        if(other.counts.length > 0) {
+            grow(other.offset, other.offset + other.counts.length - 1);
+            for(int i = 0; i < other.counts.length; i++) {
+                counts[other.offset - offset + i] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+
+        // Chan et al.'s update for combining the squared distance sums of two sets
+        var combined = size + other.size;
+        var delta = other.mean - mean;
+        squaredDistanceSum += other.squaredDistanceSum + delta * delta * size / combined * other.size;
+        mean += delta * other.size / combined;
+        size = combined;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private int index(double value) {
+        return (int) (Double.doubleToRawLongBits(value) >>> shift);
+    }
+
+    private void grow(int lowest, int highest) {
+        if(counts.length == 0) {
+            counts = new long[highest - lowest + 1];
+            offset = lowest;
+            return;
+        }
+
+        var newOffset = Math.min(offset, lowest);
+        var newEnd = Math.max(offset + counts.length, highest + 1);
+        if(newOffset == offset && newEnd == offset + counts.length) {
+            return;
+        }
+
+        var grown = new long[newEnd - newOffset];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    private double estimate(int bucket) {
+        var lower = Double.longBitsToDouble((long) (bucket + offset) << shift);
+        var upper = Double.longBitsToDouble((long) (bucket + offset + 1) << shift);
+
+        return Math.max(min, Math.min(max, (lower + upper) / 2));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double sum() {
+        return sum;
+    }
+
+    @Override
+    public double min() {
+        return min;
+    }
+
+    @Override
+    public double max() {
+        return max;
+    }
+
+    @Override
+    public double variance() {
+        return squaredDistanceSum / size;
+    }
+
+    /**
+     * Estimates the sample of a rank, i.e. the value at that index if the samples were sorted.
+     *
+     * @param rank The rank, between 0 and size - 1
+     * @return The estimated sample
+     */
+    double valueAt(long rank) {
+        if(rank < zeroCount) {
+            return 0;
+        }
+
+        var seen = zeroCount;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(rank < seen) {
+                return estimate(i);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Estimates a percentile, interpolating linearly between the two closest ranks like
+     * {@link SampleStore#percentile(double[], int, double)}.
+     *
+     * @param percentile The percentile, between 0 and 1
+     * @return The estimated percentile
+     */
+    double percentile(double percentile) {
+        var position = percentile * (size - 1);
+        var lower = (long) Math.floor(position);
+        var upper = (long) Math.ceil(position);
+        var lowerValue = valueAt(lower);
+        var upperValue = lower == upper ? lowerValue : valueAt(upper);
+
+        return lowerValue + (position - lower) * (upperValue - lowerValue);
+    }
+
+    /**
+     * Estimates the sum of the samples from one rank up to, but not including, another.
+     *
+     * @param from The first rank included
+     * @param to   The first rank excluded
+     * @return The estimated sum
+     */
+    double sumBetween(long from, long to) {
+        var total = 0.0;
+        var seen = zeroCount;
+
+        for(int i = 0; i < counts.length && seen < to; i++) {
+            var included = Math.min(to, seen + counts[i]) - Math.max(from, seen);
+            if(included > 0) {
+                total += included * estimate(i);
+            }
+            seen += counts[i];
+        }
+
+        return total;
+    }
+
+    /**
+     * Estimates the median absolute deviation, by weighting the distance between every bucket and the median with
+     * the number of samples in the bucket.
+     *
+     * @return The estimated median absolute deviation
+     */
+    double medianAbsoluteDeviation() {
+        var median = percentile(0.5);
+        var deviations = new double[counts.length + 1];
+        var weights = new long[counts.length + 1];
+        var order = new Integer[counts.length + 1];
+
+        deviations[0] = median;
+        weights[0] = zeroCount;
+        order[0] = 0;
+        for(int i = 0; i < counts.length; i++) {
+            deviations[i + 1] = Math.abs(estimate(i) - median);
+            weights[i + 1] = counts[i];
+            order[i + 1] = i + 1;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(deviations[a], deviations[b]));
+
+        var position = 0.5 * (size - 1);
+        var lower = (long) Math.floor(position);
+        var upper = (long) Math.ceil(position);
+        var lowerValue = Double.NaN;
+        var seen = 0L;
+
+        for(int i : order) {
+            seen += weights[i];
+            if(Double.isNaN(lowerValue) && lower < seen) {
+                lowerValue = deviations[i];
+            }
+            if(upper < seen) {
+                return lowerValue + (position - lower) * (deviations[i] - lowerValue);
+            }
+        }
+
+        return lowerValue;
+    }
+
+    /**
+     * Counts the samples estimated to lie outside of a range.
+     *
+     * @param lower The lowest value inside the range
+     * @param upper The highest value inside the range
+     * @return The number of samples outside
+     */
+    int countOutside(double lower, double upper) {
+        long outside = 0 < lower || 0 > upper ? zeroCount : 0;
+
+        for(int i = 0; i < counts.length; i++) {
+            var value = estimate(i);
+            if(value < lower || value > upper) {
+                outside += counts[i];
+            }
+        }
+
+        return (int) outside;
+    }
+}
@@ -0,0 +1,444 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A local HTTP service answering queries about the {@link Results} of a {@link ResultsManager} as JSON. Every endpoint
+ * takes a 'benchmark' and optionally a 'type' (steady state by default) and a 'level' (99% by default). Names are
+ * matched like those of the 'query' command, e.g. 'h2', 'GraalVM EE 11', 'Steady state' and '95', or 'H2',
+ * 'GRAALVM_EE_11', 'STEADY_STATE' and 'PERCENT_95'. Unknown names and missing data are answered with status 400.
+ * <ul>
+ * <li>/summary, optionally narrowed down to one 'jvm': the size, mean, median, min, max and confidence interval of
+ * every JVM, and the margin of error based on the invocation means if there is more than one invocation</li>
+ * <li>/normalized?target=...: the mean and confidence interval of every JVM divided by the mean of the target, see
+ * {@link Results#createNormalizedResults(double)}</li>
+ * <li>/compare?a=...&amp;b=...: the verdict of a {@link ComparisonEngine} for A compared with B</li>
+ * </ul>
+ * Answers are kept in a least recently used cache. Each answer remembers the {@link Results#getVersion() versions} of
+ * the {@link Results} it was computed from, so it is computed again once new data has been ingested. If a
+ * {@link ResultsWatcher} is provided, it is polled before a query at most once per poll interval.
+ * <p>
+ * Requests are handled one at a time on the thread of the HTTP server, which also ingests new data, so the
+ * {@link Results} are never read while they are being written.
+ */
+public class QueryServer {
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+    private static final MeasurementType DEFAULT_TYPE = MeasurementType.STEADY_STATE;
+    private static final ConfidenceLevel DEFAULT_LEVEL = ConfidenceLevel.PERCENT_99;
+    private static final List<String> ENDPOINTS = List.of("/summary", "/normalized", "/compare");
+
+    /**
+     * A computed answer and the data it was computed from.
+     */
+    private static class Answer {
+        final VersionStamp stamp;
+        final String json;
+
+        Answer(VersionStamp stamp, String json) {
+            this.stamp = stamp;
+            this.json = json;
+        }
+    }
+
+    private final ResultsManager manager;
+    private final ResultsWatcher watcher;
+    private final Map<String, Answer> cache;
+    private HttpServer server;
+    private long lastPoll;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a new {@link QueryServer}.
+     *
+     * @param manager   The manager holding the data
+     * @param watcher   The watcher adding new data to the manager, or null if the data does not change
+     * @param cacheSize The number of answers to cache
+     */
+    public QueryServer(ResultsManager manager, ResultsWatcher watcher, int cacheSize) {
+        this.manager = manager;
+        this.watcher = watcher;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Answer> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Starts serving on the loopback address.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @return The port listened on
+     * @throws IOException If the port can not be bound
+     */
+    public int start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving, waiting for the current request to be answered.
+     */
+    public void stop() {
+        if(server != null) {
+            server.stop(1);
+            server = null;
+        }
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     *
+     * @return The cache hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of queries that had to be computed.
+     *
+     * @return The cache misses
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+
+        var path = exchange.getRequestURI().getPath();
+
+        try {
+            if(!exchange.getRequestMethod().equals("GET")) {
+                status = 405;
+                body = error("Only GET is supported");
+            } else if(!ENDPOINTS.contains(path)) {
+                status = 404;
+                body = error("Unknown endpoint " + path + ", expected one of " + ENDPOINTS);
+            } else {
+                status = 200;
+                body = query(path, parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch(IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch(IOException e) {
+            status = 500;
+            body = error("Could not ingest new data: " + e.getMessage());
+        } catch(RuntimeException e) {
+            status = 500;
+            body = error("Could not answer " + path + ": " + e);
+        }
+
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(var output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        var parameters = new HashMap<String, String>();
+        if(rawQuery == null) {
+            return parameters;
+        }
+
+        for(String pair : rawQuery.split("&")) {
+            var separator = pair.indexOf('=');
+            if(separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                               URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Answers a query, from the cache if its data has not changed.
+     *
+     * @param path       The endpoint, e.g. '/summary'
+     * @param parameters The query parameters
+     * @return The answer as JSON
+     * @throws IOException              If new data can not be ingested
+     * @throws IllegalArgumentException If the endpoint or a parameter is unknown
+     */
+    String query(String path, Map<String, String> parameters) throws IOException {
+        if(watcher != null && System.currentTimeMillis() - lastPoll >= POLL_INTERVAL_MILLIS) {
+            watcher.poll();
+            lastPoll = System.currentTimeMillis();
+        }
+
+        if(!ENDPOINTS.contains(path)) {
+            throw new IllegalArgumentException("Unknown endpoint " + path + ", expected one of " + ENDPOINTS);
+        }
+
+        var levelName = parameters.get("level");
+        if(levelName != null && levelName.matches("\\d+")) {
+            parameters = new HashMap<>(parameters);
+            parameters.put("level", levelName + "%");
+        }
+
+        var benchmark = find(Benchmark.values(), Benchmark::name, Benchmark::getName, parameters, "benchmark", null);
+        var type = find(MeasurementType.values(),
+                        MeasurementType::name,
+                        MeasurementType::getName,
+                        parameters,
+                        "type",
+                        DEFAULT_TYPE);
+        var level = find(ConfidenceLevel.values(),
+                         ConfidenceLevel::name,
+                         ConfidenceLevel::getName,
+                         parameters,
+                         "level",
+                         DEFAULT_LEVEL);
+
+        List<Results> inputs;
+        Function<List<Results>, String> answer;
+        String key;
+
+        switch(path) {
+            case "/summary":
+                var jvm = find(JVM.values(), JVM::name, JVM::getName, parameters, "jvm", JVM.values()[0]);
+                var all = !parameters.containsKey("jvm");
+                inputs = getResults(benchmark, type, results -> all || results.getJvm() == jvm);
+                answer = results -> summarize(benchmark, type, level, results);
+                key = path + "/" + benchmark + "/" + type + "/" + level + "/" + (all ? "" : jvm);
+                break;
+            case "/normalized":
+                var target = find(JVM.values(), JVM::name, JVM::getName, parameters, "target", null);
+                inputs = getResults(benchmark, type, results -> true);
+                answer = results -> normalize(benchmark, type, level, target, results);
+                key = path + "/" + benchmark + "/" + type + "/" + level + "/" + target;
+                break;
+            default:
+                var a = find(JVM.values(), JVM::name, JVM::getName, parameters, "a", null);
+                var b = find(JVM.values(), JVM::name, JVM::getName, parameters, "b", null);
+                inputs = getResults(benchmark, type, results -> results.getJvm() == a || results.getJvm() == b);
+                answer = results -> compare(a, b, level, results);
+                key = path + "/" + benchmark + "/" + type + "/" + level + "/" + a + "/" + b;
+        }
+
+        var cached = cache.get(key);
+        if(cached != null && cached.stamp.isCurrent(inputs)) {
+            hits++;
+            return cached.json;
+        }
+
+        misses++;
+        var stamp = new VersionStamp(inputs);
+        var json = answer.apply(inputs);
+        cache.put(key, new Answer(stamp, json));
+
+        return json;
+    }
+
+    private static <E> E find(E[] constants,
+                              Function<E, String> getId,
+                              Function<E, String> getName,
+                              Map<String, String> parameters,
+                              String parameter,
+                              E defaultValue) {
+        var name = parameters.get(parameter);
+        if(name == null) {
+            if(defaultValue == null) {
+                throw new IllegalArgumentException("Missing parameter '" + parameter + "'");
+            }
+            return defaultValue;
+        }
+
+        for(E constant : constants) {
+            if(getId.apply(constant).equalsIgnoreCase(name) || getName.apply(constant).equalsIgnoreCase(name)) {
+                return constant;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown " + parameter + " '" + name + "'");
+    }
+
+    private List<Results> getResults(Benchmark benchmark,
+                                     MeasurementType type,
+                                     Predicate<Results> filter) {
+        var results = new ArrayList<Results>();
+        for(Results candidate : manager.getResults(benchmark, type)) {
+            if(candidate.getSize() > 0 && filter.test(candidate)) {
+                results.add(candidate);
+            }
+        }
+
+        return results;
+    }
+
+    private static String summarize(Benchmark benchmark,
+                                    MeasurementType type,
+                                    ConfidenceLevel level,
+                                    List<Results> inputs) {
+        var json = header(benchmark, type, level);
+        json.append(",\"results\":[");
+        for(int i = 0; i < inputs.size(); i++) {
+            var results = inputs.get(i);
+            json.append(i == 0 ? "{" : ",{");
+            field(json, "jvm", results.getJvm().getName()).append(',');
+            field(json, "size", results.getSize()).append(',');
+            field(json, "mean", results.getMean()).append(',');
+            field(json, "median", results.getMedian()).append(',');
+            field(json, "min", results.getMin()).append(',');
+            field(json, "max", results.getMax()).append(',');
+            field(json, "standard_deviation", results.getStandardDeviation()).append(',');
+            field(json, "error", results.getMarginOfError(level)).append(',');
+            field(json, "lower", results.getConfidenceIntervalLower(level)).append(',');
+            field(json, "upper", results.getConfidenceIntervalUpper(level));
+
+            var components = results.isSketched() ? null : results.getVarianceComponents();
+            if(components != null && components.getInvocations() > 1) {
+                json.append(',');
+                field(json, "invocations", components.getInvocations()).append(',');
+                field(json, "invocation_error", components.getMarginOfError(level));
+            }
+            json.append('}');
+        }
+
+        return json.append("]}").toString();
+    }
+
+    private static String normalize(Benchmark benchmark,
+                                    MeasurementType type,
+                                    ConfidenceLevel level,
+                                    JVM target,
+                                    List<Results> inputs) {
+        Results targetResults = null;
+        for(Results results : inputs) {
+            if(results.getJvm() == target) {
+                targetResults = results;
+            }
+        }
+        if(targetResults == null) {
+            throw new IllegalArgumentException("No " + type.getName().toLowerCase() + " data for "
+                                               + benchmark.getName() + " on " + target.getName());
+        }
+
+        var json = header(benchmark, type, level);
+        json.append(',');
+        field(json, "target", target.getName()).append(",\"results\":[");
+        for(int i = 0; i < inputs.size(); i++) {
+            var normalized = inputs.get(i).isSketched()
+                             ? null
+                             : inputs.get(i).createNormalizedResults(targetResults.getMean());
+            json.append(i == 0 ? "{" : ",{");
+            field(json, "jvm", inputs.get(i).getJvm().getName()).append(',');
+            if(normalized == null) {
+                var mean = targetResults.getMean();
+                field(json, "mean", inputs.get(i).getMean() / mean).append(',');
+                field(json, "error", inputs.get(i).getMarginOfError(level) / mean).append(',');
+                field(json, "lower", inputs.get(i).getConfidenceIntervalLower(level) / mean).append(',');
+                field(json, "upper", inputs.get(i).getConfidenceIntervalUpper(level) / mean);
+            } else {
+                field(json, "mean", normalized.getMean()).append(',');
+                field(json, "error", normalized.getMarginOfError(level)).append(',');
+                field(json, "lower", normalized.getConfidenceIntervalLower(level)).append(',');
+                field(json, "upper", normalized.getConfidenceIntervalUpper(level));
+            }
+            json.append('}');
+        }
+
+        return json.append("]}").toString();
+    }
+
+    private static String compare(JVM a, JVM b, ConfidenceLevel level, List<Results> inputs) {
+        Results resultsA = null;
+        Results resultsB = null;
+        for(Results results : inputs) {
+            if(results.getJvm() == a) {
+                resultsA = results;
+            }
+            if(results.getJvm() == b) {
+                resultsB = results;
+            }
+        }
+        if(resultsA == null || resultsB == null || resultsA.getSize() < 2 || resultsB.getSize() < 2) {
+            throw new IllegalArgumentException("Both JVMs need at least two values to be compared");
+        }
+        if(resultsA.isSketched() || resultsB.isSketched()) {
+            throw new IllegalArgumentException("Sketched results can not be compared");
+        }
+
+        var comparison = new ComparisonEngine(level).compare(resultsA, resultsB);
+        var json = header(resultsA.getBenchmark(), resultsA.getType(), level);
+        json.append(',');
+        field(json, "a", a.getName()).append(',');
+        field(json, "b", b.getName()).append(',');
+        field(json, "verdict", comparison.getVerdict().toString()).append(',');
+        field(json, "welch_p", comparison.getWelchP()).append(',');
+        field(json, "mann_whitney_p", comparison.getMannWhitneyP()).append(',');
+        field(json, "hedges_g", comparison.getHedgesG()).append(',');
+        field(json, "cliffs_delta", comparison.getCliffsDelta()).append(',');
+        field(json, "speedup", comparison.getSpeedup().getEstimate()).append(',');
+        field(json, "speedup_lower", comparison.getSpeedup().getLower()).append(',');
+        field(json, "speedup_upper", comparison.getSpeedup().getUpper());
+
+        return json.append('}').toString();
+    }
+
+    private static StringBuilder header(Benchmark benchmark, MeasurementType type, ConfidenceLevel level) {
+        var json = new StringBuilder("{");
+        field(json, "benchmark", benchmark.getName()).append(',');
+        field(json, "type", type.getName()).append(',');
+        return field(json, "confidence_level", level.getName());
+    }
+
+    private static String error(String message) {
+        return field(new StringBuilder("{"), "error", message).append('}').toString();
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":\"");
+        for(int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if(c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+
+        return json.append('"');
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, double value) {
+        json.append('"').append(name).append("\":");
+        // JSON has no NaN or infinity
+        return Double.isFinite(value) ? json.append(value) : json.append("null");
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, int value) {
+        return json.append('"').append(name).append("\":").append(value);
+    }
+}
@@ -0,0 +1,164 @@
+package benchmark.results;
+
+import benchmark.ConfidenceLevel;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The significant changes between consecutive runs found by {@link ResultsHistory#detectChanges}. Since lower
+ * values are better for every measurement, a change is a regression if the later run has the higher values.
+ */
+public class RegressionReport {
+    /**
+     * A significant change of one {@link Results} between two runs.
+     */
+    public static class Change {
+        private final String from;
+        private final String to;
+        private final Comparison comparison;
+
+        private Change(String from, String to, Comparison comparison) {
+            this.from = from;
+            this.to = to;
+            this.comparison = comparison;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        /**
+         * Gets the comparison, where A is the later run and B the earlier run.
+         *
+         * @return The comparison
+         */
+        public Comparison getComparison() {
+            return comparison;
+        }
+
+        public boolean isRegression() {
+            return comparison.getVerdict() == Comparison.Verdict.SLOWER;
+        }
+
+        /**
+         * Gets the relative change of the mean.
+         *
+         * @return The change, e.g. 0.05 if the mean of the later run is 5% higher
+         */
+        public double getRelativeChange() {
+            return comparison.getA().getMean() / comparison.getB().getMean() - 1;
+        }
+    }
+
+    private final ConfidenceLevel confidenceLevel;
+    private final List<Change> changes = new ArrayList<>();
+    private int comparisonCount;
+
+    RegressionReport(ConfidenceLevel confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    void add(String from, String to, List<Comparison> comparisons) {
+        comparisonCount += comparisons.size();
+        for(Comparison comparison : comparisons) {
+            if(comparison.getVerdict() != Comparison.Verdict.INCONCLUSIVE) {
+                changes.add(new Change(from, to, comparison));
+            }
+        }
+    }
+
+    /**
+     * Gets every significant change, regressions as well as improvements.
+     *
+     * @return The changes
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public List<Change> getRegressions() {
+        return changes.stream().filter(Change::isRegression).collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the number of comparisons made, including those without a significant change.
+     *
+     * @return The number of comparisons
+     */
+    public int getComparisonCount() {
+        return comparisonCount;
+    }
+
+    /**
+     * Saves the changes as TOML, one [[change]] table per change.
+     *
+     * @param file The file to write
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveAsToml(File file) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            writer.write("confidence_level = \"" + confidenceLevel.getName() + "\"\n");
+            writer.write("comparisons = " + comparisonCount + "\n");
+            writer.write("regressions = " + getRegressions().size() + "\n\n");
+
+            for(Change change : changes) {
+                var comparison = change.getComparison();
+                var results = comparison.getA();
+
+                writer.write("[[change]]\n");
+                writer.write("kind = \"" + (change.isRegression() ? "REGRESSION" : "IMPROVEMENT") + "\"\n");
+                writer.write("benchmark = \"" + results.getBenchmark() + "\"\n");
+                writer.write("jvm = \"" + results.getJvm() + "\"\n");
+                writer.write("type = \"" + results.getType() + "\"\n");
+                writer.write("from = \"" + change.getFrom() + "\"\n");
+                writer.write("to = \"" + change.getTo() + "\"\n");
+                writer.write("mean_before = " + ComparisonEngine.toToml(comparison.getB().getMean()) + "\n");
+                writer.write("mean_after = " + ComparisonEngine.toToml(results.getMean()) + "\n");
+                writer.write("relative_change = " + ComparisonEngine.toToml(change.getRelativeChange()) + "\n");
+                writer.write("speedup = " + ComparisonEngine.toToml(comparison.getSpeedup().getEstimate()) + "\n");
+                writer.write("speedup_lower = " + ComparisonEngine.toToml(comparison.getSpeedup().getLower()) + "\n");
+                writer.write("speedup_upper = " + ComparisonEngine.toToml(comparison.getSpeedup().getUpper()) + "\n");
+                writer.write("welch_p_adjusted = " + ComparisonEngine.toToml(comparison.getWelchPAdjusted()) + "\n");
+                writer.write("mann_whitney_p_adjusted = "
+                             + ComparisonEngine.toToml(comparison.getMannWhitneyPAdjusted()) + "\n");
+                writer.write("cliffs_delta = " + ComparisonEngine.toToml(comparison.getCliffsDelta()) + "\n");
+                writer.write("\n");
+            }
+        }
+    }
+
+    /**
+     * Prints one line per change, regressions first.
+     */
+    public void prettyPrint() {
+        System.out.format("%d comparisons at %s confidence level, %d regressions, %d improvements%n",
+                          comparisonCount,
+                          confidenceLevel.getName(),
+                          getRegressions().size(),
+                          changes.size() - getRegressions().size());
+
+        var sorted = new ArrayList<>(changes);
+        sorted.sort((a, b) -> Boolean.compare(b.isRegression(), a.isRegression()));
+
+        for(Change change : sorted) {
+            var results = change.getComparison().getA();
+            System.out.format("%-11s %-12s %-14s %-20s %s -> %s %+.2f%%%n",
+                              change.isRegression() ? "REGRESSION" : "IMPROVEMENT",
+                              results.getBenchmark().getName(),
+                              results.getJvm().getName(),
+                              results.getType().getName(),
+                              change.getFrom(),
+                              change.getTo(),
+                              change.getRelativeChange() * 100);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the normalized error bar charts of benchmark_plotter.py and the JVM by JVM verdict heatmaps of
+ * benchmark_matrix.py as SVG files straight from a {@link ResultsManager}, together with 'report.html' which embeds
+ * every chart and needs no other file.
+ * <p>
+ * Charts are rendered in parallel. The generator remembers the {@link Results#getVersion() version} of every
+ * {@link Results} a chart was drawn from, so calling {@link #render(ResultsManager)} again, e.g. whenever a
+ * {@link ResultsWatcher} has folded in new invocations, only redraws the charts whose data changed.
+ */
+public class ReportGenerator {
+    private static final String REPORT_NAME = "report.html";
+    private static final String TOTAL = "TOTAL";
+    private static final int CHART_HEIGHT = 300;
+    private static final int CHART_COLUMN_WIDTH = 80;
+    private static final int CELL_SIZE = 56;
+    private static final int[] COLD = {59, 76, 192};
+    private static final int[] NEUTRAL = {221, 221, 221};
+    private static final int[] WARM = {180, 4, 38};
+
+    /**
+     * A rendered chart and the data it was drawn from.
+     */
+    private static class Chart {
+        final VersionStamp stamp;
+        final String svg;
+        final ComparisonMatrix matrix;
+
+        Chart(VersionStamp stamp, String svg, ComparisonMatrix matrix) {
+            this.stamp = stamp;
+            this.svg = svg;
+            this.matrix = matrix;
+        }
+    }
+
+    /**
+     * Draws a chart, given the data it should be drawn from.
+     */
+    private interface Renderer {
+        Chart render(VersionStamp stamp, List<Results> inputs);
+    }
+
+    private final File folder;
+    private final ConfidenceLevel confidenceLevel;
+    private final JVM normalizationTarget;
+    private final MeasurementType[] types;
+    private final int threads;
+    private final Map<String, Chart> charts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link ReportGenerator} using one thread per available processor.
+     *
+     * @param folder              The folder to write the SVG files and the report to
+     * @param confidenceLevel     The confidence level of the error bars and the verdicts
+     * @param normalizationTarget The JVM every chart is normalized against
+     * @param types               The types of data to chart
+     */
+    public ReportGenerator(File folder,
+                           ConfidenceLevel confidenceLevel,
+                           JVM normalizationTarget,
+                           MeasurementType... types) {
+        this.folder = folder;
+        this.confidenceLevel = confidenceLevel;
+        this.normalizationTarget = normalizationTarget;
+        this.types = types.clone();
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Renders every chart whose data changed since the previous call, and rewrites the report if any did. For every
+     * {@link Benchmark} and type, the charts are 'BENCHMARK_TYPE.svg', holding the mean and the margin of error of
+     * each {@link JVM} divided by the mean of the normalization target, and 'BENCHMARK_TYPE_heatmap.svg', holding the
+     * verdicts of a {@link ComparisonEngine}. 'TOTAL_TYPE_heatmap.svg' sums the verdicts of all benchmarks.
+     *
+     * @param manager The manager holding the data
+     * @return The number of charts rendered
+     * @throws IOException If the folder can not be created or a file can not be written
+     */
+    public int render(ResultsManager manager) throws IOException {
+        if(!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+
+        var engine = new ComparisonEngine(confidenceLevel);
+        var names = new LinkedHashMap<MeasurementType, List<String>>();
+        var tasks = new ArrayList<Callable<Boolean>>();
+
+        for(MeasurementType type : types) {
+            var typeNames = new ArrayList<String>();
+            names.put(type, typeNames);
+
+            for(Benchmark benchmark : Benchmark.values()) {
+                var chartInputs = getResults(manager, benchmark, type, 1);
+                if(chartInputs.stream().anyMatch(results -> results.getJvm() == normalizationTarget)) {
+                    var name = benchmark + "_" + type;
+                    typeNames.add(name);
+                    tasks.add(() -> update(name, chartInputs, (stamp, inputs) ->
+                            new Chart(stamp, renderChart(benchmark, type, inputs), null)));
+                }
+            }
+
+            for(Benchmark benchmark : Benchmark.values()) {
+                var heatmapInputs = getResults(manager, benchmark, type, 2);
+                if(heatmapInputs.size() > 1) {
+                    var name = benchmark + "_" + type + "_heatmap";
+                    typeNames.add(name);
+                    tasks.add(() -> update(name, heatmapInputs, (stamp, inputs) -> {
+                        var matrix = engine.compare(manager, benchmark, type);
+                        return new Chart(stamp, renderHeatmap(matrix), matrix);
+                    }));
+                }
+            }
+
+            typeNames.add(TOTAL + "_" + type + "_heatmap");
+        }
+
+        var rendered = runAll(tasks);
+
+        // The totals reuse the matrices of the heatmaps, so they are only rendered once those are
+        for(MeasurementType type : types) {
+            var inputs = new ArrayList<Results>();
+            var matrices = new ArrayList<ComparisonMatrix>();
+            for(Benchmark benchmark : Benchmark.values()) {
+                var chart = charts.get(benchmark + "_" + type + "_heatmap");
+                if(chart != null && names.get(type).contains(benchmark + "_" + type + "_heatmap")) {
+                    inputs.addAll(chart.stamp.getResults());
+                    matrices.add(chart.matrix);
+                }
+            }
+
+            if(matrices.isEmpty()) {
+                charts.remove(TOTAL + "_" + type + "_heatmap");
+            } else if(update(TOTAL + "_" + type + "_heatmap", inputs, (stamp, results) ->
+                    new Chart(stamp, renderTotal(type, matrices), null))) {
+                rendered++;
+            }
+        }
+
+        var report = new File(folder, REPORT_NAME);
+        if(rendered > 0 || !report.isFile()) {
+            Files.writeString(report.toPath(), renderReport(names));
+        }
+
+        return rendered;
+    }
+
+    private static List<Results> getResults(ResultsManager manager,
+                                            Benchmark benchmark,
+                                            MeasurementType type,
+                                            int minimumSize) {
+        var results = new ArrayList<Results>();
+        for(Results candidate : manager.getResults(benchmark, type)) {
+            if(candidate.getSize() >= minimumSize && !candidate.isSketched()) {
+                results.add(candidate);
+            }
+        }
+
+        return results;
+    }
+
+    private int runAll(List<Callable<Boolean>> tasks) throws IOException {
+        if(tasks.isEmpty()) {
+            return 0;
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        var rendered = 0;
+
+        try {
+            for(Future<Boolean> future : executor.invokeAll(tasks)) {
+                if(future.get()) {
+                    rendered++;
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering " + folder.getAbsolutePath(), e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to render " + folder.getAbsolutePath(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return rendered;
+    }
+
+    private boolean update(String name, List<Results> current, Renderer renderer) throws IOException {
+        var file = new File(folder, name + ".svg");
+        var previous = charts.get(name);
+        if(previous != null && previous.stamp.isCurrent(current) && file.isFile()) {
+            return false;
+        }
+
+        var chart = renderer.render(new VersionStamp(current), current);
+        Files.writeString(file.toPath(), chart.svg);
+        charts.put(name, chart);
+
+        return true;
+    }
+
+    private String renderChart(Benchmark benchmark, MeasurementType type, List<Results> inputs) {
+        Results target = null;
+        for(Results results : inputs) {
+            if(results.getJvm() == normalizationTarget) {
+                target = results;
+            }
+        }
+
+        var normalization = target.getMean();
+        var targetError = target.getMarginOfError(confidenceLevel) / normalization;
+        var means = new double[inputs.size()];
+        var errors = new double[inputs.size()];
+        var low = 1 - targetError;
+        var high = 1 + targetError;
+        for(int i = 0; i < inputs.size(); i++) {
+            means[i] = inputs.get(i).getMean() / normalization;
+            errors[i] = inputs.get(i).getMarginOfError(confidenceLevel) / normalization;
+            low = Math.min(low, Math.min(means[i] - errors[i], inputs.get(i).getMin() / normalization));
+            high = Math.max(high, Math.max(means[i] + errors[i], inputs.get(i).getMax() / normalization));
+        }
+        var padding = high > low ? (high - low) * 0.05 : 0.5;
+        low -= padding;
+        high += padding;
+
+        var left = 70;
+        var top = 60;
+        var width = inputs.size() * CHART_COLUMN_WIDTH;
+        var svg = new Svg(left + width + 20, top + CHART_HEIGHT + 160);
+        var scale = CHART_HEIGHT / (high - low);
+        var bottom = top + CHART_HEIGHT;
+
+        svg.text(left + width / 2.0, 22, "middle", 0, "bold",
+                 benchmark.getName() + " " + type.getName() + " at " + confidenceLevel.getName()
+                 + " confidence level");
+        svg.text(left + width / 2.0, 40, "middle", 0, null, "Sample size: " + target.getSize());
+        svg.text(18, top + CHART_HEIGHT / 2.0, "middle", -90, null, "Normalized " + type.getName().toLowerCase());
+        svg.rectangle(left, top, width, CHART_HEIGHT, "none", "black");
+
+        var step = getTickStep(high - low);
+        for(double tick = Math.ceil(low / step) * step; tick <= high; tick += step) {
+            var y = bottom - (tick - low) * scale;
+            svg.line(left - 5, y, left, y, "black", 1, null);
+            svg.text(left - 8, y + 4, "end", 0, null, format(tick, step < 0.01 ? 3 : 2));
+        }
+
+        for(double line : new double[] {1 - targetError, 1 + targetError}) {
+            var y = bottom - (line - low) * scale;
+            svg.line(left, y, left + width, y, "black", 1, "4 3");
+        }
+
+        for(int i = 0; i < inputs.size(); i++) {
+            var x = left + (i + 0.5) * CHART_COLUMN_WIDTH;
+            var y = bottom - (means[i] - low) * scale;
+            var errorTop = bottom - (means[i] + errors[i] - low) * scale;
+            var errorBottom = bottom - (means[i] - errors[i] - low) * scale;
+
+            svg.line(x,
+                     bottom - (inputs.get(i).getMax() / normalization - low) * scale,
+                     x,
+                     bottom - (inputs.get(i).getMin() / normalization - low) * scale,
+                     "darkgrey", 1, "2 2");
+            svg.line(x, errorTop, x, errorBottom, "black", 2, null);
+            svg.line(x - 5, errorTop, x + 5, errorTop, "black", 2, null);
+            svg.line(x - 5, errorBottom, x + 5, errorBottom, "black", 2, null);
+            svg.rectangle(x - 3, y - 3, 6, 6, "black", "black");
+            svg.text(x + 8, y - 6, "start", 0, null, format(means[i], 3));
+            svg.text(x + 4, bottom + 8, "end", -90, null, inputs.get(i).getJvm().getName());
+        }
+
+        return svg.toString();
+    }
+
+    private static double getTickStep(double range) {
+        var magnitude = Math.pow(10, Math.floor(Math.log10(range / 8)));
+        for(int factor : new int[] {1, 2, 5}) {
+            if(factor * magnitude >= range / 8) {
+                return factor * magnitude;
+            }
+        }
+
+        return 10 * magnitude;
+    }
+
+    private String renderHeatmap(ComparisonMatrix matrix) {
+        var jvms = matrix.getJvms();
+        var values = new double[jvms.size()][jvms.size()];
+        var labels = new String[jvms.size()][jvms.size()];
+        for(int i = 0; i < jvms.size(); i++) {
+            for(int j = 0; j < jvms.size(); j++) {
+                var comparison = matrix.getComparison(jvms.get(i), jvms.get(j));
+                values[i][j] = comparison == null ? 0 : comparison.getVerdict().getValue();
+                labels[i][j] = comparison == null ? "" : Integer.toString(comparison.getVerdict().getValue());
+            }
+        }
+
+        return renderMatrix(matrix.getBenchmark().getName() + " " + matrix.getType().getName(),
+                            jvms,
+                            values,
+                            labels,
+                            1);
+    }
+
+    private String renderTotal(MeasurementType type, List<ComparisonMatrix> matrices) {
+        var jvms = new ArrayList<JVM>();
+        for(JVM jvm : JVM.values()) {
+            if(matrices.stream().anyMatch(matrix -> matrix.getJvms().contains(jvm))) {
+                jvms.add(jvm);
+            }
+        }
+
+        var values = new double[jvms.size()][jvms.size()];
+        var labels = new String[jvms.size()][jvms.size()];
+        for(int i = 0; i < jvms.size(); i++) {
+            for(int j = 0; j < jvms.size(); j++) {
+                var faster = 0;
+                var slower = 0;
+                for(ComparisonMatrix matrix : matrices) {
+                    var comparison = matrix.getComparison(jvms.get(i), jvms.get(j));
+                    if(comparison != null && comparison.getVerdict() == Comparison.Verdict.FASTER) {
+                        faster++;
+                    } else if(comparison != null && comparison.getVerdict() == Comparison.Verdict.SLOWER) {
+                        slower++;
+                    }
+                }
+                values[i][j] = faster - slower;
+                labels[i][j] = "+" + faster + "/-" + slower;
+            }
+        }
+
+        return renderMatrix(TOTAL + " " + type.getName(), jvms, values, labels, Math.max(1, matrices.size()));
+    }
+
+    private String renderMatrix(String title, List<JVM> jvms, double[][] values, String[][] labels, double range) {
+        var left = 130;
+        var top = 150;
+        var size = jvms.size() * CELL_SIZE;
+        var svg = new Svg(left + size + 60, top + size + 20);
+
+        svg.text((left + size) / 2.0, 22, "middle", 0, "bold", title);
+        svg.text((left + size) / 2.0, 40, "middle", 0, null, confidenceLevel.getName() + " confidence level");
+
+        for(int i = 0; i < jvms.size(); i++) {
+            var center = i * CELL_SIZE + CELL_SIZE / 2.0;
+            svg.text(left - 6, top + center + 4, "end", 0, null, jvms.get(i).getName());
+            svg.text(left + center, top - 6, "start", -45, null, jvms.get(i).getName());
+
+            for(int j = 0; j < jvms.size(); j++) {
+                var x = left + j * CELL_SIZE;
+                var y = top + i * CELL_SIZE;
+                svg.rectangle(x, y, CELL_SIZE, CELL_SIZE, getColor(values[i][j] / range), "white");
+                svg.text(x + CELL_SIZE / 2.0, y + CELL_SIZE / 2.0 + 4, "middle", 0, null, labels[i][j]);
+            }
+        }
+
+        return svg.toString();
+    }
+
+    /**
+     * Gets the color of a verdict, blue for -1 through grey for 0 to red for 1.
+     */
+    private static String getColor(double value) {
+        var clamped = Math.max(-1, Math.min(1, value));
+        var end = clamped < 0 ? COLD : WARM;
+        var weight = Math.abs(clamped);
+        var rgb = new int[3];
+        for(int i = 0; i < 3; i++) {
+            rgb[i] = (int) Math.round(NEUTRAL[i] + (end[i] - NEUTRAL[i]) * weight);
+        }
+
+        return String.format(Locale.ROOT, "#%02x%02x%02x", rgb[0], rgb[1], rgb[2]);
+    }
+
+    private String renderReport(Map<MeasurementType, List<String>> names) {
+        var html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Benchmark report</title>\n")
+            .append("<style>body { font-family: sans-serif; } svg { margin: 8px; vertical-align: top; }</style>\n")
+            .append("</head>\n<body>\n<h1>Benchmark report</h1>\n")
+            .append("<p>Normalized against ").append(escape(normalizationTarget.getName()))
+            .append(" at ").append(escape(confidenceLevel.getName())).append(" confidence level</p>\n");
+
+        for(MeasurementType type : types) {
+            html.append("<h2>").append(escape(type.getName())).append("</h2>\n");
+            for(String name : names.get(type)) {
+                var chart = charts.get(name);
+                if(chart != null) {
+                    html.append(chart.svg);
+                }
+            }
+        }
+
+        return html.append("</body>\n</html>\n").toString();
+    }
+
+    private static String format(double value, int decimals) {
+        return String.format(Locale.ROOT, "%." + decimals + "f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * The few SVG elements the charts are drawn with.
+     */
+    private static class Svg {
+        private final StringBuilder builder = new StringBuilder();
+
+        Svg(double width, double height) {
+            builder.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(format(width, 0))
+                   .append("\" height=\"").append(format(height, 0))
+                   .append("\" font-family=\"sans-serif\" font-size=\"12\">\n");
+        }
+
+        void line(double x1, double y1, double x2, double y2, String color, double width, String dashes) {
+            builder.append("<line x1=\"").append(format(x1, 1)).append("\" y1=\"").append(format(y1, 1))
+                   .append("\" x2=\"").append(format(x2, 1)).append("\" y2=\"").append(format(y2, 1))
+                   .append("\" stroke=\"").append(color).append("\" stroke-width=\"").append(format(width, 1));
+            if(dashes != null) {
+                builder.append("\" stroke-dasharray=\"").append(dashes);
+            }
+            builder.append("\"/>\n");
+        }
+
+        void rectangle(double x, double y, double width, double height, String fill, String stroke) {
+            builder.append("<rect x=\"").append(format(x, 1)).append("\" y=\"").append(format(y, 1))
+                   .append("\" width=\"").append(format(width, 1)).append("\" height=\"").append(format(height, 1))
+                   .append("\" fill=\"").append(fill).append("\" stroke=\"").append(stroke).append("\"/>\n");
+        }
+
+        void text(double x, double y, String anchor, int rotation, String weight, String text) {
+            builder.append("<text x=\"").append(format(x, 1)).append("\" y=\"").append(format(y, 1))
+                   .append("\" text-anchor=\"").append(anchor);
+            if(rotation != 0) {
+                builder.append("\" transform=\"rotate(").append(rotation).append(' ').append(format(x, 1))
+                       .append(' ').append(format(y, 1)).append(')');
+            }
+            if(weight != null) {
+                builder.append("\" font-weight=\"").append(weight);
+            }
+            builder.append("\">").append(escape(text)).append("</text>\n");
+        }
+
+        @Override
+        public String toString() {
+            return builder + "</svg>\n";
+        }
+    }
+}
@@ -6,17 +6,47 @@ import benchmark.JVM;
 import benchmark.MeasurementType;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * A class meant for storing performance measurements procured by running a specific {@link Benchmark} using a specific {@link JVM}.
+ * The mean, max, min and standard deviation are maintained as data is added, while the median sorts the data
+ * at most once between calls to {@link #addData(double)}.
+ * <p>
+ * Next to the mean, percentiles and estimators less sensitive to outliers (e.g. iterations interrupted by a long GC
+ * pause) are available: the interquartile range, the median absolute deviation and trimmed and winsorized means.
+ * Outliers can be flagged via an {@link OutlierDetector}, but are never dropped.
+ * <p>
+ * A {@link Results} created with a sketch precision keeps a log-linear histogram rather than every value, using
+ * memory bounded by the range of the values instead of their number. Percentiles and the estimators derived from them
+ * are then approximate within {@link #getRelativeError()}, while the size, mean, min, max and standard deviation stay
+ * exact. Individual values and their tags are not kept, so sketched results can not be resampled, ranked or split into
+ * warmup curves. Any {@link Results} can be merged into a sketched one, e.g. to aggregate the results of several hosts
+ * or dates, and sketched results travel between processes in a {@link ResultsSnapshot}.
+ * <p>
+ * Values tagged with their invocation keep it as a grouping level: {@link #getVarianceComponents()} separates the
+ * variance between invocations from the variance within them, and its margin of error is based on the number of
+ * invocations rather than on the number of values, which {@link #getMarginOfError(ConfidenceLevel)} assumes to be
+ * independent.
  */
 public class Results {
-    private final List<Double> data = new ArrayList<>();
+    /**
+     * The percentiles printed and saved next to the mean: p50, p90, p99 and p99.9.
+     */
+    static final double[] ROBUST_PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * The proportion discarded at each end by the printed and saved trimmed and winsorized means.
+     */
+    static final double TRIM_PROPORTION = 0.1;
+
+    private final SampleStore data;
+    private final QuantileSketch sketch;
+    private final SampleSummary summary;
     private final Benchmark benchmark;
     private final JVM jvm;
     private final MeasurementType type;
+    private int version;
 
     /**
      * Creates a new {@link Results} object to be used for storing data of the specified type,
@@ -30,6 +60,37 @@ public class Results {
         this.benchmark = benchmark;
         this.jvm = jvm;
         this.type = type;
+        this.data = new SampleStore();
+        this.sketch = null;
+        this.summary = data;
+    }
+
+    /**
+     * Creates a new sketched {@link Results} object, keeping a histogram of the values rather than the values.
+     * Every power of two is split into 2^sketchPrecision buckets, so percentiles are within a relative error of
+     * 2^-(sketchPrecision + 1), e.g. 0.4% at a precision of 7 bits. Only non-negative values can be saved.
+     *
+     * @param benchmark       The benchmark ran when procuring the data
+     * @param jvm             The JVM used when procuring the data
+     * @param type            The type of the data
+     * @param sketchPrecision The number of bits of each value kept, between 1 and 20
+     */
+    public Results(Benchmark benchmark, JVM jvm, MeasurementType type, int sketchPrecision) {
+        this.benchmark = benchmark;
+        this.jvm = jvm;
+        this.type = type;
+        this.data = null;
+        this.sketch = new QuantileSketch(sketchPrecision);
+        this.summary = sketch;
+    }
+
+    Results(Benchmark benchmark, JVM jvm, MeasurementType type, QuantileSketch sketch) {
+        this.benchmark = benchmark;
+        this.jvm = jvm;
+        this.type = type;
+        this.data = null;
+        this.sketch = sketch;
+        this.summary = sketch;
     }
 
     /**
@@ -65,7 +126,121 @@ public class Results {
      * @param value The data point
      */
     public void addData(double value) {
-        data.add(value);
+        addData(value, 0, 0);
+    }
+
+    /**
+     * Saves a point of data to this {@link Results}, tagged with where in the benchmark run it was measured.
+     *
+     * @param value      The data point
+     * @param invocation The JVM invocation the value was measured in, starting at 1
+     * @param iteration  The benchmark iteration within the invocation the value was measured in, starting at 1
+     */
+    public void addData(double value, int invocation, int iteration) {
+        if(sketch != null) {
+            sketch.add(value);
+        } else {
+            data.add(value, invocation, iteration);
+        }
+        version++;
+    }
+
+    /**
+     * Adds all data of another {@link Results} to this one, leaving the other unchanged. Exact data keeps its tags
+     * when merged into exact data, while sketched data can only be merged into sketched data of the same precision.
+     *
+     * @param other The data to add
+     */
+    public void merge(Results other) {
+        if(sketch != null && other.sketch != null) {
+            sketch.merge(other.sketch);
+            version++;
+        } else if(other.sketch != null) {
+            throw new UnsupportedOperationException("Sketched data can not be merged into exact data");
+        } else {
+            for(int i = 0; i < other.getSize(); i++) {
+                addData(other.data.get(i), other.data.getInvocation(i), other.data.getIteration(i));
+            }
+        }
+    }
+
+    /**
+     * Gets a counter increased whenever data is added, so that anything derived from this object, e.g. a chart, can
+     * tell if it is out of date. Like adding data, this is only reliable once writers have synchronized on the object.
+     *
+     * @return The version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks if this object keeps a sketch of the values rather than the values.
+     *
+     * @return True if sketched
+     */
+    public boolean isSketched() {
+        return sketch != null;
+    }
+
+    /**
+     * Gets the largest relative error of the percentiles, trimmed and winsorized means of this object.
+     *
+     * @return The relative error, or 0 unless sketched
+     */
+    public double getRelativeError() {
+        return sketch == null ? 0 : sketch.getRelativeError();
+    }
+
+    QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    private SampleStore getSamples() {
+        if(data == null) {
+            throw new UnsupportedOperationException("Sketched results do not keep individual values");
+        }
+
+        return data;
+    }
+
+    /**
+     * Gets a value saved via {@link #addData(double)}, in the order the values were saved.
+     *
+     * @param index The index of the value
+     * @return The value
+     */
+    public double getData(int index) {
+        return getSamples().get(index);
+    }
+
+    /**
+     * Gets the invocation a value was measured in.
+     *
+     * @param index The index of the value
+     * @return The invocation or 0 if unknown
+     */
+    public int getInvocation(int index) {
+        return getSamples().getInvocation(index);
+    }
+
+    /**
+     * Gets the iteration within its invocation a value was measured in.
+     *
+     * @param index The index of the value
+     * @return The iteration or 0 if unknown
+     */
+    public int getIteration(int index) {
+        return getSamples().getIteration(index);
+    }
+
+    /**
+     * Gets a copy of all values saved via {@link #addData(double)}, in the order they were saved.
+     *
+     * @return The values
+     */
+    public double[] toArray() {
+        return getSamples().toArray();
     }
 
     /**
@@ -78,12 +253,7 @@ public class Results {
             return -1;
         }
 
-        double total = 0;
-        for(double i : data) {
-            total += i;
-        }
-
-        return total / getSize();
+        return summary.sum() / getSize();
     }
 
     /**
@@ -96,16 +266,20 @@ public class Results {
             return -1;
         }
 
-        data.sort(Double::compare);
+        if(sketch != null) {
+            return sketch.percentile(0.5);
+        }
+
+        var sorted = data.sorted();
 
         double median;
 
         if(getSize() % 2 == 0) {
-            double i1 = data.get(getSize() / 2 - 1);
-            double i2 = data.get(getSize() / 2);
+            double i1 = sorted[getSize() / 2 - 1];
+            double i2 = sorted[getSize() / 2];
             median = (i1 + i2) / 2;
         } else {
-            median = data.get(getSize() / 2);
+            median = sorted[getSize() / 2];
         }
 
         return median;
@@ -121,8 +295,7 @@ public class Results {
             return -1;
         }
 
-        data.sort(Double::compare);
-        return data.get(getSize() - 1);
+        return summary.max();
     }
 
     /**
@@ -135,8 +308,7 @@ public class Results {
             return -1;
         }
 
-        data.sort(Double::compare);
-        return data.get(0);
+        return summary.min();
     }
 
     /**
@@ -145,7 +317,7 @@ public class Results {
      * @return The number of values saved
      */
     public int getSize() {
-        return data.size();
+        return summary.size();
     }
 
     /**
@@ -158,13 +330,7 @@ public class Results {
             return -1;
         }
 
-        double mean = getMean();
-        double sumDistanceFromMeanSquared = 0;
-        for(double i : data) {
-            sumDistanceFromMeanSquared += Math.pow(i - mean, 2);
-        }
-
-        return Math.sqrt(sumDistanceFromMeanSquared / getSize());
+        return Math.sqrt(summary.variance());
     }
 
     /**
@@ -180,6 +346,174 @@ public class Results {
         return getStandardDeviation() / Math.sqrt(getSize());
     }
 
+    /**
+     * Gets a percentile of all values saved via {@link #addData(double)}, interpolating linearly between the two
+     * closest ranks. Tail percentiles such as 0.99 describe the slowest iterations better than the mean does.
+     *
+     * @param percentile The percentile, between 0 and 1, e.g. 0.999 for p99.9
+     * @return The percentile or -1 if no values have been saved
+     */
+    public double getPercentile(double percentile) {
+        if(getSize() == 0) {
+            return -1;
+        }
+
+        if(sketch != null) {
+            return sketch.percentile(percentile);
+        }
+
+        return SampleStore.percentile(data.sorted(), getSize(), percentile);
+    }
+
+    /**
+     * Gets the interquartile range, the distance between the 25th and the 75th percentile.
+     *
+     * @return The interquartile range or -1 if no values have been saved
+     */
+    public double getInterquartileRange() {
+        if(getSize() == 0) {
+            return -1;
+        }
+
+        return getPercentile(0.75) - getPercentile(0.25);
+    }
+
+    /**
+     * Gets the median absolute deviation, the median of the distances between each value and the median.
+     *
+     * @return The median absolute deviation or -1 if no values have been saved
+     */
+    public double getMedianAbsoluteDeviation() {
+        if(getSize() == 0) {
+            return -1;
+        }
+
+        if(sketch != null) {
+            return sketch.medianAbsoluteDeviation();
+        }
+
+        var median = getMedian();
+        var deviations = new double[getSize()];
+        for(int i = 0; i < deviations.length; i++) {
+            deviations[i] = Math.abs(data.get(i) - median);
+        }
+        Arrays.sort(deviations);
+
+        return SampleStore.percentile(deviations, deviations.length, 0.5);
+    }
+
+    /**
+     * Gets the mean of the values left after discarding a proportion of the lowest and of the highest values.
+     *
+     * @param proportion The proportion discarded at each end, between 0 and 0.5, e.g. 0.1 for a 10% trimmed mean
+     * @return The trimmed mean or -1 if no values have been saved
+     */
+    public double getTrimmedMean(double proportion) {
+        if(getSize() == 0) {
+            return -1;
+        }
+
+        var trimmed = getTrimCount(proportion);
+        if(2 * trimmed >= getSize()) {
+            return getMedian();
+        }
+
+        return sumBetween(trimmed, getSize() - trimmed) / (getSize() - 2 * trimmed);
+    }
+
+    /**
+     * Gets the mean after replacing a proportion of the lowest and of the highest values with the closest value
+     * kept. Unlike {@link #getTrimmedMean(double)}, every value still counts towards the mean.
+     *
+     * @param proportion The proportion replaced at each end, between 0 and 0.5
+     * @return The winsorized mean or -1 if no values have been saved
+     */
+    public double getWinsorizedMean(double proportion) {
+        if(getSize() == 0) {
+            return -1;
+        }
+
+        var replaced = getTrimCount(proportion);
+        if(2 * replaced >= getSize()) {
+            return getMedian();
+        }
+
+        var sum = replaced * (valueAt(replaced) + valueAt(getSize() - 1 - replaced));
+
+        return (sum + sumBetween(replaced, getSize() - replaced)) / getSize();
+    }
+
+    private double valueAt(int rank) {
+        return sketch != null ? sketch.valueAt(rank) : data.sorted()[rank];
+    }
+
+    private double sumBetween(int from, int to) {
+        if(sketch != null) {
+            return sketch.sumBetween(from, to);
+        }
+
+        var sorted = data.sorted();
+        var sum = 0.0;
+        for(int i = from; i < to; i++) {
+            sum += sorted[i];
+        }
+
+        return sum;
+    }
+
+    private int getTrimCount(double proportion) {
+        if(proportion < 0 || proportion > 0.5) {
+            throw new IllegalArgumentException("The proportion must be between 0 and 0.5");
+        }
+
+        return (int) Math.floor(proportion * getSize());
+    }
+
+    /**
+     * Finds the values outside the fences of an {@link OutlierDetector}. The values are only flagged and remain part
+     * of every other statistic; use {@link #getInvocation(int)} and {@link #getIteration(int)} to locate them.
+     *
+     * @param detector Decides which values are outliers
+     * @return The indices of the outliers, in the order the values were saved
+     */
+    public int[] findOutliers(OutlierDetector detector) {
+        var samples = getSamples();
+        if(getSize() == 0) {
+            return new int[0];
+        }
+
+        var lower = detector.getLowerFence(this);
+        var upper = detector.getUpperFence(this);
+        var outliers = new int[getSize()];
+        var count = 0;
+
+        for(int i = 0; i < getSize(); i++) {
+            if(samples.get(i) < lower || samples.get(i) > upper) {
+                outliers[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(outliers, count);
+    }
+
+    /**
+     * Counts the values outside the fences of an {@link OutlierDetector}. Unlike {@link #findOutliers(OutlierDetector)},
+     * this also works for sketched results, in which case the count is approximate.
+     *
+     * @param detector Decides which values are outliers
+     * @return The number of outliers
+     */
+    public int countOutliers(OutlierDetector detector) {
+        if(sketch == null) {
+            return findOutliers(detector).length;
+        }
+        if(getSize() == 0) {
+            return 0;
+        }
+
+        return sketch.countOutside(detector.getLowerFence(this), detector.getUpperFence(this));
+    }
+
     /**
      * Gets the margin of error given the specified confidence level.
      *
@@ -190,6 +524,37 @@ public class Results {
         return confidenceLevel.getZ() * getStandardDeviation() / Math.sqrt(getSize());
     }
 
+    /**
+     * Gets the margin of error given the specified confidence level, using Student's t distribution and the sample
+     * standard deviation. Unlike {@link #getMarginOfError(ConfidenceLevel)}, this holds for small samples such as the
+     * means of a handful of invocations.
+     *
+     * @param confidenceLevel The confidence level to calculate for
+     * @return The margin of error or NaN if fewer than two values have been saved
+     */
+    public double getStudentMarginOfError(ConfidenceLevel confidenceLevel) {
+        var size = getSize();
+        if(size < 2) {
+            return Double.NaN;
+        }
+
+        var quantile = Distributions.studentTQuantile(1 - (1 - confidenceLevel.getLevel()) / 2, size - 1);
+        return quantile * Math.sqrt(summary.variance() * size / (size - 1)) / Math.sqrt(size);
+    }
+
+    /**
+     * Splits the variance of the values into a between-invocation and a within-invocation component, ignoring values
+     * without an invocation.
+     *
+     * @return The variance components
+     * @throws UnsupportedOperationException If this object is sketched
+     */
+    public VarianceComponents getVarianceComponents() {
+        getSamples();
+
+        return new VarianceComponents(this);
+    }
+
     /**
      * Gets the upper bound of the confidence interval for the specified confidence level.
      *
@@ -222,11 +587,7 @@ public class Results {
         var otherLower = other.getConfidenceIntervalLower(confidenceLevel);
         var otherUpper = other.getConfidenceIntervalUpper(confidenceLevel);
 
-        if(thisUpper < otherUpper && thisUpper > otherLower) {
-            return true;
-        }
-
-        return thisLower > otherLower && thisLower < otherUpper;
+        return thisLower <= otherUpper && otherLower <= thisUpper;
     }
 
     /**
@@ -235,9 +596,25 @@ public class Results {
      * @return The new object
      */
     public Results createNormalizedResults(double normalizationValue) {
+        var samples = getSamples();
         var newResults = new Results(benchmark, jvm, type);
 
-        data.forEach(value -> newResults.addData(value / normalizationValue));
+        for(int i = 0; i < getSize(); i++) {
+            newResults.addData(samples.get(i) / normalizationValue, samples.getInvocation(i), samples.getIteration(i));
+        }
+
+        return newResults;
+    }
+
+    /**
+     * Creates a new sketched {@link Results} holding all data of this one.
+     *
+     * @param sketchPrecision The precision of the sketch, see {@link #Results(Benchmark, JVM, MeasurementType, int)}
+     * @return The new object
+     */
+    public Results createSketchedResults(int sketchPrecision) {
+        var newResults = new Results(benchmark, jvm, type, sketchPrecision);
+        newResults.merge(this);
 
         return newResults;
     }
@@ -246,6 +623,16 @@ public class Results {
      * Prints all relevant information stored in this object in an easy to read format.
      */
     public void prettyPrint() {
+        prettyPrint(null);
+    }
+
+    /**
+     * Prints all relevant information stored in this object in an easy to read format, including bootstrap
+     * confidence intervals next to the normal confidence interval.
+     *
+     * @param bootstrap The bootstrap used for additional intervals, or null
+     */
+    public void prettyPrint(Bootstrap bootstrap) {
         var zeroDecimals = new DecimalFormat("#");
         var fourDecimals = new DecimalFormat("0.0000");
 
@@ -278,6 +665,55 @@ public class Results {
         System.out.format("%30s : %s", "Confidence interval upper",
                           fourDecimals.format(getConfidenceIntervalUpper(ConfidenceLevel.PERCENT_95)) + "\n");
 
+        var components = sketch == null ? getVarianceComponents() : null;
+        if(components != null && components.isHierarchical()) {
+            System.out.println("     -------- Invocations ------------------");
+            System.out.format("%30s : %s", "Invocations",
+                              zeroDecimals.format(components.getInvocations()) + "\n");
+            System.out.format("%30s : %s", "Between-invocation variance",
+                              fourDecimals.format(components.getBetweenVariance()) + "\n");
+            System.out.format("%30s : %s", "Within-invocation variance",
+                              fourDecimals.format(components.getWithinVariance()) + "\n");
+            System.out.format("%30s : %s", "Intraclass correlation",
+                              fourDecimals.format(components.getIntraclassCorrelation()) + "\n");
+            System.out.format("%30s : %s", "Margin of error",
+                              fourDecimals.format(components.getMarginOfError(ConfidenceLevel.PERCENT_95)) + "\n");
+        }
+
+        System.out.println("     -------- Robust statistics ------------------");
+        for(double percentile : ROBUST_PERCENTILES) {
+            System.out.format("%30s : %s", "Percentile " + percentile * 100,
+                              fourDecimals.format(getPercentile(percentile)) + "\n");
+        }
+        System.out.format("%30s : %s", "Interquartile range",
+                          fourDecimals.format(getInterquartileRange()) + "\n");
+        System.out.format("%30s : %s", "Trimmed mean " + TRIM_PROPORTION * 100 + "%",
+                          fourDecimals.format(getTrimmedMean(TRIM_PROPORTION)) + "\n");
+        System.out.format("%30s : %s", "Winsorized mean " + TRIM_PROPORTION * 100 + "%",
+                          fourDecimals.format(getWinsorizedMean(TRIM_PROPORTION)) + "\n");
+        System.out.format("%30s : %s", "Outliers (Tukey)",
+                          zeroDecimals.format(countOutliers(new TukeyOutlierDetector())) + "\n");
+        System.out.format("%30s : %s", "Outliers (MAD)",
+                          zeroDecimals.format(countOutliers(new MadOutlierDetector())) + "\n");
+
+        if(bootstrap != null) {
+            System.out.println("     -------- Bootstrap, " + bootstrap.getResamples() + " resamples ------------------");
+            printInterval("Mean", bootstrap.getMeanInterval(this, ConfidenceLevel.PERCENT_95), fourDecimals);
+            printInterval("Median", bootstrap.getMedianInterval(this, ConfidenceLevel.PERCENT_95), fourDecimals);
+            for(double percentile : bootstrap.getPercentiles()) {
+                printInterval("Percentile " + percentile * 100,
+                              bootstrap.getPercentileInterval(this, percentile, ConfidenceLevel.PERCENT_95),
+                              fourDecimals);
+            }
+        }
+
         System.out.println("*****************************************************************");
     }
+
+    private static void printInterval(String name, ConfidenceInterval interval, DecimalFormat format) {
+        System.out.format("%30s : %s", name,
+                          format.format(interval.getEstimate())
+                          + " [" + format.format(interval.getLower())
+                          + ", " + format.format(interval.getUpper()) + "]\n");
+    }
 }
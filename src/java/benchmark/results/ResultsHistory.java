@@ -0,0 +1,206 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes every dated run of a results folder, i.e. every 'yyyy-MM-dd' folder holding a 'raw' folder or a
+ * {@link LogArchive} of it named 'raw.archive', and finds significant changes between consecutive runs. The folder
+ * is used if there are both.
+ * <p>
+ * Each run is cached as a {@link ResultsSnapshot} named 'results.snapshot' next to its raw folder, so a run is only
+ * parsed again once a raw file, or the archive, is newer than its snapshot. Snapshots store the steady state data
+ * found by the detector in use when they were written; delete them to apply a different detector to old runs.
+ * Snapshots are replaced atomically, and a snapshot that can not be read is treated as missing.
+ */
+public class ResultsHistory {
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final String RAW_FOLDER = "raw";
+    private static final String ARCHIVE_NAME = "raw.archive";
+    private static final String SNAPSHOT_NAME = "results.snapshot";
+
+    /**
+     * One dated run and its results.
+     */
+    public static class Run {
+        private final String date;
+        private final ResultsManager manager;
+        private final boolean cached;
+
+        private Run(String date, ResultsManager manager, boolean cached) {
+            this.date = date;
+            this.manager = manager;
+            this.cached = cached;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        public ResultsManager getManager() {
+            return manager;
+        }
+
+        /**
+         * Checks if the run was loaded from its snapshot rather than parsed.
+         *
+         * @return True if the snapshot was used
+         */
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    private final List<Run> runs;
+
+    private ResultsHistory(List<Run> runs) {
+        this.runs = runs;
+    }
+
+    /**
+     * Loads every dated run in a folder, parsing only runs without an up to date snapshot.
+     *
+     * @param folder   The folder holding the dated runs, e.g. 'results'
+     * @param parser   The parser used for runs without an up to date snapshot
+     * @param detector Decides which iterations are recorded as steady state data when parsing
+     * @return The history, ordered by date
+     * @throws IOException If a run can not be parsed or its snapshot can not be read or written
+     */
+    public static ResultsHistory load(File folder, ResultsParser parser, SteadyStateDetector detector)
+            throws IOException {
+        var folders = folder.listFiles(f -> f.isDirectory()
+                                            && DATE_PATTERN.matcher(f.getName()).matches()
+                                            && (new File(f, RAW_FOLDER).isDirectory()
+                                                || new File(f, ARCHIVE_NAME).isFile()));
+        if(folders == null) {
+            throw new IOException("Provided folder is not a directory");
+        }
+        Arrays.sort(folders);
+
+        var runs = new ArrayList<Run>();
+        for(File runFolder : folders) {
+            var raw = new File(runFolder, RAW_FOLDER);
+            var archived = !raw.isDirectory();
+            if(archived) {
+                raw = new File(runFolder, ARCHIVE_NAME);
+            }
+            var snapshot = new File(runFolder, SNAPSHOT_NAME);
+            var manager = new ResultsManager();
+            var cached = snapshot.isFile()
+                         && snapshot.lastModified() >= getLastModified(raw)
+                         && loadSnapshot(manager, snapshot);
+
+            if(!cached) {
+                if(archived) {
+                    parser.parseArchive(manager, raw, detector);
+                } else {
+                    parser.parseFolder(manager, raw, detector);
+                }
+                writeSnapshot(manager, snapshot);
+            }
+
+            runs.add(new Run(runFolder.getName(), manager, cached));
+        }
+
+        return new ResultsHistory(runs);
+    }
+
+    /**
+     * Loads a snapshot, unless it can not be read, e.g. because writing it was interrupted by an earlier version.
+     *
+     * @param manager  The manager to load the snapshot into, left untouched if it can not be read
+     * @param snapshot The snapshot file
+     * @return True if the snapshot was loaded
+     */
+    private static boolean loadSnapshot(ResultsManager manager, File snapshot) {
+        ResultsSnapshot opened;
+        try {
+            opened = ResultsSnapshot.open(snapshot);
+        } catch(IOException e) {
+            System.err.println(snapshot + " can not be read, parsing the run again: " + e.getMessage());
+            return false;
+        }
+        opened.loadInto(manager);
+        return true;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file first and then moves it in place, so an interrupted write never leaves a
+     * truncated snapshot newer than the raw files.
+     */
+    private static void writeSnapshot(ResultsManager manager, File snapshot) throws IOException {
+        var temporary = new File(snapshot.getAbsolutePath() + ".tmp");
+        ResultsSnapshot.write(manager, temporary);
+        Files.move(temporary.toPath(), snapshot.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long getLastModified(File folder) {
+        var lastModified = folder.lastModified();
+        var files = folder.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                lastModified = Math.max(lastModified, file.lastModified());
+            }
+        }
+
+        return lastModified;
+    }
+
+    /**
+     * Gets all runs.
+     *
+     * @return The runs, ordered by date
+     */
+    public List<Run> getRuns() {
+        return Collections.unmodifiableList(runs);
+    }
+
+    /**
+     * Compares every run with the run before it, for every {@link Benchmark}, {@link JVM} and specified
+     * {@link MeasurementType} present in both. The p-values of each pair of runs are corrected together, so a
+     * change is only reported if it is significant among all keys compared.
+     *
+     * @param confidenceLevel The confidence level a change must be significant at
+     * @param types           The types of data to compare
+     * @return The report
+     */
+    public RegressionReport detectChanges(ConfidenceLevel confidenceLevel, MeasurementType... types) {
+        var engine = new ComparisonEngine(confidenceLevel);
+        var report = new RegressionReport(confidenceLevel);
+
+        for(int i = 1; i < runs.size(); i++) {
+            var previous = runs.get(i - 1);
+            var current = runs.get(i);
+            var comparisons = new ArrayList<Comparison>();
+
+            for(MeasurementType type : types) {
+                for(Results currentResults : current.getManager().getResults(type)) {
+                    var previousResults = previous.getManager().findResults(currentResults.getBenchmark(),
+                                                                            currentResults.getJvm(),
+                                                                            type);
+                    if(previousResults != null && previousResults.getSize() > 1 && currentResults.getSize() > 1) {
+                        comparisons.add(engine.compare(currentResults, previousResults));
+                    }
+                }
+            }
+
+            ComparisonEngine.adjust(comparisons);
+            report.add(previous.getDate(), current.getDate(), comparisons);
+        }
+
+        return report;
+    }
+}
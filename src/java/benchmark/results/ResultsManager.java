@@ -8,57 +8,70 @@ import benchmark.MeasurementType;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 /**
  * A class meant for storing and retrieving multiple {@link Results}.
+ * {@link Results} objects may be created concurrently, e.g. by a {@link ResultsParser} parsing several files in parallel.
+ * <p>
+ * The {@link Results} are stored in one dense array indexed by the ordinals of the {@link Benchmark}, {@link JVM} and
+ * {@link MeasurementType}, in that order of significance. Lookups allocate nothing and take no lock, and a missing
+ * {@link Results} is created with a compare-and-set so that concurrent callers always receive the same object.
+ * <p>
+ * A manager created with a sketch precision creates sketched {@link Results}, see
+ * {@link Results#Results(Benchmark, JVM, MeasurementType, int)}, and is meant for aggregating other managers via
+ * {@link #merge(ResultsManager)} in bounded memory.
+ * <p>
+ * Next to the timings, every {@link Benchmark} and {@link JVM} may hold {@link Results} of
+ * {@link MeasurementType#APPLICATION_METRIC} type for any number of {@link Metric}s found by a
+ * {@link MetricExtractor}. They are saved in the TOML summary and in a {@link ResultsSnapshot}.
  */
 public class ResultsManager {
-    private static class ResultsKey implements Comparable<ResultsKey> {
-        Benchmark benchmark;
-        JVM jvm;
-        MeasurementType type;
+    private static final Benchmark[] BENCHMARKS = Benchmark.values();
+    private static final JVM[] JVMS = JVM.values();
+    private static final MeasurementType[] TYPES = MeasurementType.values();
 
-        ResultsKey(Benchmark benchmark, JVM jvm, MeasurementType type) {
-            this.benchmark = benchmark;
-            this.jvm = jvm;
-            this.type = type;
-        }
-
-        @Override
-        public int hashCode() {
-            return benchmark.hashCode() + jvm.hashCode() + type.hashCode();
-        }
+    private final AtomicReferenceArray<Results> store =
+            new AtomicReferenceArray<>(BENCHMARKS.length * JVMS.length * TYPES.length);
+    private final AtomicReferenceArray<Map<Metric, Results>> metrics =
+            new AtomicReferenceArray<>(BENCHMARKS.length * JVMS.length);
+    private final int sketchPrecision;
 
-        @Override
-        public boolean equals(Object obj) {
-            if(obj instanceof ResultsKey) {
-                ResultsKey other = (ResultsKey) obj;
-
-                return benchmark.equals(other.benchmark) && jvm.equals(other.jvm) && type.equals(other.type);
-            }
+    /**
+     * Creates a manager keeping every value of its {@link Results}.
+     */
+    public ResultsManager() {
+        this.sketchPrecision = 0;
+    }
 
-            return false;
+    /**
+     * Creates a manager keeping a sketch of the values of its {@link Results}.
+     *
+     * @param sketchPrecision The precision of the sketches, between 1 and 20 bits
+     */
+    public ResultsManager(int sketchPrecision) {
+        if(sketchPrecision < 1) {
+            throw new IllegalArgumentException("The sketch precision must be at least 1 bit");
         }
 
-        @Override
-        public int compareTo(ResultsKey other) {
-            if(benchmark.compareTo(other.benchmark) == 0) {
-                if(jvm.compareTo(other.jvm) == 0) {
-                    return type.compareTo(other.type);
-                }
-                return jvm.compareTo(other.jvm);
-            }
-            return benchmark.compareTo(other.benchmark);
-        }
+        this.sketchPrecision = sketchPrecision;
     }
 
-    private Map<ResultsKey, Results> resultsMap = new TreeMap<>();
+    private static int index(Benchmark benchmark, JVM jvm, MeasurementType type) {
+        return (benchmark.ordinal() * JVMS.length + jvm.ordinal()) * TYPES.length + type.ordinal();
+    }
 
     /**
      * Returns a {@link Results} object that can be used for storing or retrieving benchmark measurments.
@@ -71,22 +84,182 @@ public class ResultsManager {
      * @return The results object
      */
     public Results getResults(Benchmark benchmark, JVM jvm, MeasurementType type) {
-        var key = new ResultsKey(benchmark, jvm, type);
-        var results = resultsMap.get(key);
+        var index = index(benchmark, jvm, type);
+        var results = store.get(index);
 
         if(results == null) {
-            results = new Results(benchmark, jvm, type);
-            resultsMap.put(key, results);
+            var created = sketchPrecision == 0
+                          ? new Results(benchmark, jvm, type)
+                          : new Results(benchmark, jvm, type, sketchPrecision);
+            results = store.compareAndExchange(index, null, created);
+            if(results == null) {
+                results = created;
+            }
         }
 
         return results;
     }
 
+    /**
+     * Returns the {@link Results} object stored for the given key tuple without creating one.
+     *
+     * @param benchmark The benchmark to be used as a key
+     * @param jvm       The JVM to be used as a key
+     * @param type      The type of the data
+     * @return The results object or null if none exists
+     */
+    public Results findResults(Benchmark benchmark, JVM jvm, MeasurementType type) {
+        return store.get(index(benchmark, jvm, type));
+    }
+
+    /**
+     * Returns the {@link Results} of a {@link Metric}, creating it if it does not yet exist.
+     *
+     * @param benchmark The benchmark to be used as a key
+     * @param jvm       The JVM to be used as a key
+     * @param metric    The metric
+     * @return The results object, of type {@link MeasurementType#APPLICATION_METRIC}
+     */
+    public Results getMetricResults(Benchmark benchmark, JVM jvm, Metric metric) {
+        var index = benchmark.ordinal() * JVMS.length + jvm.ordinal();
+        var cell = metrics.get(index);
+        if(cell == null) {
+            metrics.compareAndSet(index, null, new ConcurrentHashMap<>());
+            cell = metrics.get(index);
+        }
+
+        return cell.computeIfAbsent(metric, key -> sketchPrecision == 0
+                                                   ? new Results(benchmark, jvm, MeasurementType.APPLICATION_METRIC)
+                                                   : new Results(benchmark,
+                                                                 jvm,
+                                                                 MeasurementType.APPLICATION_METRIC,
+                                                                 sketchPrecision));
+    }
+
+    /**
+     * Returns the existing {@link Results} of every {@link Metric} of one {@link Benchmark} and {@link JVM}.
+     *
+     * @param benchmark The benchmark
+     * @param jvm       The JVM
+     * @return The results by metric, ordered by metric id
+     */
+    public Map<Metric, Results> getMetricResults(Benchmark benchmark, JVM jvm) {
+        var sorted = new LinkedHashMap<Metric, Results>();
+        var cell = metrics.get(benchmark.ordinal() * JVMS.length + jvm.ordinal());
+        if(cell != null) {
+            cell.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(Metric::getId)))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Returns the existing {@link Results} of every {@link JVM} for one {@link Benchmark}.
+     *
+     * @param benchmark The benchmark
+     * @param type      The type of the data
+     * @return The results, in the order of {@link JVM#values()}
+     */
+    public List<Results> getResults(Benchmark benchmark, MeasurementType type) {
+        var slice = new ArrayList<Results>(JVMS.length);
+        var index = index(benchmark, JVMS[0], type);
+
+        for(int i = 0; i < JVMS.length; i++, index += TYPES.length) {
+            addIfPresent(slice, index);
+        }
+
+        return slice;
+    }
+
+    /**
+     * Returns the existing {@link Results} of every {@link Benchmark} for one {@link JVM}.
+     *
+     * @param jvm  The JVM
+     * @param type The type of the data
+     * @return The results, in the order of {@link Benchmark#values()}
+     */
+    public List<Results> getResults(JVM jvm, MeasurementType type) {
+        var slice = new ArrayList<Results>(BENCHMARKS.length);
+        var index = index(BENCHMARKS[0], jvm, type);
+
+        for(int i = 0; i < BENCHMARKS.length; i++, index += JVMS.length * TYPES.length) {
+            addIfPresent(slice, index);
+        }
+
+        return slice;
+    }
+
+    /**
+     * Returns the existing {@link Results} of one {@link MeasurementType} for every {@link Benchmark} and {@link JVM}.
+     *
+     * @param type The type of the data
+     * @return The results, ordered by benchmark and then JVM
+     */
+    public List<Results> getResults(MeasurementType type) {
+        var slice = new ArrayList<Results>();
+
+        for(int index = type.ordinal(); index < store.length(); index += TYPES.length) {
+            addIfPresent(slice, index);
+        }
+
+        return slice;
+    }
+
+    private void addIfPresent(List<Results> slice, int index) {
+        var results = store.get(index);
+        if(results != null) {
+            slice.add(results);
+        }
+    }
+
+    private List<Results> getAllResultsList() {
+        var all = new ArrayList<Results>();
+
+        for(int index = 0; index < store.length(); index++) {
+            addIfPresent(all, index);
+        }
+
+        return all;
+    }
+
+    /**
+     * Adds the data of every {@link Results} of another manager to the {@link Results} with the same key tuple in this
+     * manager, see {@link Results#merge(Results)}. Every target {@link Results} is locked while data is added to it,
+     * as a {@link ResultsParser} does, so that managers can be merged into one that is being read or parsed into.
+     *
+     * @param other The manager to merge
+     */
+    public void merge(ResultsManager other) {
+        for(int index = 0; index < store.length(); index++) {
+            var results = other.store.get(index);
+            if(results != null) {
+                var target = getResults(results.getBenchmark(), results.getJvm(), results.getType());
+                synchronized(target) {
+                    target.merge(results);
+                }
+            }
+        }
+
+        for(Benchmark benchmark : BENCHMARKS) {
+            for(JVM jvm : JVMS) {
+                for(Map.Entry<Metric, Results> entry : other.getMetricResults(benchmark, jvm).entrySet()) {
+                    var target = getMetricResults(benchmark, jvm, entry.getKey());
+                    synchronized(target) {
+                        target.merge(entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Calls {@link Results#prettyPrint()} on all {@link Results} stored in this object.
      */
     public void prettyPrintAll() {
-        resultsMap.values().forEach(Results::prettyPrint);
+        getAllResultsList().forEach(Results::prettyPrint);
     }
 
     /**
@@ -95,20 +268,236 @@ public class ResultsManager {
      * @return An iterator over all items
      */
     public Iterator<Results> getAllResults() {
-        return resultsMap.values().iterator();
+        return getAllResultsList().iterator();
+    }
+
+    /**
+     * Derives {@link MeasurementType#TIME_TO_PEAK} and {@link MeasurementType#WARMUP_AREA} data from the
+     * {@link MeasurementType#WARMUP_CURVE} data of every {@link Benchmark} and {@link JVM}, replacing any
+     * previously derived data.
+     *
+     * @param tolerance      The tolerance passed to {@link WarmupCurve#getTimeToPeak(double)}
+     * @param areaIterations The number of iterations passed to {@link WarmupCurve#getAreaUnderCurve(int)}
+     */
+    public void addWarmupResults(double tolerance, int areaIterations) {
+        for(WarmupCurve curve : getWarmupCurves()) {
+            var timeToPeak = curve.getTimeToPeak(tolerance);
+            var area = curve.getAreaUnderCurve(areaIterations);
+
+            store.set(index(curve.getBenchmark(), curve.getJvm(), timeToPeak.getType()), timeToPeak);
+            store.set(index(curve.getBenchmark(), curve.getJvm(), area.getType()), area);
+        }
+    }
+
+    /**
+     * Creates a {@link WarmupCurve} for every {@link Results} of type {@link MeasurementType#WARMUP_CURVE}.
+     *
+     * @return The warmup curves
+     */
+    public List<WarmupCurve> getWarmupCurves() {
+        return getResults(MeasurementType.WARMUP_CURVE).stream().map(WarmupCurve::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Saves the mean curve of every {@link WarmupCurve} as a CSV file named 'BENCHMARK.JVM.csv'.
+     *
+     * @param folder          The folder to save the files in
+     * @param confidenceLevel The confidence level of the confidence bands
+     * @throws IOException If an error occurs while writing a file
+     */
+    public void saveWarmupCurves(File folder, ConfidenceLevel confidenceLevel) throws IOException {
+        if(!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+
+        for(WarmupCurve curve : getWarmupCurves()) {
+            curve.saveAsCsv(new File(folder, curve.getBenchmark() + "." + curve.getJvm() + ".csv"), confidenceLevel);
+        }
+    }
+
+    /**
+     * Saves a memory-versus-throughput table as CSV, one row per {@link Benchmark} and {@link JVM} with
+     * {@link MeasurementType#STEADY_STATE} data. Memory figures only include the steady state iterations, and are -1
+     * if they were not recorded.
+     *
+     * @param file            The file to write
+     * @param confidenceLevel The confidence level of the margins of error
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveTradeoffTable(File file, ConfidenceLevel confidenceLevel) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            writer.write("benchmark,jvm,time_mean,time_error,iterations_per_second,"
+                         + "peak_rss_mean,peak_rss_error,heap_after_gc_mean,heap_after_gc_error\n");
+
+            for(Results steady : getResults(MeasurementType.STEADY_STATE)) {
+                if(steady.getSize() == 0) {
+                    continue;
+                }
+
+                var rss = getSteadyStateSubset(steady, MeasurementType.PEAK_RSS);
+                var heap = getSteadyStateSubset(steady, MeasurementType.HEAP_AFTER_GC);
+
+                writer.write(steady.getBenchmark() + ","
+                             + steady.getJvm() + ","
+                             + steady.getMean() + ","
+                             + steady.getMarginOfError(confidenceLevel) + ","
+                             + 1000 / steady.getMean() + ","
+                             + rss.getMean() + ","
+                             + (rss.getSize() == 0 ? -1 : rss.getMarginOfError(confidenceLevel)) + ","
+                             + heap.getMean() + ","
+                             + (heap.getSize() == 0 ? -1 : heap.getMarginOfError(confidenceLevel)) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Saves a plan for the next campaign as CSV, one row per {@link Benchmark} and {@link JVM} with
+     * {@link MeasurementType#STEADY_STATE} data holding both {@link VarianceComponents}. The plan spends the time of
+     * the current campaign, i.e. the sum of its {@link MeasurementType#WARMUP_CURVE} data, on the split between
+     * invocations and steady state iterations recommended by {@link VarianceComponents#recommendSplit}. The cost of
+     * an invocation is the mean time of its warmup iterations, as the time to start the JVM is not logged.
+     *
+     * @param file            The file to write
+     * @param confidenceLevel The confidence level of the margins of error
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveCampaignPlan(File file, ConfidenceLevel confidenceLevel) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            writer.write("benchmark,jvm,invocations,iterations,error,icc,"
+                         + "planned_invocations,planned_iterations,planned_error\n");
+
+            for(Results steady : getResults(MeasurementType.STEADY_STATE)) {
+                var curve = findResults(steady.getBenchmark(), steady.getJvm(), MeasurementType.WARMUP_CURVE);
+                if(steady.isSketched() || curve == null || curve.getSize() == 0) {
+                    continue;
+                }
+
+                var components = steady.getVarianceComponents();
+                if(!components.isHierarchical()) {
+                    continue;
+                }
+
+                var budget = curve.getMean() * curve.getSize();
+                var invocationCost = (budget - steady.getMean() * steady.getSize()) / components.getInvocations();
+                var split = components.recommendSplit(invocationCost, steady.getMean(), budget, confidenceLevel);
+                if(split == null) {
+                    continue;
+                }
+
+                writer.write(steady.getBenchmark() + ","
+                             + steady.getJvm() + ","
+                             + components.getInvocations() + ","
+                             + components.getIterationsPerInvocation() + ","
+                             + components.getMarginOfError(confidenceLevel) + ","
+                             + components.getIntraclassCorrelation() + ","
+                             + split.getInvocations() + ","
+                             + split.getIterations() + ","
+                             + split.getMarginOfError() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Saves every value flagged by an {@link OutlierDetector} as CSV, one row per outlier with the invocation and
+     * iteration it was measured in and the fences it fell outside of. The outliers remain part of the {@link Results}.
+     * Sketched {@link Results} are skipped, as they do not keep individual values.
+     *
+     * @param file     The file to write
+     * @param detector Decides which values are outliers
+     * @param types    The types of data to search for outliers
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveOutliers(File file, OutlierDetector detector, MeasurementType... types) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            writer.write("benchmark,jvm,type,detector,invocation,iteration,value,lower_fence,upper_fence\n");
+
+            for(MeasurementType type : types) {
+                for(Results results : getResults(type)) {
+                    if(results.isSketched()) {
+                        continue;
+                    }
+
+                    var outliers = results.findOutliers(detector);
+                    if(outliers.length == 0) {
+                        continue;
+                    }
+
+                    var lower = detector.getLowerFence(results);
+                    var upper = detector.getUpperFence(results);
+                    for(int index : outliers) {
+                        writer.write(results.getBenchmark() + ","
+                                     + results.getJvm() + ","
+                                     + type + ","
+                                     + detector.getName() + ","
+                                     + results.getInvocation(index) + ","
+                                     + results.getIteration(index) + ","
+                                     + results.getData(index) + ","
+                                     + lower + ","
+                                     + upper + "\n");
+                    }
+                }
+            }
+        }
+    }
+
+    private Results getSteadyStateSubset(Results steady, MeasurementType type) {
+        var source = findResults(steady.getBenchmark(), steady.getJvm(), type);
+        if(source == null) {
+            return new Results(steady.getBenchmark(), steady.getJvm(), type);
+        }
+
+        return getSteadyStateSubset(steady, source);
+    }
+
+    private static Results getSteadyStateSubset(Results steady, Results source) {
+        var subset = new Results(steady.getBenchmark(), steady.getJvm(), source.getType());
+
+        var steadyIterations = new HashSet<Long>();
+        for(int i = 0; i < steady.getSize(); i++) {
+            steadyIterations.add((long) steady.getInvocation(i) << 32 | steady.getIteration(i));
+        }
+
+        for(int i = 0; i < source.getSize(); i++) {
+            if(steadyIterations.contains((long) source.getInvocation(i) << 32 | source.getIteration(i))) {
+                subset.addData(source.getData(i), source.getInvocation(i), source.getIteration(i));
+            }
+        }
+
+        return subset;
     }
 
     public void saveAsToml(File file, ConfidenceLevel confidenceLevel, boolean onlySteadyState) throws IOException {
+        saveAsToml(file, confidenceLevel, onlySteadyState, null);
+    }
+
+    /**
+     * Saves a summary of all {@link Results} as TOML, one table per {@link Benchmark}, {@link JVM} and
+     * {@link MeasurementType}. If a {@link Bootstrap} is provided, bootstrap confidence intervals for the mean,
+     * the median and the percentiles of the {@link Bootstrap} are saved next to the normal margin of error.
+     * Percentiles, robust estimators and the number of outliers flagged by Tukey's fences and by the MAD are always
+     * saved, as are the {@link VarianceComponents} of data measured in more than one invocation. The 'error' key keeps
+     * treating every value as independent, while 'invocation_error' is based on the invocation means.
+     * <p>
+     * Every {@link Metric} is saved as a 'BENCHMARK.JVM.APPLICATION_METRIC.metric_id' table summarizing its steady
+     * state iterations.
+     *
+     * @param file            The file to write
+     * @param confidenceLevel The confidence level to calculate for
+     * @param onlySteadyState True if only {@link MeasurementType#STEADY_STATE} results should be saved
+     * @param bootstrap       The bootstrap used for additional intervals, or null
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveAsToml(File file,
+                           ConfidenceLevel confidenceLevel,
+                           boolean onlySteadyState,
+                           Bootstrap bootstrap) throws IOException {
         var writer = new FileWriter(file);
         Collection<Results> resultsCollection;
 
         if(onlySteadyState) {
-            resultsCollection = resultsMap.values()
-                                          .stream()
-                                          .filter(r -> r.getType() == MeasurementType.STEADY_STATE)
-                                          .collect(Collectors.toList());
+            resultsCollection = getResults(MeasurementType.STEADY_STATE);
         } else {
-            resultsCollection = resultsMap.values();
+            resultsCollection = getAllResultsList();
         }
 
         for(Results results : resultsCollection) {
@@ -120,9 +509,78 @@ public class ResultsManager {
             writer.write("min = " + results.getMin() + "\n");
             writer.write("confidence_level = \"" + confidenceLevel.getName() + "\"\n");
             writer.write("error = " + results.getMarginOfError(confidenceLevel) + "\n");
+            for(double percentile : Results.ROBUST_PERCENTILES) {
+                writer.write(getPercentileName(percentile) + " = " + results.getPercentile(percentile) + "\n");
+            }
+            writer.write("iqr = " + results.getInterquartileRange() + "\n");
+            writer.write("mad = " + results.getMedianAbsoluteDeviation() + "\n");
+            writer.write("trimmed_mean = " + results.getTrimmedMean(Results.TRIM_PROPORTION) + "\n");
+            writer.write("winsorized_mean = " + results.getWinsorizedMean(Results.TRIM_PROPORTION) + "\n");
+            writer.write("outliers_tukey = " + results.countOutliers(new TukeyOutlierDetector()) + "\n");
+            writer.write("outliers_mad = " + results.countOutliers(new MadOutlierDetector()) + "\n");
+
+            var components = results.isSketched() ? null : results.getVarianceComponents();
+            if(components != null && components.isHierarchical()) {
+                writer.write("invocations = " + components.getInvocations() + "\n");
+                writer.write("between_variance = " + components.getBetweenVariance() + "\n");
+                writer.write("within_variance = " + components.getWithinVariance() + "\n");
+                writer.write("icc = " + components.getIntraclassCorrelation() + "\n");
+                writer.write("invocation_error = " + components.getMarginOfError(confidenceLevel) + "\n");
+            }
+
+            if(bootstrap != null) {
+                writer.write("bootstrap_resamples = " + bootstrap.getResamples() + "\n");
+                writeInterval(writer, "mean", bootstrap.getMeanInterval(results, confidenceLevel));
+                writeInterval(writer, "median", bootstrap.getMedianInterval(results, confidenceLevel));
+                for(double percentile : bootstrap.getPercentiles()) {
+                    writeInterval(writer,
+                                  getPercentileName(percentile),
+                                  bootstrap.getPercentileInterval(results, percentile, confidenceLevel));
+                }
+            }
+
             writer.write("\n");
         }
 
+        // Like the memory figures of the tradeoff table, application metrics only include the steady state iterations
+        for(Results steady : getResults(MeasurementType.STEADY_STATE)) {
+            if(steady.isSketched()) {
+                continue;
+            }
+
+            for(Map.Entry<Metric, Results> entry : getMetricResults(steady.getBenchmark(), steady.getJvm()).entrySet()) {
+                var metric = entry.getKey();
+                var results = getSteadyStateSubset(steady, entry.getValue());
+                if(results.getSize() == 0) {
+                    continue;
+                }
+
+                writer.write("[" + steady.getBenchmark() + "." + steady.getJvm() + "."
+                             + MeasurementType.APPLICATION_METRIC + "." + metric.getId() + "]\n");
+                writer.write("name = \"" + metric.getName() + "\"\n");
+                writer.write("unit = \"" + metric.getUnit() + "\"\n");
+                writer.write("size = " + results.getSize() + "\n");
+                writer.write("mean = " + results.getMean() + "\n");
+                writer.write("median = " + results.getMedian() + "\n");
+                writer.write("max = " + results.getMax() + "\n");
+                writer.write("min = " + results.getMin() + "\n");
+                writer.write("confidence_level = \"" + confidenceLevel.getName() + "\"\n");
+                writer.write("error = " + results.getMarginOfError(confidenceLevel) + "\n");
+                writer.write("\n");
+            }
+        }
+
         writer.close();
     }
+
+    private static void writeInterval(FileWriter writer, String name, ConfidenceInterval interval) throws IOException {
+        writer.write("bootstrap_" + name + " = " + interval.getEstimate() + "\n");
+        writer.write("bootstrap_" + name + "_lower = " + interval.getLower() + "\n");
+        writer.write("bootstrap_" + name + "_upper = " + interval.getUpper() + "\n");
+    }
+
+    private static String getPercentileName(double percentile) {
+        var name = new BigDecimal(String.valueOf(percentile * 100)).stripTrailingZeros().toPlainString();
+        return "p" + name.replace('.', '_');
+    }
 }
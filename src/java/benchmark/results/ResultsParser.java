@@ -2,112 +2,271 @@ package benchmark.results;
 
 import benchmark.Benchmark;
 import benchmark.JVM;
-import benchmark.MeasurementType;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class is only meant to parse files populated with output from the DaCapo suite.
  * The files must also be tagged with '#JVM jvm_name' and '#BENCHMARK benchmark_name'
  * where 'jvm_name' and 'benchmark_name' generates a result when inserted into
- * {@link JVM#getJVM(String)} or {@link Benchmark#getBenchmark(String)} respectively.
+ * {@link JVM#getJVM(String)} or {@link Benchmark#getBenchmark(String)} respectively, i.e. are listed in the
+ * {@link benchmark.Registry}.
+ * <p>
+ * Files are memory-mapped and scanned once, and the files of a folder are parsed in parallel. A {@link LogArchive} of
+ * such files is parsed the same way, inflating each block as it is scanned.
  */
 public class ResultsParser {
+    private static final long MAX_MAPPING_SIZE = 1 << 30;
+
+    private final int threads;
+
+    /**
+     * Creates a new {@link ResultsParser} using one thread per available processor.
+     */
+    public ResultsParser() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new {@link ResultsParser} using the specified number of threads when parsing folders.
+     *
+     * @param threads The number of threads
+     */
+    public ResultsParser(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+
+        this.threads = threads;
+    }
+
     /**
      * Parses all files located in the provided folder and stores the data in the provided {@link ResultsManager}.
      *
-     * @param manager The {@link ResultsManager} where results should be stored
-     * @param folder  The root folder
+     * @param manager          The {@link ResultsManager} where results should be stored
+     * @param folder           The root folder
      * @param warmupIterations The number of iterations to be discarded when recording steady state data
+     * @return The throughput reached while parsing
      * @throws IOException If an error occurs while reading the file
      */
-    public void parseFolder(ResultsManager manager, File folder, int warmupIterations) throws IOException {
+    public ParseStatistics parseFolder(ResultsManager manager, File folder, int warmupIterations) throws IOException {
+        return parseFolder(manager, folder, SteadyStateDetector.fixed(warmupIterations));
+    }
+
+    /**
+     * Parses all files located in the provided folder and stores the data in the provided {@link ResultsManager}.
+     *
+     * @param manager  The {@link ResultsManager} where results should be stored
+     * @param folder   The root folder
+     * @param detector Decides which iterations of an invocation are recorded as steady state data
+     * @return The throughput reached while parsing
+     * @throws IOException If an error occurs while reading the file
+     */
+    public ParseStatistics parseFolder(ResultsManager manager,
+                                       File folder,
+                                       SteadyStateDetector detector) throws IOException {
         if(folder == null || !folder.isDirectory()) {
             throw new IOException("Provided folder is not a directory");
         }
 
+        var start = System.nanoTime();
         var files = folder.listFiles();
-        if(files != null) {
+        if(files == null || files.length == 0) {
+            return new ParseStatistics(0, 0, System.nanoTime() - start);
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.min(threads, files.length));
+        var futures = new ArrayList<Future<?>>();
+        long bytes = 0;
+
+        try {
             for(File file : files) {
-                parseFile(manager, file, warmupIterations);
+                futures.add(executor.submit(() -> {
+                    parseFile(manager, file, detector);
+                    return null;
+                }));
+                bytes += file.length();
             }
+
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + folder.getAbsolutePath(), e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to parse " + folder.getAbsolutePath(), e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
+
+        return new ParseStatistics(files.length, bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Parses every invocation of a {@link LogArchive} and stores the data in the provided {@link ResultsManager}.
+     *
+     * @param manager  The {@link ResultsManager} where results should be stored
+     * @param file     The archive
+     * @param detector Decides which iterations of an invocation are recorded as steady state data
+     * @return The throughput reached while parsing, in logs and inflated bytes
+     * @throws IOException If the archive can not be read or holds invalid data
+     */
+    public ParseStatistics parseArchive(ResultsManager manager,
+                                        File file,
+                                        SteadyStateDetector detector) throws IOException {
+        var archive = LogArchive.open(file);
+        return parseArchive(manager, archive, archive.getEntries(), detector);
+    }
+
+    /**
+     * Parses some invocations of a {@link LogArchive} and stores the data in the provided {@link ResultsManager}.
+     * Only the blocks of these invocations and the tags of their logs are inflated, and logs are parsed in parallel.
+     *
+     * @param manager     The {@link ResultsManager} where results should be stored
+     * @param archive     The archive
+     * @param invocations The invocations, e.g. those of one benchmark, in archive order
+     * @param detector    Decides which iterations of an invocation are recorded as steady state data
+     * @return The throughput reached while parsing, in logs and inflated bytes
+     * @throws IOException If the archive holds invalid data
+     */
+    public ParseStatistics parseArchive(ResultsManager manager,
+                                        LogArchive archive,
+                                        List<LogArchive.Entry> invocations,
+                                        SteadyStateDetector detector) throws IOException {
+        var start = System.nanoTime();
+        var logs = new LinkedHashMap<Integer, List<LogArchive.Entry>>();
+        long bytes = 0;
+        for(LogArchive.Entry entry : invocations) {
+            logs.computeIfAbsent(entry.getLog(), log -> new ArrayList<>()).add(entry);
+            bytes += entry.getSize();
+        }
+
+        if(logs.isEmpty()) {
+            return new ParseStatistics(0, 0, System.nanoTime() - start);
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.min(threads, logs.size()));
+        var futures = new ArrayList<Future<?>>();
+
+        try {
+            for(Map.Entry<Integer, List<LogArchive.Entry>> log : logs.entrySet()) {
+                futures.add(executor.submit(() -> {
+                    var source = archive.getSource(log.getKey());
+                    try(var stream = new ParsingOutputStream(new LogScanner(manager, source, detector))) {
+                        archive.inflate(log.getKey(), log.getValue(), stream);
+                    }
+                    return null;
+                }));
+            }
+
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + archive.getFile().getAbsolutePath(), e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to parse " + archive.getFile().getAbsolutePath(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new ParseStatistics(logs.size(), bytes, System.nanoTime() - start);
     }
 
     /**
      * Parses a file and stores the data in the provided {@link ResultsManager}.
      *
-     * @param manager The {@link ResultsManager} where results should be stored
-     * @param file    The file
+     * @param manager          The {@link ResultsManager} where results should be stored
+     * @param file             The file
      * @param warmupIterations The number of iterations to be discarded when recording steady state data
      * @throws IOException If an error occurs while reading the file
      */
     public void parseFile(ResultsManager manager, File file, int warmupIterations) throws IOException {
+        parseFile(manager, file, SteadyStateDetector.fixed(warmupIterations));
+    }
+
+    /**
+     * Parses a file and stores the data in the provided {@link ResultsManager}.
+     *
+     * @param manager  The {@link ResultsManager} where results should be stored
+     * @param file     The file
+     * @param detector Decides which iterations of an invocation are recorded as steady state data
+     * @throws IOException If an error occurs while reading the file
+     */
+    public void parseFile(ResultsManager manager, File file, SteadyStateDetector detector) throws IOException {
         if(file == null || !file.isFile()) {
             throw new IOException("Provided file is not valid");
         }
 
-        var reader = new BufferedReader(new FileReader(file));
-        var lines = new ArrayList<String>();
+        var scanner = new LogScanner(manager, file.getAbsolutePath(), detector);
 
-        while(reader.ready()) {
-            lines.add(reader.readLine());
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            scanChannel(channel, 0, channel.size(), scanner, true);
         }
 
-        var jvm = JVM.getJVM(getValue(lines, "#JVM"));
-        if(jvm == null) {
-            throw new IOException("JVM specified in " + file.getAbsolutePath() + " not defined");
-        }
-
-        var benchmark = Benchmark.getBenchmark(getValue(lines, "#BENCHMARK"));
-        if(benchmark == null) {
-            throw new IOException("Benchmark specified in " + file.getAbsolutePath() + " not defined");
-        }
-
-        populateResults(lines,
-                        manager.getResults(benchmark, jvm, MeasurementType.STARTUP),
-                        manager.getResults(benchmark, jvm, MeasurementType.STEADY_STATE),
-                        warmupIterations);
-
-        reader.close();
+        scanner.finish();
     }
 
-    private String getValue(List<String> lines, String key) throws IOException {
-        for(String line : lines) {
-            if(line.startsWith(key)) {
-                return line.substring(key.length()).stripLeading();
-            }
-        }
-
-        throw new IOException("No value for key '" + key + "' found");
+    /**
+     * Opens a stream which parses everything written to it, in the same format as the files accepted by
+     * {@link #parseFile(ResultsManager, File, int)}. Data is stored in the provided {@link ResultsManager}
+     * every time an invocation ends, and once the stream is closed.
+     *
+     * @param manager  The {@link ResultsManager} where results should be stored
+     * @param source   A description of the input, used in error messages
+     * @param detector Decides which iterations of an invocation are recorded as steady state data
+     * @return The stream
+     */
+    public OutputStream openStream(ResultsManager manager, String source, SteadyStateDetector detector) {
+        return new ParsingOutputStream(new LogScanner(manager, source, detector));
     }
 
-    private void populateResults(List<String> lines,
-                                 Results startupResults,
-                                 Results steadyResults,
-                                 int warmupIterations) {
-        for(String line : lines) {
-            if(line.contains("PASSED")) {
-                var millis = Integer.parseInt(line.split("PASSED")[1].replaceAll("[\\D]", ""));
-                steadyResults.addData(millis);
-            } else if(line.contains("completed warmup")) {
-                var strings = line.split("completed warmup");
-                strings = strings[1].split(" in ");
-
-                var run = Integer.parseInt(strings[0].replaceAll("[\\D]", ""));
-                var millis = Integer.parseInt(strings[1].replaceAll("[\\D]", ""));
-                if(run == 1) {
-                    startupResults.addData(millis);
-                }
-                if(run > warmupIterations) {
-                    steadyResults.addData(millis);
+    /**
+     * Feeds the content of a channel between two offsets to a {@link LogScanner}, mapping it into memory
+     * in chunks of at most {@link #MAX_MAPPING_SIZE} bytes.
+     *
+     * @return The offset following the last line scanned
+     */
+    static long scanChannel(FileChannel channel,
+                            long position,
+                            long end,
+                            LogScanner scanner,
+                            boolean endOfInput) throws IOException {
+        while(position < end) {
+            var length = Math.min(end - position, MAX_MAPPING_SIZE);
+            var last = position + length == end;
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            var consumed = scanner.scan(buffer, last && endOfInput);
+
+            if(consumed == 0) {
+                if(last) {
+                    break;
                 }
+                throw new IOException("Line exceeding " + MAX_MAPPING_SIZE + " bytes found");
             }
+
+            position += consumed;
         }
+
+        return position;
     }
 }
@@ -0,0 +1,533 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+import benchmark.Registry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary, columnar snapshot of all raw data stored in a {@link ResultsManager}.
+ * <p>
+ * The file starts with a directory holding one entry per {@link Benchmark}, {@link JVM} and
+ * {@link MeasurementType} key, followed by three columns per entry: the measured values as doubles, and the
+ * iteration and the invocation of each value as ints. Columns are aligned to 8 bytes and stored in little endian
+ * order, so an opened snapshot exposes them as views of the memory-mapped file without copying.
+ * <p>
+ * From version 2, the directory is preceded by the name of the host the results were measured on, which is empty
+ * if unknown. From version 3, the directory also holds the {@link Results} of every {@link Metric}, whose entries
+ * of type {@link MeasurementType#APPLICATION_METRIC} are followed by the id, name and unit of their metric. Version
+ * 1 and 2 snapshots can still be opened.
+ * <p>
+ * From version 4, every entry states the precision of its sketch, or 0 if its values are kept. A sketched entry, see
+ * {@link Results#isSketched()}, has a single column holding the counters of its histogram as longs, and keeps the
+ * index of its first counter, its count of zeros and its exact moments in the directory. Version 3 snapshots can
+ * still be opened as well.
+ */
+public class ResultsSnapshot {
+    private static final int MAGIC = 0x4e534344; // "DCSN"
+    private static final int VERSION = 4;
+
+    /**
+     * A single {@link Benchmark}, {@link JVM} and {@link MeasurementType} key in a snapshot.
+     */
+    public static class Entry {
+        private final Benchmark benchmark;
+        private final JVM jvm;
+        private final MeasurementType type;
+        private final Metric metric;
+        private final DoubleBuffer values;
+        private final IntBuffer iterations;
+        private final IntBuffer invocations;
+        private final int sketchPrecision;
+        private final LongBuffer counts;
+        private final ByteBuffer sketchState;
+
+        private Entry(Benchmark benchmark,
+                      JVM jvm,
+                      MeasurementType type,
+                      Metric metric,
+                      DoubleBuffer values,
+                      IntBuffer iterations,
+                      IntBuffer invocations) {
+            this.benchmark = benchmark;
+            this.jvm = jvm;
+            this.type = type;
+            this.metric = metric;
+            this.values = values;
+            this.iterations = iterations;
+            this.invocations = invocations;
+            this.sketchPrecision = 0;
+            this.counts = null;
+            this.sketchState = null;
+        }
+
+        private Entry(Benchmark benchmark,
+                      JVM jvm,
+                      MeasurementType type,
+                      Metric metric,
+                      int sketchPrecision,
+                      LongBuffer counts,
+                      ByteBuffer sketchState) {
+            this.benchmark = benchmark;
+            this.jvm = jvm;
+            this.type = type;
+            this.metric = metric;
+            this.values = null;
+            this.iterations = null;
+            this.invocations = null;
+            this.sketchPrecision = sketchPrecision;
+            this.counts = counts;
+            this.sketchState = sketchState;
+        }
+
+        public Benchmark getBenchmark() {
+            return benchmark;
+        }
+
+        public JVM getJvm() {
+            return jvm;
+        }
+
+        public MeasurementType getType() {
+            return type;
+        }
+
+        /**
+         * Gets the metric of an entry of type {@link MeasurementType#APPLICATION_METRIC}.
+         *
+         * @return The metric or null for other types
+         */
+        public Metric getMetric() {
+            return metric;
+        }
+
+        public int getSize() {
+            return isSketched() ? readSketch().size() : values.limit();
+        }
+
+        /**
+         * Checks if this entry holds a sketch of the values rather than the values.
+         *
+         * @return True if sketched
+         */
+        public boolean isSketched() {
+            return sketchPrecision > 0;
+        }
+
+        /**
+         * Gets the precision of the sketch of this entry, see {@link Results#Results(Benchmark, JVM, MeasurementType,
+         * int)}.
+         *
+         * @return The precision, or 0 unless sketched
+         */
+        public int getSketchPrecision() {
+            return sketchPrecision;
+        }
+
+        /**
+         * Gets a read only view of the measured values, backed by the snapshot file.
+         *
+         * @return The values
+         * @throws UnsupportedOperationException If this entry is sketched
+         */
+        public DoubleBuffer getValues() {
+            checkNotSketched();
+            return values.duplicate();
+        }
+
+        /**
+         * Gets a read only view of the iteration of each value, backed by the snapshot file.
+         *
+         * @return The iterations
+         * @throws UnsupportedOperationException If this entry is sketched
+         */
+        public IntBuffer getIterations() {
+            checkNotSketched();
+            return iterations.duplicate();
+        }
+
+        /**
+         * Gets a read only view of the invocation of each value, backed by the snapshot file.
+         *
+         * @return The invocations
+         * @throws UnsupportedOperationException If this entry is sketched
+         */
+        public IntBuffer getInvocations() {
+            checkNotSketched();
+            return invocations.duplicate();
+        }
+
+        /**
+         * Copies the data of this entry into a new {@link Results}, which is sketched if this entry is.
+         *
+         * @return The results
+         */
+        public Results toResults() {
+            if(isSketched()) {
+                return new Results(benchmark, jvm, type, readSketch());
+            }
+
+            var results = new Results(benchmark, jvm, type);
+            copyInto(results);
+            return results;
+        }
+
+        private void copyInto(Results results) {
+            if(isSketched()) {
+                results.merge(toResults());
+                return;
+            }
+
+            for(int i = 0; i < values.limit(); i++) {
+                results.addData(values.get(i), invocations.get(i), iterations.get(i));
+            }
+        }
+
+        private QuantileSketch readSketch() {
+            return QuantileSketch.read(sketchPrecision, counts, sketchState.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        private void checkNotSketched() {
+            if(isSketched()) {
+                throw new UnsupportedOperationException("Sketched entries do not keep individual values");
+            }
+        }
+    }
+
+    private final String host;
+    private final List<Entry> entries;
+
+    private ResultsSnapshot(String host, List<Entry> entries) {
+        this.host = host;
+        this.entries = entries;
+    }
+
+    /**
+     * Gets the host the results of this snapshot were measured on.
+     *
+     * @return The host or null if unknown
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Gets all entries of this snapshot, in the order they were written.
+     *
+     * @return The entries
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Gets the precision of the sketched entries of this snapshot, which all share the precision of the manager they
+     * were written from.
+     *
+     * @return The precision, or 0 if no entry is sketched
+     */
+    public int getSketchPrecision() {
+        for(Entry entry : entries) {
+            if(entry.isSketched()) {
+                return entry.sketchPrecision;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Copies all entries of this snapshot into a new {@link ResultsManager}, which is sketched with the precision of
+     * the snapshot if its entries are sketched.
+     *
+     * @return The manager
+     */
+    public ResultsManager toManager() {
+        var precision = getSketchPrecision();
+        var manager = precision == 0 ? new ResultsManager() : new ResultsManager(precision);
+        loadInto(manager);
+        return manager;
+    }
+
+    /**
+     * Copies all entries of this snapshot into a {@link ResultsManager}.
+     *
+     * @param manager The {@link ResultsManager} where results should be stored
+     * @throws UnsupportedOperationException If an entry is sketched but the manager is not, see {@link #toManager()}
+     */
+    public void loadInto(ResultsManager manager) {
+        for(Entry entry : entries) {
+            var results = entry.metric == null
+                          ? manager.getResults(entry.benchmark, entry.jvm, entry.type)
+                          : manager.getMetricResults(entry.benchmark, entry.jvm, entry.metric);
+            synchronized(results) {
+                entry.copyInto(results);
+            }
+        }
+    }
+
+    /**
+     * Writes all {@link Results} stored in a {@link ResultsManager}, including those of its {@link Metric}s, to a
+     * snapshot file, without a host.
+     *
+     * @param manager The {@link ResultsManager} to save
+     * @param file    The file to write, any existing file is replaced
+     * @throws IOException If an error occurs while writing the file
+     */
+    public static void write(ResultsManager manager, File file) throws IOException {
+        write(manager, file, null);
+    }
+
+    /**
+     * Writes all {@link Results} stored in a {@link ResultsManager}, including those of its {@link Metric}s, to a
+     * snapshot file, tagged with the host they were measured on.
+     *
+     * @param manager The {@link ResultsManager} to save
+     * @param file    The file to write, any existing file is replaced
+     * @param host    The host or null if unknown
+     * @throws IOException If an error occurs while writing the file
+     */
+    public static void write(ResultsManager manager, File file, String host) throws IOException {
+        var hostName = (host == null ? "" : host).getBytes(StandardCharsets.UTF_8);
+        var resultsList = new ArrayList<Results>();
+        var names = new ArrayList<byte[][]>();
+        manager.getAllResults().forEachRemaining(results -> {
+            // Metric data is only kept per metric, any results of the metric type stored without one are empty
+            if(results.getType() != MeasurementType.APPLICATION_METRIC) {
+                resultsList.add(results);
+                names.add(encodeNames(results.getBenchmark().name(),
+                                      results.getJvm().name(),
+                                      results.getType().name()));
+            }
+        });
+        for(Benchmark benchmark : Benchmark.values()) {
+            for(JVM jvm : JVM.values()) {
+                for(Map.Entry<Metric, Results> entry : manager.getMetricResults(benchmark, jvm).entrySet()) {
+                    var metric = entry.getKey();
+                    resultsList.add(entry.getValue());
+                    names.add(encodeNames(benchmark.name(),
+                                          jvm.name(),
+                                          MeasurementType.APPLICATION_METRIC.name(),
+                                          metric.getId(),
+                                          metric.getName(),
+                                          metric.getUnit()));
+                }
+            }
+        }
+
+        long directorySize = 12 + 2 + hostName.length;
+        for(int i = 0; i < resultsList.size(); i++) {
+            for(byte[] name : names.get(i)) {
+                directorySize += 2 + name.length;
+            }
+            directorySize += resultsList.get(i).isSketched() ? 4 + 4 + 8 + QuantileSketch.STATE_SIZE : 4 + 4 + 3 * 8;
+        }
+
+        var offset = align(directorySize);
+        var directory = ByteBuffer.allocate((int) offset).order(ByteOrder.LITTLE_ENDIAN);
+        directory.putInt(MAGIC).putInt(VERSION).putShort((short) hostName.length).put(hostName);
+        directory.putInt(resultsList.size());
+
+        for(int i = 0; i < resultsList.size(); i++) {
+            var results = resultsList.get(i);
+            for(byte[] name : names.get(i)) {
+                directory.putShort((short) name.length).put(name);
+            }
+
+            var sketch = results.getSketch();
+            if(sketch != null) {
+                directory.putInt(sketch.getPrecision());
+                directory.putInt(sketch.getCounts().length);
+                directory.putLong(offset);
+                offset += 8L * sketch.getCounts().length;
+                sketch.writeState(directory);
+                continue;
+            }
+
+            var size = results.getSize();
+            directory.putInt(0);
+            directory.putInt(size);
+            directory.putLong(offset);
+            offset += align(8L * size);
+            directory.putLong(offset);
+            offset += align(4L * size);
+            directory.putLong(offset);
+            offset += align(4L * size);
+        }
+        directory.position(0);
+
+        try(var channel = FileChannel.open(file.toPath(),
+                                           StandardOpenOption.CREATE,
+                                           StandardOpenOption.TRUNCATE_EXISTING,
+                                           StandardOpenOption.WRITE)) {
+            writeFully(channel, directory);
+
+            for(Results results : resultsList) {
+                var sketch = results.getSketch();
+                if(sketch != null) {
+                    var column = ByteBuffer.allocate(8 * sketch.getCounts().length).order(ByteOrder.LITTLE_ENDIAN);
+                    column.asLongBuffer().put(sketch.getCounts());
+                    writeFully(channel, column);
+                    continue;
+                }
+
+                var size = results.getSize();
+                var column = ByteBuffer.allocate((int) align(8L * size)).order(ByteOrder.LITTLE_ENDIAN);
+                for(int i = 0; i < size; i++) {
+                    column.putDouble(8 * i, results.getData(i));
+                }
+                writeFully(channel, column);
+
+                column = ByteBuffer.allocate((int) align(4L * size)).order(ByteOrder.LITTLE_ENDIAN);
+                for(int i = 0; i < size; i++) {
+                    column.putInt(4 * i, results.getIteration(i));
+                }
+                writeFully(channel, column);
+
+                column.clear();
+                for(int i = 0; i < size; i++) {
+                    column.putInt(4 * i, results.getInvocation(i));
+                }
+                writeFully(channel, column);
+            }
+        }
+    }
+
+    /**
+     * Opens a snapshot file by mapping it into memory. The columns of the returned snapshot are views of the file.
+     *
+     * @param file The snapshot file
+     * @return The snapshot
+     * @throws IOException If the file can not be read or is not a valid snapshot
+     */
+    public static ResultsSnapshot open(File file) throws IOException {
+        ByteBuffer buffer;
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            if(buffer.getInt() != MAGIC) {
+                throw new IOException(file.getAbsolutePath() + " is not a results snapshot");
+            }
+
+            var version = buffer.getInt();
+            if(version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file.getAbsolutePath());
+            }
+
+            var host = version == 1 ? "" : readName(buffer);
+
+            var count = buffer.getInt();
+            var entries = new ArrayList<Entry>(count);
+
+            for(int i = 0; i < count; i++) {
+                var benchmarkName = readName(buffer);
+                var jvmName = readName(buffer);
+                var typeName = readName(buffer);
+                var type = getType(typeName, file);
+                Metric metric = null;
+                if(version >= 3 && type == MeasurementType.APPLICATION_METRIC) {
+                    metric = new Metric(readName(buffer), readName(buffer), readName(buffer));
+                }
+
+                var benchmark = Registry.get().findBenchmarkById(benchmarkName);
+                var jvm = Registry.get().findJvmById(jvmName);
+                if(benchmark == null || jvm == null) {
+                    throw new IOException("'" + benchmarkName + "' or '" + jvmName + "' specified in "
+                                          + file.getAbsolutePath() + " not defined in the registry");
+                }
+
+                var sketchPrecision = version >= 4 ? buffer.getInt() : 0;
+                if(sketchPrecision > 0) {
+                    var bucketCount = buffer.getInt();
+                    var countsOffset = buffer.getLong();
+                    var state = slice(buffer, buffer.position(), QuantileSketch.STATE_SIZE);
+                    buffer.position(buffer.position() + QuantileSketch.STATE_SIZE);
+                    entries.add(new Entry(benchmark,
+                                          jvm,
+                                          type,
+                                          metric,
+                                          sketchPrecision,
+                                          slice(buffer, countsOffset, 8L * bucketCount).asLongBuffer(),
+                                          state));
+                    continue;
+                }
+
+                var size = buffer.getInt();
+                var valuesOffset = buffer.getLong();
+                var iterationsOffset = buffer.getLong();
+                var invocationsOffset = buffer.getLong();
+
+                entries.add(new Entry(benchmark,
+                                      jvm,
+                                      type,
+                                      metric,
+                                      slice(buffer, valuesOffset, 8L * size).asDoubleBuffer(),
+                                      slice(buffer, iterationsOffset, 4L * size).asIntBuffer(),
+                                      slice(buffer, invocationsOffset, 4L * size).asIntBuffer()));
+            }
+
+            return new ResultsSnapshot(host.isEmpty() ? null : host, Collections.unmodifiableList(entries));
+        } catch(RuntimeException e) {
+            throw new IOException("Corrupt snapshot " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private static byte[][] encodeNames(String... names) {
+        var encoded = new byte[names.length][];
+        for(int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        return encoded;
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MeasurementType getType(String name, File file) throws IOException {
+        for(MeasurementType type : MeasurementType.values()) {
+            if(type.name().equals(name)) {
+                return type;
+            }
+        }
+
+        throw new IOException("'" + name + "' specified in " + file.getAbsolutePath() + " not defined");
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, long length) {
+        var slice = buffer.duplicate();
+        slice.limit(Math.toIntExact(offset + length));
+        slice.position(Math.toIntExact(offset));
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,188 @@
+package benchmark.results;
+
+import benchmark.ConfidenceLevel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches a folder of raw result files while they are being written by benchmark_runner.py and folds newly
+ * appended invocations into a {@link ResultsManager} as soon as their '#END ITERATION' line has been written.
+ * Each file is only read from the offset where the previous read stopped.
+ */
+public class ResultsWatcher {
+    private static class WatchedFile {
+        final LogScanner scanner;
+        long offset;
+
+        WatchedFile(LogScanner scanner) {
+            this.scanner = scanner;
+        }
+    }
+
+    private final ResultsManager manager;
+    private final Path folder;
+    private final SteadyStateDetector detector;
+    private final Map<Path, WatchedFile> files = new HashMap<>();
+
+    /**
+     * Creates a new {@link ResultsWatcher}.
+     *
+     * @param manager  The {@link ResultsManager} where results should be stored
+     * @param folder   The folder the raw result files are written to
+     * @param detector Decides which iterations of an invocation are recorded as steady state data
+     * @throws IOException If the provided folder is not a directory
+     */
+    public ResultsWatcher(ResultsManager manager, File folder, SteadyStateDetector detector) throws IOException {
+        if(folder == null || !folder.isDirectory()) {
+            throw new IOException("Provided folder is not a directory");
+        }
+
+        this.manager = manager;
+        this.folder = folder.toPath();
+        this.detector = detector;
+    }
+
+    /**
+     * Reads everything appended to the files in the watched folder since the last call.
+     *
+     * @return The {@link Results} updated by the call
+     * @throws IOException If an error occurs while reading a file
+     */
+    public Set<Results> poll() throws IOException {
+        var updated = new LinkedHashSet<Results>();
+
+        try(var stream = Files.newDirectoryStream(folder)) {
+            for(Path path : stream) {
+                read(path, updated);
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * Watches the folder until the thread is interrupted, rewriting a summary in the format of
+     * {@link ResultsManager#saveAsToml(File, ConfidenceLevel, boolean)} and printing the current confidence
+     * interval of every {@link Results} that received new data.
+     *
+     * @param summaryFile     The summary file to keep up to date
+     * @param confidenceLevel The confidence level of the summary
+     * @throws IOException          If an error occurs while reading a result file or writing the summary
+     * @throws InterruptedException If the thread is interrupted while waiting for changes
+     */
+    public void watch(File summaryFile, ConfidenceLevel confidenceLevel) throws IOException, InterruptedException {
+        watch(summaryFile, confidenceLevel, null);
+    }
+
+    /**
+     * Watches the folder like {@link #watch(File, ConfidenceLevel)}, also keeping a report up to date. Only the charts
+     * of {@link Results} that received new data are rendered again.
+     *
+     * @param summaryFile     The summary file to keep up to date
+     * @param confidenceLevel The confidence level of the summary
+     * @param report          The report to keep up to date, or null
+     * @throws IOException          If an error occurs while reading a result file or writing the summary or report
+     * @throws InterruptedException If the thread is interrupted while waiting for changes
+     */
+    public void watch(File summaryFile,
+                      ConfidenceLevel confidenceLevel,
+                      ReportGenerator report) throws IOException, InterruptedException {
+        try(var service = FileSystems.getDefault().newWatchService()) {
+            folder.register(service,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+
+            update(poll(), summaryFile, confidenceLevel, report);
+
+            while(true) {
+                var key = service.take();
+                var updated = new LinkedHashSet<Results>();
+
+                for(var event : key.pollEvents()) {
+                    if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        updated.addAll(poll());
+                    } else {
+                        read(folder.resolve((Path) event.context()), updated);
+                    }
+                }
+
+                key.reset();
+                update(updated, summaryFile, confidenceLevel, report);
+            }
+        }
+    }
+
+    private void read(Path path, Set<Results> updated) throws IOException {
+        if(!Files.isRegularFile(path)) {
+            return;
+        }
+
+        var file = files.get(path);
+        if(file == null) {
+            file = new WatchedFile(new LogScanner(manager, path.toString(), detector));
+            files.put(path, file);
+        }
+
+        try(var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+
+            if(size < file.offset) {
+                System.err.println(path + " shrunk from " + file.offset + " to " + size + " bytes, ignoring it");
+                return;
+            }
+
+            var previous = file.scanner.getSteadyStateResults();
+            var previousSize = previous == null ? 0 : previous.getSize();
+
+            file.offset = ResultsParser.scanChannel(channel, file.offset, size, file.scanner, false);
+
+            var current = file.scanner.getSteadyStateResults();
+            if(current != null && current.getSize() != (current == previous ? previousSize : 0)) {
+                updated.add(current);
+            }
+        }
+    }
+
+    private void update(Set<Results> updated,
+                        File summaryFile,
+                        ConfidenceLevel confidenceLevel,
+                        ReportGenerator report) throws IOException {
+        if(updated.isEmpty()) {
+            return;
+        }
+
+        var temporary = new File(summaryFile.getAbsolutePath() + ".tmp");
+        manager.saveAsToml(temporary, confidenceLevel, false);
+        Files.move(temporary.toPath(),
+                   summaryFile.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        if(report != null) {
+            report.render(manager);
+        }
+
+        for(Results results : updated) {
+            System.out.format("%-14s %-15s %-14s n = %-6d %.2f [%.2f, %.2f] at %s%n",
+                              results.getBenchmark().getName(),
+                              results.getJvm().getName(),
+                              results.getType().getName(),
+                              results.getSize(),
+                              results.getMean(),
+                              results.getConfidenceIntervalLower(confidenceLevel),
+                              results.getConfidenceIntervalUpper(confidenceLevel),
+                              confidenceLevel.getName());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package benchmark.results;
+
+import java.util.Arrays;
+
+/**
+ * A growable store of primitive samples, each tagged with the invocation and the iteration it was measured in.
+ * The sum, min, max and the sum of squared distances from the mean are maintained incrementally (using Welford's
+ * algorithm) as samples are added, and a sorted copy of the samples is cached until the next sample is added.
+ */
+class SampleStore implements SampleSummary {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int[] invocations = new int[INITIAL_CAPACITY];
+    private int[] iterations = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private double sum;
+    private double mean;
+    private double squaredDistanceSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double[] sorted;
+    private boolean sortedValid;
+
+    /**
+     * Adds a sample.
+     *
+     * @param value      The sample
+     * @param invocation The invocation the sample was measured in, or 0 if unknown
+     * @param iteration  The iteration the sample was measured in, or 0 if unknown
+     */
+    void add(double value, int invocation, int iteration) {
+        if(size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            invocations = Arrays.copyOf(invocations, size * 2);
+            iterations = Arrays.copyOf(iterations, size * 2);
+        }
+
+        values[size] = value;
+        invocations[size] = invocation;
+        iterations[size] = iteration;
+        size++;
+        sortedValid = false;
+
+        sum += value;
+        var delta = value - mean;
+        mean += delta / size;
+        squaredDistanceSum += delta * (value - mean);
+
+        if(value < min) {
+            min = value;
+        }
+        if(value > max) {
+            max = value;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a sample in the order it was added.
+     *
+     * @param index The index of the sample
+     * @return The sample
+     */
+    double get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    int getInvocation(int index) {
+        checkIndex(index);
+        return invocations[index];
+    }
+
+    int getIteration(int index) {
+        checkIndex(index);
+        return iterations[index];
+    }
+
+    @Override
+    public double sum() {
+        return sum;
+    }
+
+    @Override
+    public double min() {
+        return min;
+    }
+
+    @Override
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Gets the population variance of the samples.
+     *
+     * @return The variance
+     */
+    @Override
+    public double variance() {
+        return squaredDistanceSum / size;
+    }
+
+    /**
+     * Gets the samples in ascending order. The returned array is cached and must not be modified,
+     * and only its first {@link #size()} elements are valid.
+     *
+     * @return The sorted samples
+     */
+    double[] sorted() {
+        if(!sortedValid) {
+            if(sorted == null || sorted.length < size) {
+                sorted = new double[values.length];
+            }
+
+            System.arraycopy(values, 0, sorted, 0, size);
+            Arrays.sort(sorted, 0, size);
+            sortedValid = true;
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Gets a percentile of sorted values, interpolating linearly between the two closest ranks.
+     *
+     * @param sorted     Values in ascending order
+     * @param size       The number of values in the array
+     * @param percentile The percentile, between 0 and 1
+     * @return The percentile
+     */
+    static double percentile(double[] sorted, int size, double percentile) {
+        var position = percentile * (size - 1);
+        var lower = (int) Math.floor(position);
+        var upper = (int) Math.ceil(position);
+
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * Gets a copy of the samples in the order they were added.
+     *
+     * @return The samples
+     */
+    double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
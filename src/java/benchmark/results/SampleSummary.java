@@ -0,0 +1,21 @@
+package benchmark.results;
+
+/**
+ * The summary statistics of a set of samples, maintained exactly however the samples themselves are stored.
+ */
+interface SampleSummary {
+    int size();
+
+    double sum();
+
+    double min();
+
+    double max();
+
+    /**
+     * Gets the population variance of the samples.
+     *
+     * @return The variance
+     */
+    double variance();
+}
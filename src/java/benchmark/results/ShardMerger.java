@@ -0,0 +1,295 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the {@link Results} of a campaign split across several hosts into one {@link ResultsManager}.
+ * <p>
+ * Before the data of a {@link Benchmark}, {@link JVM} and checked {@link MeasurementType} is pooled, the hosts are
+ * tested for a common distribution with a one-way analysis of variance of the mean of every invocation, grouped by
+ * host. Invocations rather than iterations are the observations, since iterations of one invocation are not
+ * independent. The p-values of all keys are corrected together with the Holm-Bonferroni method. Keys where the hosts
+ * differ significantly are reported as a {@link Conflict} and left out of the merged results, as pooling them would
+ * hide a difference between the machines behind a wider margin of error.
+ * <p>
+ * Keys that can not be tested, i.e. measured on a single host or with fewer invocations than needed, are pooled, as
+ * are the {@link Results} of every {@link Metric}.
+ */
+public class ShardMerger {
+    /**
+     * The results measured by one host.
+     */
+    public static class Shard {
+        private final String host;
+        private final ResultsManager manager;
+
+        public Shard(String host, ResultsManager manager) {
+            this.host = host;
+            this.manager = manager;
+        }
+
+        /**
+         * Loads a shard from a snapshot written by a worker. The host is the one recorded in the snapshot, and the
+         * results are sketched if the worker's were.
+         *
+         * @param file The snapshot file
+         * @return The shard
+         * @throws IOException If the snapshot can not be read or does not record a host
+         */
+        public static Shard load(File file) throws IOException {
+            var snapshot = ResultsSnapshot.open(file);
+            if(snapshot.getHost() == null) {
+                throw new IOException(file.getAbsolutePath() + " does not record the host it was measured on");
+            }
+
+            return new Shard(snapshot.getHost(), snapshot.toManager());
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public ResultsManager getManager() {
+            return manager;
+        }
+    }
+
+    /**
+     * A key whose hosts measured significantly different distributions.
+     */
+    public static class Conflict {
+        private final Benchmark benchmark;
+        private final JVM jvm;
+        private final MeasurementType type;
+        private final Map<String, Results> byHost;
+        private final double f;
+        private double pValue;
+
+        private Conflict(Benchmark benchmark,
+                         JVM jvm,
+                         MeasurementType type,
+                         Map<String, Results> byHost,
+                         double f,
+                         double pValue) {
+            this.benchmark = benchmark;
+            this.jvm = jvm;
+            this.type = type;
+            this.byHost = byHost;
+            this.f = f;
+            this.pValue = pValue;
+        }
+
+        public Benchmark getBenchmark() {
+            return benchmark;
+        }
+
+        public JVM getJvm() {
+            return jvm;
+        }
+
+        public MeasurementType getType() {
+            return type;
+        }
+
+        /**
+         * Gets the unmerged results of every host that measured the key.
+         *
+         * @return The results, by host
+         */
+        public Map<String, Results> getResultsByHost() {
+            return Collections.unmodifiableMap(byHost);
+        }
+
+        public double getF() {
+            return f;
+        }
+
+        /**
+         * Gets the p-value of the analysis of variance, corrected for the number of keys tested.
+         *
+         * @return The adjusted p-value
+         */
+        public double getPValue() {
+            return pValue;
+        }
+
+        @Override
+        public String toString() {
+            var means = new StringBuilder();
+            for(Map.Entry<String, Results> entry : byHost.entrySet()) {
+                means.append(means.length() == 0 ? "" : ", ")
+                     .append(entry.getKey())
+                     .append(" ")
+                     .append(String.format("%.2f", entry.getValue().getMean()));
+            }
+
+            return String.format("%s %s %s: F = %.2f, p = %.2e (%s)",
+                                 benchmark.getName(), jvm.getName(), type.getName(), f, pValue, means);
+        }
+    }
+
+    private final ConfidenceLevel confidenceLevel;
+    private final List<MeasurementType> checkedTypes;
+
+    /**
+     * Creates a new {@link ShardMerger}.
+     *
+     * @param confidenceLevel The confidence level a difference between hosts must be significant at
+     * @param checkedTypes    The types of data tested before pooling, other types are pooled without testing
+     */
+    public ShardMerger(ConfidenceLevel confidenceLevel, MeasurementType... checkedTypes) {
+        this.confidenceLevel = confidenceLevel;
+        this.checkedTypes = Arrays.asList(checkedTypes);
+    }
+
+    /**
+     * Merges every shard into a {@link ResultsManager}, leaving out keys where the hosts differ.
+     *
+     * @param shards  The shards, each measured by a different host
+     * @param manager The {@link ResultsManager} where the pooled results should be stored
+     * @return The keys left out, ordered by benchmark, JVM and type
+     */
+    public List<Conflict> merge(List<Shard> shards, ResultsManager manager) {
+        var candidates = new ArrayList<Conflict>();
+
+        for(Benchmark benchmark : Benchmark.values()) {
+            for(JVM jvm : JVM.values()) {
+                for(MeasurementType type : MeasurementType.values()) {
+                    var byHost = new LinkedHashMap<String, Results>();
+                    for(Shard shard : shards) {
+                        var results = shard.manager.findResults(benchmark, jvm, type);
+                        if(results != null && results.getSize() > 0) {
+                            byHost.put(shard.host, results);
+                        }
+                    }
+
+                    if(byHost.isEmpty()) {
+                        continue;
+                    }
+                    if(checkedTypes.contains(type)) {
+                        var candidate = test(benchmark, jvm, type, byHost);
+                        if(candidate != null) {
+                            candidates.add(candidate);
+                            continue;
+                        }
+                    }
+
+                    pool(manager, benchmark, jvm, type, byHost);
+                }
+
+                for(Shard shard : shards) {
+                    for(Map.Entry<Metric, Results> entry : shard.manager.getMetricResults(benchmark, jvm).entrySet()) {
+                        manager.getMetricResults(benchmark, jvm, entry.getKey()).merge(entry.getValue());
+                    }
+                }
+            }
+        }
+
+        var adjusted = ComparisonEngine.holm(candidates.stream().mapToDouble(c -> c.pValue).toArray());
+        var alpha = 1 - confidenceLevel.getLevel();
+        var conflicts = new ArrayList<Conflict>();
+        for(int i = 0; i < candidates.size(); i++) {
+            var candidate = candidates.get(i);
+            candidate.pValue = adjusted[i];
+
+            if(adjusted[i] < alpha) {
+                conflicts.add(candidate);
+            } else {
+                pool(manager, candidate.benchmark, candidate.jvm, candidate.type, candidate.byHost);
+            }
+        }
+
+        return conflicts;
+    }
+
+    private static void pool(ResultsManager manager,
+                             Benchmark benchmark,
+                             JVM jvm,
+                             MeasurementType type,
+                             Map<String, Results> byHost) {
+        var pooled = manager.getResults(benchmark, jvm, type);
+        for(Results results : byHost.values()) {
+            pooled.merge(results);
+        }
+    }
+
+    /**
+     * Runs a one-way analysis of variance of the invocation means, grouped by host.
+     *
+     * @return A candidate conflict holding the unadjusted p-value, or null if the key can not be tested
+     */
+    private static Conflict test(Benchmark benchmark, JVM jvm, MeasurementType type, Map<String, Results> byHost) {
+        if(byHost.size() < 2) {
+            return null;
+        }
+
+        var groups = new ArrayList<double[]>();
+        for(Results results : byHost.values()) {
+            if(results.isSketched()) {
+                return null;
+            }
+            groups.add(getInvocationMeans(results));
+        }
+
+        var count = 0;
+        var sum = 0.0;
+        for(double[] group : groups) {
+            count += group.length;
+            for(double mean : group) {
+                sum += mean;
+            }
+        }
+
+        var numeratorDegrees = groups.size() - 1;
+        var denominatorDegrees = count - groups.size();
+        if(denominatorDegrees < 1) {
+            return null;
+        }
+
+        var grandMean = sum / count;
+        var between = 0.0;
+        var within = 0.0;
+        for(double[] group : groups) {
+            var groupMean = Arrays.stream(group).average().orElse(0);
+            between += group.length * (groupMean - grandMean) * (groupMean - grandMean);
+            for(double mean : group) {
+                within += (mean - groupMean) * (mean - groupMean);
+            }
+        }
+
+        double f;
+        if(within == 0) {
+            f = between == 0 ? 0 : Double.POSITIVE_INFINITY;
+        } else {
+            f = (between / numeratorDegrees) / (within / denominatorDegrees);
+        }
+        var pValue = Double.isInfinite(f) ? 0 : Distributions.fUpperTail(f, numeratorDegrees, denominatorDegrees);
+
+        return new Conflict(benchmark, jvm, type, byHost, f, pValue);
+    }
+
+    private static double[] getInvocationMeans(Results results) {
+        var sums = new LinkedHashMap<Integer, double[]>();
+        for(int i = 0; i < results.getSize(); i++) {
+            // Untagged values are their own observations
+            var invocation = results.getInvocation(i) == 0 ? -1 - i : results.getInvocation(i);
+            var sum = sums.computeIfAbsent(invocation, key -> new double[2]);
+            sum[0] += results.getData(i);
+            sum[1]++;
+        }
+
+        return sums.values().stream().mapToDouble(sum -> sum[0] / sum[1]).toArray();
+    }
+}
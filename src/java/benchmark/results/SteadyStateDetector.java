@@ -0,0 +1,26 @@
+package benchmark.results;
+
+/**
+ * Decides how many of the iterations of a single JVM invocation are warmup, i.e. where steady state begins.
+ */
+public interface SteadyStateDetector {
+    /**
+     * Finds the number of warmup iterations in the iteration times of one invocation.
+     * Missing iterations are represented by {@link Double#NaN}.
+     *
+     * @param iterationTimes The iteration times, in the order they were measured
+     * @param count          The number of iterations stored in the array
+     * @return The number of warmup iterations, between 0 and count
+     */
+    int detect(double[] iterationTimes, int count);
+
+    /**
+     * Creates a {@link SteadyStateDetector} always treating a fixed number of iterations as warmup.
+     *
+     * @param warmupIterations The number of warmup iterations
+     * @return The detector
+     */
+    static SteadyStateDetector fixed(int warmupIterations) {
+        return (iterationTimes, count) -> Math.min(warmupIterations, count);
+    }
+}
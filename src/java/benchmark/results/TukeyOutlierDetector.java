@@ -0,0 +1,48 @@
+package benchmark.results;
+
+/**
+ * An {@link OutlierDetector} using Tukey's fences: values more than a multiple of the interquartile range below the
+ * first quartile or above the third quartile are outliers.
+ */
+public class TukeyOutlierDetector implements OutlierDetector {
+    private final double multiplier;
+
+    /**
+     * Creates a detector using the conventional multiplier of 1.5.
+     */
+    public TukeyOutlierDetector() {
+        this(1.5);
+    }
+
+    /**
+     * Creates a new {@link TukeyOutlierDetector}.
+     *
+     * @param multiplier The number of interquartile ranges between a quartile and its fence, e.g. 3 for far outliers
+     */
+    public TukeyOutlierDetector(double multiplier) {
+        if(multiplier <= 0) {
+            throw new IllegalArgumentException("The multiplier must be positive");
+        }
+
+        this.multiplier = multiplier;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    @Override
+    public double getLowerFence(Results results) {
+        return results.getPercentile(0.25) - multiplier * results.getInterquartileRange();
+    }
+
+    @Override
+    public double getUpperFence(Results results) {
+        return results.getPercentile(0.75) + multiplier * results.getInterquartileRange();
+    }
+
+    @Override
+    public String getName() {
+        return "tukey";
+    }
+}
@@ -0,0 +1,238 @@
+package benchmark.results;
+
+import benchmark.ConfidenceLevel;
+
+import java.util.TreeMap;
+
+/**
+ * Splits the variance of {@link Results} tagged with invocations into a between-invocation and a within-invocation
+ * component, using the one-way random effects analysis of variance (with Searle's n0 for unequal invocation sizes).
+ * <p>
+ * Iterations of one invocation share the JIT and memory layout decisions of that JVM, so they are not independent:
+ * with a between-invocation component, the error of the mean depends mostly on the number of invocations. The
+ * confidence interval of this class is therefore based on the mean of each invocation, with one degree of freedom
+ * less than the number of invocations. Values with invocation 0 (unknown) are ignored.
+ */
+public class VarianceComponents {
+    /**
+     * A number of invocations and measured iterations per invocation for a campaign.
+     */
+    public static class Split {
+        private final int invocations;
+        private final int iterations;
+        private final double marginOfError;
+
+        private Split(int invocations, int iterations, double marginOfError) {
+            this.invocations = invocations;
+            this.iterations = iterations;
+            this.marginOfError = marginOfError;
+        }
+
+        public int getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * Gets the number of measured, i.e. steady state, iterations per invocation.
+         *
+         * @return The iterations
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * Gets the predicted margin of error of the mean.
+         *
+         * @return The margin of error
+         */
+        public double getMarginOfError() {
+            return marginOfError;
+        }
+    }
+
+    private final int invocations;
+    private final int size;
+    private final double mean;
+    private final double invocationMeanVariance;
+    private final double betweenVariance;
+    private final double withinVariance;
+
+    /**
+     * Creates a new {@link VarianceComponents}.
+     *
+     * @param results Data tagged with the invocation of each value
+     */
+    public VarianceComponents(Results results) {
+        // Sum, sum of squares and count per invocation
+        var byInvocation = new TreeMap<Integer, double[]>();
+        for(int i = 0; i < results.getSize(); i++) {
+            if(results.getInvocation(i) == 0) {
+                continue;
+            }
+
+            var value = results.getData(i);
+            var sums = byInvocation.computeIfAbsent(results.getInvocation(i), key -> new double[3]);
+            sums[0] += value;
+            sums[1] += value * value;
+            sums[2]++;
+        }
+
+        invocations = byInvocation.size();
+        var total = 0.0;
+        var count = 0;
+        var sumOfMeans = 0.0;
+        var sumOfSquaredCounts = 0.0;
+        for(double[] sums : byInvocation.values()) {
+            total += sums[0];
+            count += sums[2];
+            sumOfMeans += sums[0] / sums[2];
+            sumOfSquaredCounts += sums[2] * sums[2];
+        }
+        size = count;
+        mean = invocations == 0 ? Double.NaN : sumOfMeans / invocations;
+
+        var grandMean = total / count;
+        var betweenSquares = 0.0;
+        var withinSquares = 0.0;
+        var meanSquares = 0.0;
+        for(double[] sums : byInvocation.values()) {
+            var invocationMean = sums[0] / sums[2];
+            betweenSquares += sums[2] * (invocationMean - grandMean) * (invocationMean - grandMean);
+            withinSquares += Math.max(0, sums[1] - sums[0] * invocationMean);
+            meanSquares += (invocationMean - mean) * (invocationMean - mean);
+        }
+
+        invocationMeanVariance = invocations < 2 ? Double.NaN : meanSquares / (invocations - 1);
+        withinVariance = count > invocations ? withinSquares / (count - invocations) : Double.NaN;
+        if(invocations < 2) {
+            betweenVariance = Double.NaN;
+        } else {
+            var n0 = (count - sumOfSquaredCounts / count) / (invocations - 1);
+            var betweenMeanSquare = betweenSquares / (invocations - 1);
+            var within = Double.isNaN(withinVariance) ? 0 : withinVariance;
+            betweenVariance = Math.max(0, (betweenMeanSquare - within) / n0);
+        }
+    }
+
+    /**
+     * Gets the number of invocations with data.
+     *
+     * @return The invocations
+     */
+    public int getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Checks if both components are known, i.e. there are at least two invocations and one of them has more than one
+     * value. Data with one value per invocation, such as startup times, has no within-invocation component.
+     *
+     * @return True if both components are known
+     */
+    public boolean isHierarchical() {
+        return invocations > 1 && size > invocations;
+    }
+
+    /**
+     * Gets the mean number of values per invocation.
+     *
+     * @return The mean number of iterations
+     */
+    public double getIterationsPerInvocation() {
+        return invocations == 0 ? 0 : (double) size / invocations;
+    }
+
+    /**
+     * Gets the mean of the invocation means, which weighs every invocation equally.
+     *
+     * @return The mean or NaN if there are no invocations
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the variance between the true means of the invocations.
+     *
+     * @return The variance, NaN if there are fewer than two invocations
+     */
+    public double getBetweenVariance() {
+        return betweenVariance;
+    }
+
+    /**
+     * Gets the pooled variance of the iterations around the mean of their invocation.
+     *
+     * @return The variance, NaN if no invocation has more than one value
+     */
+    public double getWithinVariance() {
+        return withinVariance;
+    }
+
+    /**
+     * Gets the intraclass correlation, the share of the total variance lying between invocations. Near 0, the
+     * iterations are close to independent; near 1, every invocation is essentially a single measurement.
+     *
+     * @return The intraclass correlation, NaN if either component is unknown
+     */
+    public double getIntraclassCorrelation() {
+        var total = betweenVariance + withinVariance;
+        return total == 0 ? 0 : betweenVariance / total;
+    }
+
+    /**
+     * Gets the margin of error of {@link #getMean()}, using Student's t distribution with one degree of freedom less
+     * than the number of invocations.
+     *
+     * @param confidenceLevel The confidence level to calculate for
+     * @return The margin of error, NaN if there are fewer than two invocations
+     */
+    public double getMarginOfError(ConfidenceLevel confidenceLevel) {
+        if(invocations < 2) {
+            return Double.NaN;
+        }
+
+        return getQuantile(confidenceLevel, invocations) * Math.sqrt(invocationMeanVariance / invocations);
+    }
+
+    /**
+     * Recommends the split between invocations and measured iterations giving the smallest margin of error for a
+     * runtime budget. The variance of the mean is about between / k + within / (k * n) for k invocations of n
+     * iterations, costing k * (invocation cost + n * iteration cost). Every number of invocations the budget allows is
+     * tried, with as many iterations as fit, as the t quantile of few invocations outweighs the iterations gained.
+     * At least two invocations of one iteration are recommended, even if they exceed the budget.
+     *
+     * @param invocationCost  The time an invocation spends before its measured iterations, e.g. startup and warmup
+     * @param iterationCost   The time of a measured iteration
+     * @param budget          The total time available, in the same unit as the costs
+     * @param confidenceLevel The confidence level of the predicted margin of error
+     * @return The split, or null if the variance components are unknown
+     */
+    public Split recommendSplit(double invocationCost,
+                                double iterationCost,
+                                double budget,
+                                ConfidenceLevel confidenceLevel) {
+        if(Double.isNaN(betweenVariance) || Double.isNaN(withinVariance) || !(iterationCost > 0)) {
+            return null;
+        }
+
+        var cost = Math.max(0, invocationCost);
+        var maxInvocations = Math.max(2, (int) Math.floor(budget / (cost + iterationCost)));
+        Split best = null;
+        for(int k = 2; k <= maxInvocations; k++) {
+            var iterations = Math.max(1, (int) Math.floor((budget / k - cost) / iterationCost));
+            var variance = betweenVariance / k + withinVariance / ((double) k * iterations);
+            var marginOfError = getQuantile(confidenceLevel, k) * Math.sqrt(variance);
+            if(best == null || marginOfError < best.marginOfError) {
+                best = new Split(k, iterations, marginOfError);
+            }
+        }
+
+        return best;
+    }
+
+    private static double getQuantile(ConfidenceLevel confidenceLevel, int invocations) {
+        return Distributions.studentTQuantile(1 - (1 - confidenceLevel.getLevel()) / 2, invocations - 1);
+    }
+}
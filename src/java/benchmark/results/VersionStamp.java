@@ -0,0 +1,51 @@
+package benchmark.results;
+
+import java.util.List;
+
+/**
+ * The {@link Results} something was derived from and their {@link Results#getVersion() versions} at that time, used to
+ * tell if the derived value, e.g. a chart or a cached answer, is out of date.
+ */
+class VersionStamp {
+    private final Results[] results;
+    private final int[] versions;
+
+    /**
+     * Creates a new {@link VersionStamp}. The versions are read right away, so data added while deriving the value
+     * makes the stamp out of date.
+     *
+     * @param results The data the value is derived from
+     */
+    VersionStamp(List<Results> results) {
+        this.results = results.toArray(new Results[0]);
+        this.versions = new int[this.results.length];
+
+        for(int i = 0; i < this.results.length; i++) {
+            versions[i] = this.results[i].getVersion();
+        }
+    }
+
+    List<Results> getResults() {
+        return List.of(results);
+    }
+
+    /**
+     * Checks if a value derived from the specified data would be derived from the same data as this stamp.
+     *
+     * @param current The data the value would be derived from now
+     * @return True if the same {@link Results} are used, in the same order and without new data
+     */
+    boolean isCurrent(List<Results> current) {
+        if(current.size() != results.length) {
+            return false;
+        }
+
+        for(int i = 0; i < results.length; i++) {
+            if(current.get(i) != results[i] || results[i].getVersion() != versions[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,232 @@
+package benchmark.results;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * The warmup behaviour of a {@link Benchmark} on a {@link JVM}, built from {@link Results} of type
+ * {@link MeasurementType#WARMUP_CURVE} which hold every iteration of every invocation.
+ * <p>
+ * Each invocation forms one series of iteration times. The mean curve is formed by grouping the series by
+ * iteration index, and each invocation's time to peak and area under the curve are available as new
+ * {@link Results} so that they can be compared using the usual confidence intervals.
+ */
+public class WarmupCurve {
+    private final Benchmark benchmark;
+    private final JVM jvm;
+    private final int[] invocations;
+    private final double[][] series;
+    private final Results[] iterations;
+
+    /**
+     * Creates a new {@link WarmupCurve}.
+     *
+     * @param results Data tagged with the invocation and the iteration of each value
+     */
+    public WarmupCurve(Results results) {
+        this.benchmark = results.getBenchmark();
+        this.jvm = results.getJvm();
+
+        var byInvocation = new TreeMap<Integer, double[]>();
+        var length = 0;
+
+        for(int i = 0; i < results.getSize(); i++) {
+            var iteration = results.getIteration(i);
+            if(iteration < 1) {
+                continue;
+            }
+
+            var values = byInvocation.get(results.getInvocation(i));
+            if(values == null) {
+                values = new double[0];
+            }
+            if(values.length < iteration) {
+                var grown = Arrays.copyOf(values, iteration);
+                Arrays.fill(grown, values.length, iteration, Double.NaN);
+                values = grown;
+            }
+            values[iteration - 1] = results.getData(i);
+            byInvocation.put(results.getInvocation(i), values);
+
+            length = Math.max(length, iteration);
+        }
+
+        invocations = new int[byInvocation.size()];
+        series = new double[byInvocation.size()][];
+        iterations = new Results[length];
+
+        for(int i = 0; i < length; i++) {
+            iterations[i] = new Results(benchmark, jvm, MeasurementType.WARMUP_CURVE);
+        }
+
+        var index = 0;
+        for(var entry : byInvocation.entrySet()) {
+            invocations[index] = entry.getKey();
+            series[index] = entry.getValue();
+
+            for(int i = 0; i < series[index].length; i++) {
+                if(!Double.isNaN(series[index][i])) {
+                    iterations[i].addData(series[index][i], entry.getKey(), i + 1);
+                }
+            }
+            index++;
+        }
+    }
+
+    public Benchmark getBenchmark() {
+        return benchmark;
+    }
+
+    public JVM getJvm() {
+        return jvm;
+    }
+
+    /**
+     * Gets the number of invocations, i.e. the number of series forming the curve.
+     *
+     * @return The number of invocations
+     */
+    public int getInvocationCount() {
+        return invocations.length;
+    }
+
+    /**
+     * Gets the length of the longest series.
+     *
+     * @return The number of iterations
+     */
+    public int getIterationCount() {
+        return iterations.length;
+    }
+
+    /**
+     * Gets the times measured at one iteration index across all invocations. The mean and the confidence
+     * interval of the returned {@link Results} form one point of the mean curve and its confidence band.
+     *
+     * @param iteration The iteration, starting at 1
+     * @return The results for the iteration
+     */
+    public Results getIteration(int iteration) {
+        return iterations[iteration - 1];
+    }
+
+    /**
+     * Gets the peak performance of the mean curve, i.e. its fastest mean iteration time.
+     *
+     * @return The peak or -1 if the curve is empty
+     */
+    public double getPeak() {
+        var peak = Double.POSITIVE_INFINITY;
+        for(Results results : iterations) {
+            if(results.getSize() > 0) {
+                peak = Math.min(peak, results.getMean());
+            }
+        }
+
+        return peak == Double.POSITIVE_INFINITY ? -1 : peak;
+    }
+
+    /**
+     * Calculates, for each invocation, the cumulative time spent until the first iteration within the specified
+     * tolerance of that invocation's fastest iteration has completed.
+     *
+     * @param tolerance The tolerance, e.g. 0.05 to accept iterations at most 5% slower than the fastest
+     * @return The time to peak of each invocation, in the unit of the iteration times
+     */
+    public Results getTimeToPeak(double tolerance) {
+        var results = new Results(benchmark, jvm, MeasurementType.TIME_TO_PEAK);
+
+        for(int i = 0; i < series.length; i++) {
+            var fastest = Double.POSITIVE_INFINITY;
+            for(double value : series[i]) {
+                if(value < fastest) {
+                    fastest = value;
+                }
+            }
+
+            var target = fastest * (1 + tolerance);
+            double cumulative = 0;
+
+            for(int j = 0; j < series[i].length; j++) {
+                if(Double.isNaN(series[i][j])) {
+                    continue;
+                }
+
+                cumulative += series[i][j];
+                if(series[i][j] <= target) {
+                    results.addData(cumulative, invocations[i], j + 1);
+                    break;
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Calculates, for each invocation, the area under its warmup curve, i.e. the total time spent running
+     * the first iterations.
+     *
+     * @param iterationCount The number of iterations included, invocations with fewer iterations are skipped
+     * @return The area of each invocation, in the unit of the iteration times
+     */
+    public Results getAreaUnderCurve(int iterationCount) {
+        var results = new Results(benchmark, jvm, MeasurementType.WARMUP_AREA);
+
+        outer:
+        for(int i = 0; i < series.length; i++) {
+            if(series[i].length < iterationCount) {
+                continue;
+            }
+
+            double area = 0;
+            for(int j = 0; j < iterationCount; j++) {
+                if(Double.isNaN(series[i][j])) {
+                    continue outer;
+                }
+                area += series[i][j];
+            }
+
+            results.addData(area, invocations[i], iterationCount);
+        }
+
+        return results;
+    }
+
+    /**
+     * Saves the mean curve and its confidence band as CSV, one row per iteration. As each iteration only has one value
+     * per invocation, the band uses Student's t distribution, see {@link Results#getStudentMarginOfError}, and is
+     * empty for iterations with a single value.
+     *
+     * @param file            The file to write
+     * @param confidenceLevel The confidence level of the band
+     * @throws IOException If an error occurs while writing the file
+     */
+    public void saveAsCsv(File file, ConfidenceLevel confidenceLevel) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            writer.write("iteration,size,mean,t_lower,t_upper\n");
+
+            for(int i = 1; i <= iterations.length; i++) {
+                var results = getIteration(i);
+                if(results.getSize() == 0) {
+                    continue;
+                }
+
+                var margin = results.getStudentMarginOfError(confidenceLevel);
+                writer.write(i + ","
+                             + results.getSize() + ","
+                             + results.getMean() + ","
+                             + (Double.isNaN(margin) ? "" : results.getMean() - margin) + ","
+                             + (Double.isNaN(margin) ? "" : results.getMean() + margin) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package benchmark.runner;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+import benchmark.results.Results;
+import benchmark.results.ResultsManager;
+
+/**
+ * Decides how many invocations of each {@link Benchmark} and {@link JVM} an {@link Orchestrator} runs, launching
+ * more only until the mean is known to a relative precision.
+ * <p>
+ * The observations are the steady state means of the finished invocations, since iterations of one invocation are
+ * not independent, and the margin of error uses Student's t distribution as there are only a few of them. Each
+ * benchmark and JVM starts with the minimum number of invocations, and every invocation that finishes before the
+ * relative margin of error is below the target is replaced by a new one until the maximum is reached.
+ */
+class AdaptiveSampler {
+    private static final JVM[] JVMS = JVM.values();
+
+    private static class Cell {
+        final Results means;
+        int launched;
+        int finished;
+
+        Cell(Benchmark benchmark, JVM jvm) {
+            means = new Results(benchmark, jvm, MeasurementType.STEADY_STATE);
+        }
+    }
+
+    private final double precision;
+    private final ConfidenceLevel confidenceLevel;
+    private final int minInvocations;
+    private final int maxInvocations;
+    private final Cell[] cells = new Cell[Benchmark.values().length * JVMS.length];
+
+    /**
+     * Creates a new {@link AdaptiveSampler}.
+     *
+     * @param precision       The target margin of error relative to the mean, e.g. 0.01 for 1%
+     * @param confidenceLevel The confidence level of the margin of error
+     * @param minInvocations  The number of invocations always run, at least 2
+     * @param maxInvocations  The number of invocations never exceeded
+     */
+    AdaptiveSampler(double precision, ConfidenceLevel confidenceLevel, int minInvocations, int maxInvocations) {
+        this.precision = precision;
+        this.confidenceLevel = confidenceLevel;
+        this.minInvocations = minInvocations;
+        this.maxInvocations = maxInvocations;
+    }
+
+    int getMinInvocations() {
+        return minInvocations;
+    }
+
+    /**
+     * Reserves the next invocation of a benchmark and JVM.
+     *
+     * @param benchmark The benchmark
+     * @param jvm       The JVM
+     * @return The number of the invocation, starting at 1
+     */
+    int launch(Benchmark benchmark, JVM jvm) {
+        return ++getCell(benchmark, jvm).launched;
+    }
+
+    /**
+     * Records a finished invocation and decides if another one is needed.
+     *
+     * @param benchmark  The benchmark
+     * @param jvm        The JVM
+     * @param invocation The invocation that finished
+     * @param manager    The {@link ResultsManager} holding the steady state data of the invocation
+     * @return True if another invocation should be launched
+     */
+    boolean invocationFinished(Benchmark benchmark, JVM jvm, int invocation, ResultsManager manager) {
+        var cell = getCell(benchmark, jvm);
+        cell.finished++;
+
+        var steady = manager.findResults(benchmark, jvm, MeasurementType.STEADY_STATE);
+        if(steady != null) {
+            var sum = 0.0;
+            var count = 0;
+            synchronized(steady) {
+                for(int i = 0; i < steady.getSize(); i++) {
+                    if(steady.getInvocation(i) == invocation) {
+                        sum += steady.getData(i);
+                        count++;
+                    }
+                }
+            }
+
+            if(count > 0) {
+                cell.means.addData(sum / count, invocation, 0);
+            }
+        }
+
+        if(cell.launched >= maxInvocations) {
+            return false;
+        }
+
+        if(cell.launched < minInvocations) {
+            return true;
+        }
+
+        var margin = getRelativeMarginOfError(benchmark, jvm);
+        if(Double.isNaN(margin)) {
+            // Too few means to tell yet, so only replace the invocation if no other is still running
+            return cell.finished == cell.launched;
+        }
+
+        return margin > precision;
+    }
+
+    /**
+     * Checks if every launched invocation of a benchmark and JVM has finished.
+     *
+     * @param benchmark The benchmark
+     * @param jvm       The JVM
+     * @return True if none is running
+     */
+    boolean isDone(Benchmark benchmark, JVM jvm) {
+        var cell = getCell(benchmark, jvm);
+        return cell.finished == cell.launched;
+    }
+
+    int getFinishedInvocations(Benchmark benchmark, JVM jvm) {
+        return getCell(benchmark, jvm).finished;
+    }
+
+    /**
+     * Gets the margin of error of the mean of the invocation means, relative to that mean.
+     *
+     * @param benchmark The benchmark
+     * @param jvm       The JVM
+     * @return The relative margin of error or NaN if fewer than two invocations produced steady state data
+     */
+    double getRelativeMarginOfError(Benchmark benchmark, JVM jvm) {
+        var means = getCell(benchmark, jvm).means;
+        return means.getStudentMarginOfError(confidenceLevel) / means.getMean();
+    }
+
+    private Cell getCell(Benchmark benchmark, JVM jvm) {
+        var index = benchmark.ordinal() * JVMS.length + jvm.ordinal();
+        if(cells[index] == null) {
+            cells[index] = new Cell(benchmark, jvm);
+        }
+
+        return cells[index];
+    }
+}
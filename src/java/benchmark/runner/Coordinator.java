@@ -0,0 +1,146 @@
+package benchmark.runner;
+
+import benchmark.Registry;
+import benchmark.results.ResultsManager;
+import benchmark.results.ShardMerger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a benchmark campaign across the workers of a {@link RunConfiguration} and merges their results.
+ * <p>
+ * Every worker runs one shard of the campaign with an {@link Orchestrator} and writes its results to a snapshot
+ * tagged with its host name in the shard folder, along with a log of its output. Workers are started with the
+ * configured worker command, e.g. 'ssh {host} java -jar benchmark.jar worker {config} {shard} {shards} {host}
+ * {snapshot}' for a build farm sharing the shard folder, or as local processes running this program, which stand in
+ * for hosts when testing. A native image starts its local workers by running its own executable again. Once every
+ * worker has finished, the snapshots are merged by a {@link ShardMerger}.
+ */
+public class Coordinator {
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String IMAGE_CODE_PROPERTY = "org.graalvm.nativeimage.imagecode";
+
+    private final RunConfiguration configuration;
+    private final File configurationFile;
+
+    /**
+     * Creates a new {@link Coordinator}.
+     *
+     * @param configuration     The campaign to run, with at least one worker
+     * @param configurationFile The file the configuration was loaded from, passed on to the workers
+     */
+    public Coordinator(RunConfiguration configuration, File configurationFile) {
+        if(configuration.getWorkers().isEmpty()) {
+            throw new IllegalArgumentException("No workers configured");
+        }
+
+        this.configuration = configuration;
+        this.configurationFile = configurationFile.getAbsoluteFile();
+    }
+
+    /**
+     * Runs the campaign on every worker and merges the results of all workers.
+     *
+     * @param manager The {@link ResultsManager} where the merged results should be stored
+     * @param merger  Decides which results can be pooled
+     * @return The results left out of the merge because the workers measured different distributions
+     * @throws IOException          If a worker can not be started, fails or does not write its snapshot
+     * @throws InterruptedException If the thread is interrupted while waiting for the workers
+     */
+    public List<ShardMerger.Conflict> run(ResultsManager manager, ShardMerger merger)
+            throws IOException, InterruptedException {
+        var folder = configuration.getShardFolder();
+        if(!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+
+        var workers = configuration.getWorkers();
+        var processes = new ArrayList<Process>();
+        try {
+            for(int shard = 0; shard < workers.size(); shard++) {
+                var host = workers.get(shard);
+                var snapshot = getSnapshot(host);
+                if(snapshot.exists() && !snapshot.delete()) {
+                    throw new IOException("Could not delete " + snapshot.getAbsolutePath());
+                }
+
+                processes.add(new ProcessBuilder(createCommand(host, shard, workers.size(), snapshot))
+                                      .redirectErrorStream(true)
+                                      .redirectOutput(new File(folder, host + LOG_SUFFIX))
+                                      .start());
+                System.out.format("Started shard %d/%d on %s%n", shard + 1, workers.size(), host);
+            }
+
+            for(int shard = 0; shard < workers.size(); shard++) {
+                var code = processes.get(shard).waitFor();
+                System.out.format("Shard %d/%d on %s finished with code %d%n",
+                                  shard + 1, workers.size(), workers.get(shard), code);
+                if(code != 0) {
+                    throw new IOException("Worker " + workers.get(shard) + " failed, see "
+                                          + new File(folder, workers.get(shard) + LOG_SUFFIX).getAbsolutePath());
+                }
+            }
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+
+        var shards = new ArrayList<ShardMerger.Shard>();
+        for(String host : workers) {
+            shards.add(ShardMerger.Shard.load(getSnapshot(host)));
+        }
+
+        return merger.merge(shards, manager);
+    }
+
+    private File getSnapshot(String host) {
+        return new File(configuration.getShardFolder(), host + SNAPSHOT_SUFFIX).getAbsoluteFile();
+    }
+
+    private List<String> createCommand(String host, int shard, int shards, File snapshot) throws IOException {
+        var template = configuration.getWorkerCommand();
+        if(template == null) {
+            var local = new ArrayList<String>();
+            var nativeImage = System.getProperty(IMAGE_CODE_PROPERTY) != null;
+            if(nativeImage) {
+                // java.home and java.class.path mean nothing inside a native image, so run the image itself again
+                var executable = ProcessHandle.current().info().command();
+                if(executable.isEmpty()) {
+                    throw new IOException("Could not find the executable of this native image, set worker.command");
+                }
+                local.add(executable.get());
+            } else {
+                local.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+                local.add("-cp");
+                local.add(System.getProperty("java.class.path"));
+            }
+            if(System.getProperty(Registry.PROPERTY) != null) {
+                local.add("-D" + Registry.PROPERTY + "=" + System.getProperty(Registry.PROPERTY));
+            }
+            if(!nativeImage) {
+                local.add("benchmark.Main");
+            }
+            local.addAll(List.of("worker",
+                                 "{config}",
+                                 "{shard}",
+                                 "{shards}",
+                                 "{host}",
+                                 "{snapshot}"));
+            template = local;
+        }
+
+        var command = new ArrayList<String>();
+        for(String token : template) {
+            command.add(token.replace("{host}", host)
+                             .replace("{config}", configurationFile.getPath())
+                             .replace("{shard}", String.valueOf(shard))
+                             .replace("{shards}", String.valueOf(shards))
+                             .replace("{snapshot}", snapshot.getPath()));
+        }
+
+        return command;
+    }
+}
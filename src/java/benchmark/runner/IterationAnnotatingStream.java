@@ -0,0 +1,109 @@
+package benchmark.runner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Forwards the output of a DaCapo run and, after every line reporting a completed iteration, inserts the lines
+ * produced by a set of {@link IterationProbe}s, e.g. '#JIT time' with the total compilation time read from the
+ * {@link PerfCounters} of the running JVM. The parser attributes each inserted line to the completed iteration.
+ */
+class IterationAnnotatingStream extends OutputStream {
+    private static final byte[] COMPLETED = " completed warmup ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PASSED = " PASSED in ".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream target;
+    private final List<IterationProbe> probes;
+    private byte[] line = new byte[256];
+    private int length;
+
+    /**
+     * Creates a new {@link IterationAnnotatingStream}.
+     *
+     * @param target The stream receiving the output and the inserted lines
+     * @param probes The probes queried after every completed iteration
+     */
+    IterationAnnotatingStream(OutputStream target, List<IterationProbe> probes) {
+        this.target = target;
+        this.probes = List.copyOf(probes);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target.write(b);
+
+        if(length == line.length) {
+            // Only the start of a line is needed to recognize DaCapo's own lines
+            if(b == '\n') {
+                endLine();
+            }
+            return;
+        }
+
+        line[length++] = (byte) b;
+        if(b == '\n') {
+            endLine();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        var start = off;
+        for(int i = off; i < off + len; i++) {
+            if(b[i] == '\n') {
+                target.write(b, start, i + 1 - start);
+                append(b, start, i + 1 - start);
+                endLine();
+                start = i + 1;
+            }
+        }
+
+        target.write(b, start, off + len - start);
+        append(b, start, off + len - start);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+
+    private void append(byte[] b, int off, int len) {
+        var copied = Math.min(len, line.length - length);
+        System.arraycopy(b, off, line, length, copied);
+        length += copied;
+    }
+
+    private void endLine() throws IOException {
+        if(length > 0 && line[0] == '=' && (contains(COMPLETED) || contains(PASSED))) {
+            for(IterationProbe probe : probes) {
+                var annotation = probe.iterationCompleted();
+                if(annotation != null) {
+                    target.write((annotation + "\n").getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+        }
+
+        length = 0;
+    }
+
+    private boolean contains(byte[] tag) {
+        outer:
+        for(int i = 0; i <= length - tag.length; i++) {
+            for(int j = 0; j < tag.length; j++) {
+                if(line[i + j] != tag[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+
+        return false;
+    }
+}
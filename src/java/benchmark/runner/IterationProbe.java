@@ -0,0 +1,20 @@
+package benchmark.runner;
+
+/**
+ * Measures something about a running JVM that is recorded once per DaCapo iteration, see
+ * {@link IterationAnnotatingStream}.
+ */
+interface IterationProbe {
+    /**
+     * Called right after the JVM has reported a completed iteration.
+     *
+     * @return The line to insert into the output, without a line break, or null if nothing is available
+     */
+    String iterationCompleted();
+
+    /**
+     * Releases any resources held by the probe. Called once the JVM has exited.
+     */
+    default void close() {
+    }
+}
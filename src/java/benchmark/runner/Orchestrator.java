@@ -0,0 +1,362 @@
+package benchmark.runner;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.results.ResultsManager;
+import benchmark.results.ResultsParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a benchmark campaign described by a {@link RunConfiguration}, replacing the serial loop of
+ * benchmark_runner.py. Every invocation of a {@link Benchmark} on a {@link JVM} is a separate task; the tasks
+ * are shuffled so that no JVM is favoured by the time of day it runs at, and are executed by a configurable
+ * number of threads. Each running JVM can be pinned to its own set of CPUs using taskset.
+ * <p>
+ * The output of every JVM is parsed while it is running instead of going through intermediate files, and is
+ * optionally saved in the raw format of benchmark_runner.py as well. The results of an invocation are only kept if
+ * its JVM exits with code 0, so that e.g. a failed DaCapo validation or a rejected telemetry flag does not add data.
+ * The seed the invocations are shuffled with is printed and saved in the raw files, so a campaign can be repeated in
+ * the same order.
+ * <p>
+ * With GC telemetry enabled, every JVM logs its collections to the output, using unified logging from Java 9 and
+ * -verbose:gc before that. With JIT telemetry enabled, the total compilation time is read from the performance
+ * counters of the JVM after every iteration and inserted into the output as a '#JIT' line. With RSS telemetry
+ * enabled, the resident set size of the JVM is sampled in the background and its peak during every iteration is
+ * inserted as a '#RSS' line.
+ * <p>
+ * A campaign can be split into shards run by different hosts, see {@link Coordinator}. The invocations are dealt out
+ * to the shards in turn, ordered by benchmark, JVM and invocation, so every shard runs a share of the invocations of
+ * every benchmark and JVM as long as there are at least as many invocations as shards.
+ * <p>
+ * In adaptive mode, an {@link AdaptiveSampler} decides how many invocations each benchmark and JVM needs, between a
+ * minimum and the configured number of invocations. Shards are then dealt whole benchmarks and JVMs, since the
+ * number of invocations is not known in advance.
+ */
+public class Orchestrator {
+    private static final String NO_PINNING = "";
+
+    private static class Task {
+        final Benchmark benchmark;
+        final JVM jvm;
+        final int invocation;
+
+        Task(Benchmark benchmark, JVM jvm, int invocation) {
+            this.benchmark = benchmark;
+            this.jvm = jvm;
+            this.invocation = invocation;
+        }
+
+        @Override
+        public String toString() {
+            return benchmark.getName() + " " + jvm.getName() + " invocation " + invocation;
+        }
+    }
+
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+    }
+
+    private final RunConfiguration configuration;
+    private final File outputFolder;
+    private final int shardIndex;
+    private final int shardCount;
+    private final ResultsParser parser = new ResultsParser(1);
+
+    /**
+     * Creates a new {@link Orchestrator} running the whole campaign.
+     *
+     * @param configuration The campaign to run
+     */
+    public Orchestrator(RunConfiguration configuration) {
+        this(configuration, null, 0, 1);
+    }
+
+    /**
+     * Creates a new {@link Orchestrator} running one shard of a campaign. Raw results are written to a folder named
+     * after the host within the output folder, so that hosts sharing the output folder do not write the same files.
+     *
+     * @param configuration The campaign to run
+     * @param host          The host running the shard
+     * @param shardIndex    The index of the shard, starting at 0
+     * @param shardCount    The number of shards the campaign is split into
+     */
+    public Orchestrator(RunConfiguration configuration, String host, int shardIndex, int shardCount) {
+        if(shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard " + shardIndex + " of " + shardCount + " does not exist");
+        }
+
+        var output = configuration.getOutputFolder();
+        this.configuration = configuration;
+        this.outputFolder = output == null || host == null ? output : new File(output, host);
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Runs the campaign and stores the results in the provided {@link ResultsManager}.
+     *
+     * @param manager The {@link ResultsManager} where results should be stored
+     * @throws IOException          If a JVM can not be started or its output can not be parsed
+     * @throws InterruptedException If the thread is interrupted while waiting for the campaign to finish
+     */
+    public void run(ResultsManager manager) throws IOException, InterruptedException {
+        var sampler = configuration.getAdaptivePrecision() > 0 ? createSampler() : null;
+        var tasks = new ArrayList<Task>();
+        var cell = 0;
+        for(Benchmark benchmark : configuration.getBenchmarks()) {
+            for(JVM jvm : configuration.getJvmPaths().keySet()) {
+                if(sampler != null) {
+                    if(cell++ % shardCount == shardIndex) {
+                        for(int i = 0; i < sampler.getMinInvocations(); i++) {
+                            tasks.add(new Task(benchmark, jvm, sampler.launch(benchmark, jvm)));
+                        }
+                    }
+                    continue;
+                }
+
+                for(int invocation = 1; invocation <= configuration.getInvocations(); invocation++) {
+                    if(cell++ % shardCount == shardIndex) {
+                        tasks.add(new Task(benchmark, jvm, invocation));
+                    }
+                }
+            }
+        }
+        Collections.shuffle(tasks, new Random(configuration.getSeed()));
+        System.out.println("Running " + tasks.size() + " invocations shuffled with seed " + configuration.getSeed());
+
+        var cpuSets = createCpuSets();
+        if(outputFolder != null && !outputFolder.isDirectory() && !outputFolder.mkdirs()) {
+            throw new IOException("Could not create " + outputFolder.getAbsolutePath());
+        }
+
+        var executor = Executors.newFixedThreadPool(cpuSets.size());
+        var completion = new ExecutorCompletionService<Task>(executor);
+        var submitted = new AtomicInteger();
+        var finished = new AtomicInteger();
+
+        try {
+            for(Task task : tasks) {
+                submit(completion, task, cpuSets, manager, submitted, finished);
+            }
+
+            for(int running = tasks.size(); running > 0; running--) {
+                var task = completion.take().get();
+                if(sampler == null) {
+                    continue;
+                }
+
+                if(sampler.invocationFinished(task.benchmark, task.jvm, task.invocation, manager)) {
+                    var next = new Task(task.benchmark, task.jvm, sampler.launch(task.benchmark, task.jvm));
+                    submit(completion, next, cpuSets, manager, submitted, finished);
+                    running++;
+                } else if(sampler.isDone(task.benchmark, task.jvm)) {
+                    System.out.format("%s %s stopped after %d invocations, margin of error %.2f%%%n",
+                                      task.benchmark.getName(),
+                                      task.jvm.getName(),
+                                      sampler.getFinishedInvocations(task.benchmark, task.jvm),
+                                      100 * sampler.getRelativeMarginOfError(task.benchmark, task.jvm));
+                }
+            }
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Campaign failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AdaptiveSampler createSampler() {
+        return new AdaptiveSampler(configuration.getAdaptivePrecision(),
+                                   configuration.getAdaptiveConfidenceLevel(),
+                                   configuration.getAdaptiveMinInvocations(),
+                                   configuration.getInvocations());
+    }
+
+    private void submit(CompletionService<Task> completion,
+                        Task task,
+                        BlockingQueue<String> cpuSets,
+                        ResultsManager manager,
+                        AtomicInteger submitted,
+                        AtomicInteger finished) {
+        submitted.incrementAndGet();
+        completion.submit(() -> {
+            var cpus = cpuSets.take();
+            try {
+                var code = runTask(task, cpus, manager);
+                System.out.format("[%d/%d] %s finished with code %d%s%n",
+                                  finished.incrementAndGet(),
+                                  submitted.get(),
+                                  task,
+                                  code,
+                                  code == 0 ? "" : ", results discarded");
+            } finally {
+                cpuSets.put(cpus);
+            }
+            return task;
+        });
+    }
+
+    private BlockingQueue<String> createCpuSets() throws IOException {
+        var cpusPerRun = configuration.getCpusPerRun();
+        List<String> sets = new ArrayList<>();
+
+        if(cpusPerRun > 0) {
+            var available = Runtime.getRuntime().availableProcessors();
+            for(int first = 0; first + cpusPerRun <= available; first += cpusPerRun) {
+                sets.add(cpusPerRun == 1 ? String.valueOf(first) : first + "-" + (first + cpusPerRun - 1));
+            }
+
+            if(sets.isEmpty()) {
+                throw new IOException(cpusPerRun + " CPUs per run requested but only " + available + " available");
+            }
+
+            sets = sets.subList(0, Math.min(sets.size(), configuration.getConcurrency()));
+        } else {
+            sets = Collections.nCopies(configuration.getConcurrency(), NO_PINNING);
+        }
+
+        return new ArrayBlockingQueue<>(sets.size(), false, sets);
+    }
+
+    private List<String> createCommand(Task task, String cpus) {
+        var command = new ArrayList<String>();
+
+        if(!cpus.equals(NO_PINNING)) {
+            command.add("taskset");
+            command.add("-c");
+            command.add(cpus);
+        }
+
+        command.add(configuration.getJvmPaths().get(task.jvm));
+        command.addAll(configuration.getJvmArguments());
+        if(configuration.isGcTelemetry()) {
+            command.add(task.jvm.getVersion() >= 9 ? "-Xlog:gc:stdout" : "-verbose:gc");
+        }
+        if(configuration.isJitTelemetry()) {
+            command.add("-XX:+UsePerfData");
+        }
+        command.add("-jar");
+        command.add(configuration.getDacapoJar().getAbsolutePath());
+        command.add("--verbose");
+        command.add("--iterations");
+        command.add(String.valueOf(configuration.getDacapoIterations()));
+        command.add(task.benchmark.getName());
+
+        return command;
+    }
+
+    /**
+     * Runs one invocation, parsing its output into a manager of its own which is merged into the given one only if the
+     * JVM exits with code 0.
+     *
+     * @return The exit code of the JVM
+     */
+    private int runTask(Task task, String cpus, ResultsManager manager) throws IOException, InterruptedException {
+        var command = createCommand(task, cpus);
+        var raw = outputFolder == null ? null : new ByteArrayOutputStream();
+        var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        var probes = new ArrayList<IterationProbe>();
+        var invocation = new ResultsManager();
+        int code;
+
+        try(var parsed = parser.openStream(invocation, task.toString(), configuration.getSteadyStateDetector())) {
+            write(parsed, "#JVM " + task.jvm.getName() + "\n");
+            write(parsed, "#BENCHMARK " + task.benchmark.getName() + "\n");
+            write(parsed, "#START ITERATION " + task.invocation + "\n");
+
+            OutputStream output = raw == null ? parsed : new TeeOutputStream(parsed, raw);
+            if(configuration.isJitTelemetry()) {
+                probes.add(new PerfCounters(process.pid()));
+            }
+            if(configuration.isRssTelemetry()) {
+                probes.add(new RssSampler(process.pid(), configuration.getRssInterval()));
+            }
+            if(!probes.isEmpty()) {
+                output = new IterationAnnotatingStream(output, probes);
+            }
+
+            var buffer = new byte[8192];
+            try(var input = process.getInputStream()) {
+                int read;
+                while((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+            }
+
+            code = process.waitFor();
+            write(parsed, "#END ITERATION " + task.invocation + "\n");
+        } finally {
+            probes.forEach(IterationProbe::close);
+            process.destroy();
+        }
+
+        if(code == 0) {
+            manager.merge(invocation);
+        }
+        if(raw != null) {
+            saveRaw(task, command, code, raw.toByteArray());
+        }
+
+        return code;
+    }
+
+    private synchronized void saveRaw(Task task, List<String> command, int code, byte[] output) throws IOException {
+        var file = new File(outputFolder, task.benchmark.getName() + " " + task.jvm.getName());
+        var exists = file.exists();
+
+        try(var stream = new FileOutputStream(file, true)) {
+            if(!exists) {
+                write(stream, "#JVM " + task.jvm.getName() + "\n");
+                write(stream, "#BENCHMARK " + task.benchmark.getName() + "\n");
+                write(stream, "#COMMAND " + command + "\n");
+                write(stream, "#SEED " + configuration.getSeed() + "\n");
+            }
+
+            write(stream, "#START ITERATION " + task.invocation + "\n");
+            write(stream, "#CODE " + code + "\n");
+            stream.write(output);
+            write(stream, "#END ITERATION " + task.invocation + "\n");
+        }
+    }
+
+    private static void write(OutputStream stream, String s) throws IOException {
+        stream.write(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the performance counters a HotSpot based JVM publishes in its hsperfdata file, the same data jstat reads.
+ * The file is memory-mapped once, after which reading a counter is a single memory access that does not disturb
+ * the running JVM.
+ * <p>
+ * Only the compilation time is exposed, as the total time spent by the JIT compilers converted to milliseconds,
+ * and is reported after every iteration as a '#JIT time' line.
+ */
+class PerfCounters implements IterationProbe {
+    private static final int MAGIC = 0xcafec0c0;
+    private static final String TOTAL_TIME = "java.ci.totalTime";
+    private static final String FREQUENCY = "sun.os.hrt.frequency";
+
+    private final File file;
+    private MappedByteBuffer buffer;
+    private int totalTimeOffset = -1;
+    private double ticksPerMillisecond;
+
+    /**
+     * Creates a reader for the counters of a running JVM. The file is opened on first use, since the JVM creates it
+     * a while after starting.
+     *
+     * @param pid The process id of the JVM
+     */
+    PerfCounters(long pid) {
+        var folder = new File(System.getProperty("java.io.tmpdir"), "hsperfdata_" + System.getProperty("user.name"));
+        this.file = new File(folder, String.valueOf(pid));
+    }
+
+    @Override
+    public String iterationCompleted() {
+        var time = getCompilationTime();
+        return time < 0 ? null : "#JIT " + Math.round(time);
+    }
+
+    /**
+     * Gets the total time spent compiling so far.
+     *
+     * @return The time in milliseconds, or -1 if the counters are not available
+     */
+    double getCompilationTime() {
+        try {
+            if(buffer == null && !open()) {
+                return -1;
+            }
+        } catch(IOException e) {
+            return -1;
+        }
+
+        return buffer.getLong(totalTimeOffset) / ticksPerMillisecond;
+    }
+
+    private boolean open() throws IOException {
+        if(!file.isFile()) {
+            return false;
+        }
+
+        MappedByteBuffer mapped;
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        // The prologue: magic, byte order, major and minor version, accessible, used, overflow, modification time,
+        // entry offset and number of entries
+        mapped.order(ByteOrder.BIG_ENDIAN);
+        if(mapped.getInt(0) != MAGIC) {
+            return false;
+        }
+        mapped.order(mapped.get(4) == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+
+        var entryOffset = mapped.getInt(24);
+        var entries = mapped.getInt(28);
+        var frequencyOffset = -1;
+
+        for(int i = 0; i < entries && entryOffset + 20 <= mapped.limit(); i++) {
+            // An entry: length, name offset, vector length, type, flags, units, variability and data offset
+            var length = mapped.getInt(entryOffset);
+            var name = readName(mapped, entryOffset + mapped.getInt(entryOffset + 4));
+            var dataOffset = entryOffset + mapped.getInt(entryOffset + 16);
+
+            if(name.equals(TOTAL_TIME)) {
+                totalTimeOffset = dataOffset;
+            } else if(name.equals(FREQUENCY)) {
+                frequencyOffset = dataOffset;
+            }
+
+            if(length <= 0) {
+                break;
+            }
+            entryOffset += length;
+        }
+
+        if(totalTimeOffset < 0 || frequencyOffset < 0) {
+            return false;
+        }
+
+        ticksPerMillisecond = mapped.getLong(frequencyOffset) / 1000.0;
+        buffer = mapped;
+        return true;
+    }
+
+    private static String readName(MappedByteBuffer buffer, int offset) {
+        var end = offset;
+        while(end < buffer.limit() && buffer.get(end) != 0) {
+            end++;
+        }
+
+        var bytes = new byte[end - offset];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
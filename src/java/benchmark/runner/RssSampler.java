@@ -0,0 +1,82 @@
+package benchmark.runner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Samples the resident set size of a running process from /proc/&lt;pid&gt;/status on a background thread, and
+ * reports the highest size seen during every iteration as a '#RSS kilobytes' line. Only available on Linux.
+ */
+class RssSampler implements IterationProbe {
+    private static final String RSS_KEY = "VmRSS:";
+
+    private final Path status;
+    private final Thread thread;
+    private long peak = -1;
+
+    /**
+     * Creates a new {@link RssSampler} and starts sampling.
+     *
+     * @param pid            The process id
+     * @param intervalMillis The time between samples in milliseconds
+     */
+    RssSampler(long pid, long intervalMillis) {
+        this.status = Paths.get("/proc", String.valueOf(pid), "status");
+        this.thread = new Thread(() -> {
+            try {
+                while(!Thread.currentThread().isInterrupted()) {
+                    sample();
+                    Thread.sleep(intervalMillis);
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "rss-sampler-" + pid);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public String iterationCompleted() {
+        sample();
+
+        long iterationPeak;
+        synchronized(this) {
+            iterationPeak = peak;
+            peak = -1;
+        }
+
+        return iterationPeak < 0 ? null : "#RSS " + iterationPeak;
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+
+    private void sample() {
+        var rss = readRss();
+        if(rss >= 0) {
+            synchronized(this) {
+                peak = Math.max(peak, rss);
+            }
+        }
+    }
+
+    private long readRss() {
+        try {
+            for(String line : Files.readAllLines(status)) {
+                if(line.startsWith(RSS_KEY)) {
+                    // e.g. 'VmRSS:	  123456 kB'
+                    return Long.parseLong(line.substring(RSS_KEY.length()).replace("kB", "").strip());
+                }
+            }
+        } catch(IOException | NumberFormatException e) {
+            // The process has exited or does not expose its status
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,308 @@
+package benchmark.runner;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.results.CoefficientOfVariationDetector;
+import benchmark.results.SteadyStateDetector;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The configuration of a benchmark campaign run by an {@link Orchestrator}, loaded from a properties file.
+ * <p>
+ * Recognized keys:
+ * <pre>
+ * dacapo.jar         Path to the DaCapo jar (required)
+ * dacapo.iterations  Iterations per invocation, default 50
+ * invocations        Invocations per benchmark and JVM, or the most invocations in adaptive mode, default 10
+ * adaptive.precision Target margin of error relative to the mean, e.g. 0.01, above 0 enabling adaptive mode where
+ *                    invocations are only added until the target is reached, default 0
+ * adaptive.level     Confidence level of the adaptive margin of error, e.g. 95%, default 99%
+ * adaptive.min       Invocations always run in adaptive mode, at least 2, default 3
+ * warmup.iterations  Iterations discarded when recording steady state data, or 'auto' to detect
+ *                    steady state per invocation, default auto
+ * steady.window      Window used when detecting steady state, default 10
+ * steady.threshold   Highest coefficient of variation accepted as steady state, default 0.03
+ * concurrency        Number of invocations running at the same time, default 1
+ * cpus.per.run       Number of CPUs each invocation is pinned to using taskset, default 0 (no pinning)
+ * seed               Seed used when randomizing the order of invocations, default the current time. The seed
+ *                    in use is printed and saved in the raw files as '#SEED'
+ * output.folder      Folder raw results are written to in the format of benchmark_runner.py (optional)
+ * benchmarks         Comma separated benchmark names, default all benchmarks
+ * jvm.args           Space separated arguments passed to every JVM, default -showversion
+ * telemetry.gc       Log every GC to the output so that GC pause time and allocation rate are recorded per
+ *                    iteration, default false
+ * telemetry.jit      Record the JIT compilation time of every iteration from the JVM's performance counters,
+ *                    default false
+ * telemetry.rss      Sample the resident set size of every JVM and record its peak per iteration, Linux only,
+ *                    default false
+ * rss.interval       Milliseconds between resident set size samples, default 50
+ * jvm.NAME           Path to the java executable of the {@link JVM} constant NAME, e.g. jvm.OPENJDK_8
+ * workers            Comma separated names of the hosts a {@link Coordinator} splits the campaign across, default
+ *                    none (the campaign runs in this process)
+ * worker.command     Space separated command starting a worker, where {host}, {config}, {shard}, {shards} and
+ *                    {snapshot} are replaced by the worker's values, default a local process running this program
+ * shard.folder       Folder the snapshot and log of every worker are written to, which remote workers must be
+ *                    able to write to as well, default shards
+ * </pre>
+ * Only JVMs with a configured path take part in the campaign.
+ */
+public class RunConfiguration {
+    private final File dacapoJar;
+    private final int dacapoIterations;
+    private final int invocations;
+    private final double adaptivePrecision;
+    private final ConfidenceLevel adaptiveConfidenceLevel;
+    private final int adaptiveMinInvocations;
+    private final SteadyStateDetector steadyStateDetector;
+    private final int concurrency;
+    private final int cpusPerRun;
+    private final long seed;
+    private final File outputFolder;
+    private final List<Benchmark> benchmarks;
+    private final List<String> jvmArguments;
+    private final boolean gcTelemetry;
+    private final boolean jitTelemetry;
+    private final boolean rssTelemetry;
+    private final int rssInterval;
+    private final Map<JVM, String> jvmPaths;
+    private final List<String> workers;
+    private final List<String> workerCommand;
+    private final File shardFolder;
+
+    private RunConfiguration(Properties properties) throws IOException {
+        var jar = properties.getProperty("dacapo.jar");
+        if(jar == null) {
+            throw new IOException("No value for key 'dacapo.jar' found");
+        }
+
+        dacapoJar = new File(jar);
+        dacapoIterations = getInt(properties, "dacapo.iterations", 50);
+        invocations = getInt(properties, "invocations", 10);
+        adaptivePrecision = Double.parseDouble(properties.getProperty("adaptive.precision", "0").strip());
+        adaptiveMinInvocations = getInt(properties, "adaptive.min", 3);
+
+        var confidence = properties.getProperty("adaptive.level", ConfidenceLevel.PERCENT_99.getName()).strip();
+        adaptiveConfidenceLevel = Arrays.stream(ConfidenceLevel.values())
+                                        .filter(level -> level.getName().equals(confidence))
+                                        .findFirst()
+                                        .orElseThrow(() -> new IOException("Confidence level '" + confidence
+                                                                           + "' not defined"));
+
+        var warmup = properties.getProperty("warmup.iterations", "auto").strip();
+        if(warmup.equals("auto")) {
+            steadyStateDetector = new CoefficientOfVariationDetector(
+                    getInt(properties, "steady.window", 10),
+                    Double.parseDouble(properties.getProperty("steady.threshold", "0.03").strip()));
+        } else {
+            steadyStateDetector = SteadyStateDetector.fixed(Integer.parseInt(warmup));
+        }
+
+        concurrency = getInt(properties, "concurrency", 1);
+        cpusPerRun = getInt(properties, "cpus.per.run", 0);
+        seed = Long.parseLong(properties.getProperty("seed", String.valueOf(System.currentTimeMillis())));
+
+        var output = properties.getProperty("output.folder");
+        outputFolder = output == null ? null : new File(output);
+
+        benchmarks = new ArrayList<>();
+        var benchmarkNames = properties.getProperty("benchmarks");
+        if(benchmarkNames == null) {
+            benchmarks.addAll(Arrays.asList(Benchmark.values()));
+        } else {
+            for(String name : benchmarkNames.split(",")) {
+                var benchmark = Benchmark.getBenchmark(name.strip());
+                if(benchmark == null) {
+                    throw new IOException("Benchmark '" + name.strip() + "' not defined");
+                }
+                benchmarks.add(benchmark);
+            }
+        }
+
+        jvmArguments = new ArrayList<>();
+        for(String argument : properties.getProperty("jvm.args", "-showversion").split(" ")) {
+            if(!argument.isEmpty()) {
+                jvmArguments.add(argument);
+            }
+        }
+
+        gcTelemetry = Boolean.parseBoolean(properties.getProperty("telemetry.gc", "false").strip());
+        jitTelemetry = Boolean.parseBoolean(properties.getProperty("telemetry.jit", "false").strip());
+        rssTelemetry = Boolean.parseBoolean(properties.getProperty("telemetry.rss", "false").strip());
+        rssInterval = getInt(properties, "rss.interval", 50);
+
+        jvmPaths = new LinkedHashMap<>();
+        for(JVM jvm : JVM.values()) {
+            var path = properties.getProperty("jvm." + jvm.name());
+            if(path != null) {
+                jvmPaths.put(jvm, path.strip());
+            }
+        }
+
+        workers = split(properties.getProperty("workers", ""), ",");
+        var command = properties.getProperty("worker.command");
+        workerCommand = command == null ? null : split(command, " ");
+        shardFolder = new File(properties.getProperty("shard.folder", "shards").strip());
+
+        if(concurrency < 1 || invocations < 1 || dacapoIterations < 1 || rssInterval < 1) {
+            throw new IOException("concurrency, invocations, dacapo.iterations and rss.interval must be positive");
+        }
+        if(adaptivePrecision > 0 && (adaptiveMinInvocations < 2 || adaptiveMinInvocations > invocations)) {
+            throw new IOException("adaptive.min must be between 2 and invocations");
+        }
+    }
+
+    /**
+     * Loads a {@link RunConfiguration} from a properties file.
+     *
+     * @param file The file
+     * @return The configuration
+     * @throws IOException If the file can not be read or is missing required keys
+     */
+    public static RunConfiguration load(File file) throws IOException {
+        var properties = new Properties();
+        try(var reader = new FileReader(file)) {
+            properties.load(reader);
+        }
+
+        try {
+            return new RunConfiguration(properties);
+        } catch(NumberFormatException e) {
+            throw new IOException("Invalid number in " + file.getAbsolutePath(), e);
+        }
+    }
+
+    public File getDacapoJar() {
+        return dacapoJar;
+    }
+
+    public int getDacapoIterations() {
+        return dacapoIterations;
+    }
+
+    public int getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Gets the target margin of error relative to the mean in adaptive mode.
+     *
+     * @return The target or 0 if every benchmark and JVM runs a fixed number of invocations
+     */
+    public double getAdaptivePrecision() {
+        return adaptivePrecision;
+    }
+
+    public ConfidenceLevel getAdaptiveConfidenceLevel() {
+        return adaptiveConfidenceLevel;
+    }
+
+    public int getAdaptiveMinInvocations() {
+        return adaptiveMinInvocations;
+    }
+
+    public SteadyStateDetector getSteadyStateDetector() {
+        return steadyStateDetector;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getCpusPerRun() {
+        return cpusPerRun;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the folder raw results should be written to.
+     *
+     * @return The folder or null if raw results should not be saved
+     */
+    public File getOutputFolder() {
+        return outputFolder;
+    }
+
+    public List<Benchmark> getBenchmarks() {
+        return benchmarks;
+    }
+
+    public List<String> getJvmArguments() {
+        return jvmArguments;
+    }
+
+    public boolean isGcTelemetry() {
+        return gcTelemetry;
+    }
+
+    public boolean isJitTelemetry() {
+        return jitTelemetry;
+    }
+
+    public boolean isRssTelemetry() {
+        return rssTelemetry;
+    }
+
+    public int getRssInterval() {
+        return rssInterval;
+    }
+
+    /**
+     * Gets the path to the java executable of every {@link JVM} taking part in the campaign.
+     *
+     * @return The paths
+     */
+    public Map<JVM, String> getJvmPaths() {
+        return jvmPaths;
+    }
+
+    /**
+     * Gets the hosts the campaign is split across.
+     *
+     * @return The hosts, empty if the campaign runs in this process
+     */
+    public List<String> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Gets the command template starting a worker.
+     *
+     * @return The command or null if workers run as local processes
+     */
+    public List<String> getWorkerCommand() {
+        return workerCommand;
+    }
+
+    public File getShardFolder() {
+        return shardFolder;
+    }
+
+    private static List<String> split(String value, String separator) {
+        var parts = new ArrayList<String>();
+        for(String part : value.split(separator)) {
+            if(!part.isBlank()) {
+                parts.add(part.strip());
+            }
+        }
+
+        return parts;
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        var value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.strip());
+    }
+}
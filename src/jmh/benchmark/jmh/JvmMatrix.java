@@ -0,0 +1,60 @@
+package benchmark.jmh;
+
+import benchmark.JVM;
+import benchmark.runner.RunConfiguration;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks of this package on every {@link JVM} configured in a campaign properties file, see
+ * {@link RunConfiguration}, so that the toolkit can be compared across the same JVMs it evaluates.
+ * <p>
+ * Usage: JvmMatrix &lt;config&gt; [output folder] [benchmark regex]
+ * <p>
+ * The results of each JVM are saved as 'jmh.JVM.json' in the output folder, which defaults to the working
+ * directory. The toolkit requires Java 11, so JVMs based on an older version are skipped.
+ */
+public class JvmMatrix {
+    private static final int MIN_VERSION = 11;
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: JvmMatrix <config> [output folder] [benchmark regex]");
+            System.exit(1);
+        }
+
+        var configuration = RunConfiguration.load(new File(args[0]));
+        var folder = new File(args.length > 1 ? args[1] : ".");
+        var include = args.length > 2 ? args[2] : JvmMatrix.class.getPackageName() + ".*";
+
+        if(!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getAbsolutePath());
+        }
+
+        for(var entry : configuration.getJvmPaths().entrySet()) {
+            if(entry.getKey().getVersion() < MIN_VERSION) {
+                System.out.println("Skipping " + entry.getKey().getName() + ", older than Java " + MIN_VERSION);
+                continue;
+            }
+
+            var result = new File(folder, "jmh." + entry.getKey() + ".json");
+            var options = new OptionsBuilder().include(include)
+                                              .jvm(entry.getValue())
+                                              .result(result.getAbsolutePath())
+                                              .resultFormat(ResultFormatType.JSON)
+                                              .build();
+
+            System.out.println("Running on " + entry.getKey().getName() + " (" + entry.getValue() + ")");
+            try {
+                new Runner(options).run();
+            } catch(RunnerException e) {
+                System.err.println("Failed on " + entry.getKey().getName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.results.CoefficientOfVariationDetector;
+import benchmark.results.ResultsManager;
+import benchmark.results.ResultsParser;
+import benchmark.results.SteadyStateDetector;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ResultsParser#parseFile(ResultsManager, File, SteadyStateDetector)} on synthetic logs of
+ * increasing size. Divide the file size printed during setup by the time per operation to get the throughput
+ * in bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+    @Param({"10", "100", "1000"})
+    public int invocations;
+
+    @Param({"50"})
+    public int iterations;
+
+    private File log;
+    private ResultsParser parser;
+
+    @Setup
+    public void setup() throws IOException {
+        log = SyntheticLogs.write(Benchmark.valueOf("AVRORA"), JVM.valueOf("OPENJDK_11"), invocations, iterations, 42);
+        parser = new ResultsParser(1);
+        System.out.println("Synthetic log of " + log.length() + " bytes");
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ResultsManager parseFixedWarmup() throws IOException {
+        var manager = new ResultsManager();
+        parser.parseFile(manager, log, SteadyStateDetector.fixed(10));
+        return manager;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ResultsManager parseDetectedWarmup() throws IOException {
+        var manager = new ResultsManager();
+        parser.parseFile(manager, log, new CoefficientOfVariationDetector());
+        return manager;
+    }
+}
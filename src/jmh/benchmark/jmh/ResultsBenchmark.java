@@ -0,0 +1,95 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+import benchmark.results.Results;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the statistics of {@link Results} holding 1e3 to 1e7 samples.
+ * <p>
+ * {@link Results#getMedian()} is measured both with its sorted copy cached and after adding a value, which forces
+ * a new sort. The latter adds to a copy rebuilt before every invocation, so that every invocation sorts exactly one
+ * value more than {@link #samples}. {@link Results#prettyPrint()} writes to a discarding stream so that the console
+ * is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultsBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    public int samples;
+
+    private Results results;
+    private PrintStream originalOut;
+
+    /**
+     * A copy of the samples of a {@link ResultsBenchmark}, rebuilt before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Copy {
+        private Results results;
+
+        @Setup(Level.Invocation)
+        public void setup(ResultsBenchmark benchmark) {
+            results = createResults();
+            results.merge(benchmark.results);
+        }
+    }
+
+    private static Results createResults() {
+        return new Results(Benchmark.valueOf("AVRORA"), JVM.valueOf("OPENJDK_11"), MeasurementType.STEADY_STATE);
+    }
+
+    @Setup
+    public void setup() {
+        results = createResults();
+        var random = new Random(42);
+        for(int i = 0; i < samples; i++) {
+            results.addData(1000 + 20 * random.nextGaussian());
+        }
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double getMedian() {
+        return results.getMedian();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double getMedianAfterAdd(Copy copy) {
+        copy.results.addData(1000);
+        return copy.results.getMedian();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double getStandardDeviation() {
+        return results.getStandardDeviation();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void prettyPrint() {
+        results.prettyPrint();
+    }
+}
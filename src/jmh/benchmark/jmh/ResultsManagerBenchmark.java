@@ -0,0 +1,67 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+import benchmark.results.Results;
+import benchmark.results.ResultsManager;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ResultsManager#getResults(Benchmark, JVM, MeasurementType)} with every key already present,
+ * from one thread and from several threads at once, as when a folder is parsed in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultsManagerBenchmark {
+    private static final Benchmark[] BENCHMARKS = Benchmark.values();
+    private static final JVM[] JVMS = JVM.values();
+    private static final MeasurementType[] TYPES = MeasurementType.values();
+
+    private ResultsManager manager;
+
+    @State(Scope.Thread)
+    public static class Keys {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setup() {
+        manager = new ResultsManager();
+        for(Benchmark benchmark : BENCHMARKS) {
+            for(JVM jvm : JVMS) {
+                for(MeasurementType type : TYPES) {
+                    manager.getResults(benchmark, jvm, type);
+                }
+            }
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @Threads(1)
+    public Results lookup(Keys keys) {
+        return lookup(keys.random);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @Threads(4)
+    public Results lookupContended(Keys keys) {
+        return lookup(keys.random);
+    }
+
+    private Results lookup(SplittableRandom random) {
+        return manager.getResults(BENCHMARKS[random.nextInt(BENCHMARKS.length)],
+                                  JVMS[random.nextInt(JVMS.length)],
+                                  TYPES[random.nextInt(TYPES.length)]);
+    }
+}
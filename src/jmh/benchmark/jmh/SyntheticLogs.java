@@ -0,0 +1,68 @@
+package benchmark.jmh;
+
+import benchmark.Benchmark;
+import benchmark.JVM;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Writes raw logs in the format produced by benchmark_runner.py, filled with random iteration times, so that the
+ * parser can be measured on logs of any size without access to real results.
+ */
+final class SyntheticLogs {
+    private SyntheticLogs() {
+    }
+
+    /**
+     * Writes a synthetic raw log to a temporary file which is deleted when the JVM exits.
+     *
+     * @param benchmark   The benchmark written to the header
+     * @param jvm         The JVM written to the header
+     * @param invocations The number of invocations
+     * @param iterations  The number of iterations per invocation, including the final PASSED iteration
+     * @param seed        The seed of the iteration times
+     * @return The file
+     * @throws IOException If an error occurs while writing the file
+     */
+    static File write(Benchmark benchmark, JVM jvm, int invocations, int iterations, long seed) throws IOException {
+        var file = File.createTempFile("synthetic-" + benchmark.getName(), ".log");
+        file.deleteOnExit();
+
+        var random = new Random(seed);
+        var prefix = "===== DaCapo 9.12-MR1 " + benchmark.getName();
+
+        try(var writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("#JVM " + jvm.getName() + "\n");
+            writer.write("#BENCHMARK " + benchmark.getName() + "\n");
+            writer.write("#COMMAND ['java', '-jar', 'dacapo.jar', '--iterations', '" + iterations + "', '"
+                         + benchmark.getName() + "']\n");
+
+            for(int invocation = 1; invocation <= invocations; invocation++) {
+                writer.write("#START ITERATION " + invocation + "\n");
+                writer.write("#CODE 0\n");
+                writer.write("Using scaled threading model. "
+                             + "4 processors detected, 4 threads used to drive the workload.\n");
+
+                // Iteration times decay towards a steady state of about 1000 msec, like a JIT warming up
+                for(int iteration = 1; iteration <= iterations; iteration++) {
+                    var time = Math.round(1000 * (1 + 3.0 / iteration) * (1 + 0.02 * random.nextGaussian()));
+                    if(iteration < iterations) {
+                        writer.write(prefix + " starting warmup " + iteration + " =====\n");
+                        writer.write(prefix + " completed warmup " + iteration + " in " + time + " msec =====\n");
+                    } else {
+                        writer.write(prefix + " starting =====\n");
+                        writer.write(prefix + " PASSED in " + time + " msec =====\n");
+                    }
+                }
+
+                writer.write("#END ITERATION " + invocation + "\n\n");
+            }
+        }
+
+        return file;
+    }
+}
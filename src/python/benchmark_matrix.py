@@ -6,56 +6,29 @@ import os
 import numpy as np
 
 WORKING_DIRECTORY = '/home/knickus/graalvm_performance/results/2020-04-15/heatmaps'
-TOML_FILE_PATH = "/home/knickus/graalvm_performance/results/2020-04-15/results.toml"
-
-BENCHMARKS = ["AVRORA",
-              "FOP",
-              "H2",
-              "JYTHON",
-              "LUINDEX",
-              "LUSEARCH_FIX",
-              "PMD",
-              "SUNFLOW",
-              "TRADEBEANS",
-              "XALAN"]
-
-JVMS = ["OPENJDK_8",
-        "ORACLEJDK_8",
-        "GRAALVM_CE_8",
-        "GRAALVM_EE_8",
-        "OPENJDK_11",
-        "ORACLEJDK_11",
-        "GRAALVM_CE_11",
-        "GRAALVM_EE_11"]
+COMPARISONS_FILE_PATH = "/home/knickus/graalvm_performance/results/2020-04-15/comparisons.toml"
+REGISTRY_FILE_PATH = "/home/knickus/graalvm_performance/config/registry.toml"
+
+REGISTRY = toml.load(REGISTRY_FILE_PATH)
+BENCHMARKS = [benchmark['id'] for benchmark in REGISTRY['benchmark']]
+JVMS = [jvm['id'] for jvm in REGISTRY['jvm']]
 
 MEASUREMENTS = ["STARTUP",
                 "STEADY_STATE"]
 
 
-def compare_performance(first: dict, second: dict):
-    """Returns 1 if first performs better than second,
-       returns 0 if no conclusion can be made.
-       returns -1 if first performs worse than second"""
-
-    if first == second:
-        return 0
-
-    first_mean = first.get("mean")
-    first_error = first.get("error")
-    first_upper = first_mean + first_error
-    first_lower = first_mean - first_error
-
-    second_mean = second.get("mean")
-    second_error = second.get("error")
-    second_upper = second_mean + second_error
-    second_lower = second_mean - second_error
+def get_verdict(comparisons: dict, benchmark, state, first, second):
+    """Returns the verdict of the Java comparison engine for first compared with second:
+       1 if first performs better than second,
+       0 if no conclusion can be made,
+       -1 if first performs worse than second"""
 
-    if first_upper < second_lower:
-        return 1
-    elif first_lower > second_upper:
-        return -1
+    try:
+        comparison = comparisons[benchmark][state][first][second]
+    except KeyError:
+        return 0, None
 
-    return 0
+    return comparison.get("verdict_value"), comparison.get("confidence_level")
 
 
 def create_heatmap(benchmark, state, matrix, confidence_level, text=None):
@@ -108,7 +81,7 @@ def create_empty_matrix(size):
 
 os.makedirs(WORKING_DIRECTORY, exist_ok=True)
 os.chdir(WORKING_DIRECTORY)
-data = toml.load(TOML_FILE_PATH)
+data = toml.load(COMPARISONS_FILE_PATH)
 
 for s in MEASUREMENTS:
     cl = ""
@@ -121,23 +94,18 @@ for s in MEASUREMENTS:
         for id_jvm, main_jvm in enumerate(JVMS):
             comparisons = []
             for id_other, other_jvm in enumerate(JVMS):
-                try:
-                    main_data = dict(dict(dict(data.get(bm)).get(main_jvm)).get(s))
-                    other_data = dict(dict(dict(data.get(bm)).get(other_jvm)).get(s))
-                    res = compare_performance(main_data, other_data)
-                    comparisons.append(res)
-                    total[id_jvm][id_other] += res
-                    cl = main_data.get("confidence_level")
-                    if res > 0:
-                        totalPositives[id_jvm][id_other] += 1
-                    elif res < 0:
-                        totalNegatives[id_jvm][id_other] += 1
-
-                    totalText[id_jvm][id_other] = '+{}/-{}'.format(totalPositives[id_jvm][id_other],
-                                                                   totalNegatives[id_jvm][id_other])
-
-                except TypeError:
-                    continue
+                res, level = get_verdict(data, bm, s, main_jvm, other_jvm)
+                comparisons.append(res)
+                total[id_jvm][id_other] += res
+                if level is not None:
+                    cl = level
+                if res > 0:
+                    totalPositives[id_jvm][id_other] += 1
+                elif res < 0:
+                    totalNegatives[id_jvm][id_other] += 1
+
+                totalText[id_jvm][id_other] = '+{}/-{}'.format(totalPositives[id_jvm][id_other],
+                                                               totalNegatives[id_jvm][id_other])
 
             m.append(comparisons)
         create_heatmap(bm, s, m, cl)
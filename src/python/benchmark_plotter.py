@@ -4,26 +4,11 @@ import os
 
 WORKING_DIRECTORY = '/home/knickus/graalvm_performance/results/2020-04-15/charts'
 TOML_FILE_PATH = "/home/knickus/graalvm_performance/results/2020-04-15/results.toml"
+REGISTRY_FILE_PATH = "/home/knickus/graalvm_performance/config/registry.toml"
 
-BENCHMARKS = ["AVRORA",
-              "FOP",
-              "H2",
-              "JYTHON",
-              "LUINDEX",
-              "LUSEARCH_FIX",
-              "PMD",
-              "SUNFLOW",
-              "TRADEBEANS",
-              "XALAN"]
-
-JVMS = ["OPENJDK_8",
-        "ORACLEJDK_8",
-        "GRAALVM_CE_8",
-        "GRAALVM_EE_8",
-        "OPENJDK_11",
-        "ORACLEJDK_11",
-        "GRAALVM_CE_11",
-        "GRAALVM_EE_11"]
+REGISTRY = toml.load(REGISTRY_FILE_PATH)
+BENCHMARKS = [benchmark['id'] for benchmark in REGISTRY['benchmark']]
+JVMS = [jvm['id'] for jvm in REGISTRY['jvm']]
 
 MEASUREMENTS = ["STARTUP",
                 "STEADY_STATE"]
@@ -1,5 +1,6 @@
 import subprocess
 import os
+import toml
 from datetime import datetime
 
 
@@ -18,77 +19,26 @@ DEFAULT_DACAPO_ARGS = ['--verbose', '--iterations', '50']
 DEFAULT_JVM_ARGS = ['-showversion', '-jar']
 TEST_ITERATIONS = 10
 
-benchmarks = [Command('avrora',
+# Benchmarks and JVM names are listed in the registry shared with the Java tools, paths are local to this machine
+REGISTRY = toml.load(WORKING_DIRECTORY + '/config/registry.toml')
+JVM_PATHS = {'OPENJDK_8': '/home/knickus/java/openjdk/java-se-8u41-ri/bin/java',
+             'ORACLEJDK_8': '/home/knickus/java/oracle/jdk1.8.0_251/bin/java',
+             'GRAALVM_CE_8': '/home/knickus/java/graalvm/graalvm-ce-java8-20.0.0/bin/java',
+             'GRAALVM_EE_8': '/home/knickus/java/graalvm/graalvm-ee-java8-20.0.0/bin/java',
+             'OPENJDK_11': '/home/knickus/java/openjdk/openjdk-11+28/bin/java',
+             'ORACLEJDK_11': '/home/knickus/java/oracle/jdk-11.0.7/bin/java',
+             'GRAALVM_CE_11': '/home/knickus/java/graalvm/graalvm-ce-java11-20.0.0/bin/java',
+             'GRAALVM_EE_11': '/home/knickus/java/graalvm/graalvm-ee-java11-20.0.0/bin/java'}
+
+benchmarks = [Command(benchmark['name'],
                       DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['avrora']),
+                      DEFAULT_DACAPO_ARGS + [benchmark['name']])
+              for benchmark in REGISTRY['benchmark'] if benchmark.get('suite', 'dacapo') == 'dacapo']
 
-              Command('fop',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['fop']),
-
-              Command('h2',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['h2']),
-
-              Command('jython',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['jython']),
-
-              Command('luindex',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['luindex']),
-
-              Command('lusearch-fix',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['lusearch-fix']),
-
-              Command('pmd',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['pmd']),
-
-              Command('sunflow',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['sunflow']),
-
-              Command('tradebeans',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['tradebeans']),
-
-              Command('xalan',
-                      DACAPO_PATH,
-                      DEFAULT_DACAPO_ARGS + ['xalan'])]
-
-jvms = [Command('OpenJDK 8',
-                '/home/knickus/java/openjdk/java-se-8u41-ri/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('OracleJDK 8',
-                '/home/knickus/java/oracle/jdk1.8.0_251/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('GraalVM CE 8',
-                '/home/knickus/java/graalvm/graalvm-ce-java8-20.0.0/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('GraalVM EE 8',
-                '/home/knickus/java/graalvm/graalvm-ee-java8-20.0.0/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('OpenJDK 11',
-                '/home/knickus/java/openjdk/openjdk-11+28/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('OracleJDK 11',
-                '/home/knickus/java/oracle/jdk-11.0.7/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('GraalVM CE 11',
-                '/home/knickus/java/graalvm/graalvm-ce-java11-20.0.0/bin/java',
-                DEFAULT_JVM_ARGS),
-
-        Command('GraalVM EE 11',
-                '/home/knickus/java/graalvm/graalvm-ee-java11-20.0.0/bin/java',
-                DEFAULT_JVM_ARGS)]
+jvms = [Command(jvm['name'],
+                JVM_PATHS[jvm['id']],
+                DEFAULT_JVM_ARGS)
+        for jvm in REGISTRY['jvm'] if jvm['id'] in JVM_PATHS]
 
 os.chdir(WORKING_DIRECTORY)
 os.makedirs(RESULTS_DIRECTORY, exist_ok=True)
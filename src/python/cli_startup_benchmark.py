@@ -0,0 +1,53 @@
+import subprocess
+import statistics
+import sys
+import time
+
+# Compares the wall clock time of the analysis CLI built by native/build.sh as a native executable and as a jar
+# running on the JVM, using single-benchmark queries against results/ archives.
+#
+# Usage: python3 cli_startup_benchmark.py [build folder] [results folder]
+
+BUILD_DIRECTORY = sys.argv[1] if len(sys.argv) > 1 else '/home/knickus/graalvm_performance/native/out'
+RESULTS_DIRECTORY = sys.argv[2] if len(sys.argv) > 2 else '/home/knickus/graalvm_performance/results/2020-04-15'
+JAVA_PATH = 'java'
+RUNS = 30
+TARGET_MSEC = 100
+Z_99 = 2.576
+
+SOURCES = [RESULTS_DIRECTORY + '/results.snapshot',
+           RESULTS_DIRECTORY + '/raw']
+
+QUERIES = [['h2', 'GRAALVM_EE_11', 'STEADY_STATE'],
+           ['avrora', 'OPENJDK_11', 'STARTUP'],
+           ['xalan']]
+
+MODES = {'native': [BUILD_DIRECTORY + '/benchmark'],
+         'jvm': [JAVA_PATH, '-jar', BUILD_DIRECTORY + '/benchmark.jar']}
+
+
+def measure(command):
+    times = []
+    for _ in range(RUNS):
+        start = time.perf_counter()
+        subprocess.run(command, stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL, check=True)
+        times.append((time.perf_counter() - start) * 1000)
+
+    return times
+
+
+print('{:8} {:40} {:>10} {:>10} {:>10}'.format('mode', 'query', 'mean', 'error', 'median'))
+for source in SOURCES:
+    for query in QUERIES:
+        for mode, prefix in MODES.items():
+            times = measure(prefix + ['query', source] + query)
+            mean = statistics.mean(times)
+            error = Z_99 * statistics.stdev(times) / len(times) ** 0.5
+            name = source.split('/')[-1] + ' ' + ' '.join(query)
+            flag = '' if mean < TARGET_MSEC else ' (above {} msec)'.format(TARGET_MSEC)
+            print('{:8} {:40} {:10.1f} {:10.1f} {:10.1f}{}'.format(mode,
+                                                                  name,
+                                                                  mean,
+                                                                  error,
+                                                                  statistics.median(times),
+                                                                  flag))
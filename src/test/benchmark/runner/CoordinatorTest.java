@@ -0,0 +1,142 @@
+package benchmark.runner;
+
+import benchmark.Benchmark;
+import benchmark.ConfidenceLevel;
+import benchmark.JVM;
+import benchmark.MeasurementType;
+import benchmark.results.H2MetricExtractor;
+import benchmark.results.ResultsManager;
+import benchmark.results.ShardMerger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a campaign split across two local worker processes standing in for hosts, with fake JVMs printing DaCapo
+ * output instead of running benchmarks. The host 'slowhost' runs h2 60 ms slower, so its h2 results must be reported
+ * as conflicts, while avrora, measured identically by both hosts, must be pooled. The h2 transaction rates travel in
+ * the snapshots of the workers as well and are always pooled.
+ */
+class CoordinatorTest {
+    private static final int INVOCATIONS = 8;
+    private static final int ITERATIONS = 5;
+
+    /**
+     * Prints the DaCapo output of the benchmark named by its last argument. Invocations of one host, benchmark and
+     * JVM take 100, 103, 106 and 109 ms in turn, plus the iteration, so both hosts measure the same invocation means.
+     * Every iteration of h2 reports the number of transactions it completed.
+     */
+    private static final String FAKE_JVM = "#!/bin/sh\n"
+                                           + "for benchmark; do :; done\n"
+                                           + "counter=\"$0.$HOST.$benchmark\"\n"
+                                           + "n=$(cat \"$counter\" 2>/dev/null || echo 0)\n"
+                                           + "echo $((n + 1)) > \"$counter\"\n"
+                                           + "time=$((100 + n % 4 * 3))\n"
+                                           + "if [ \"$HOST\" = slowhost ] && [ \"$benchmark\" = h2 ]; then\n"
+                                           + "    time=$((time + 60))\n"
+                                           + "fi\n"
+                                           + "echo 'openjdk version \"fake\"'\n"
+                                           + "i=1\n"
+                                           + "while [ $i -lt " + ITERATIONS + " ]; do\n"
+                                           + "    [ \"$benchmark\" = h2 ] && echo 'Completed 4000 transactions'\n"
+                                           + "    echo \"===== DaCapo 9.12-MR1 $benchmark completed warmup $i in "
+                                           + "$((time + i)) msec =====\"\n"
+                                           + "    i=$((i + 1))\n"
+                                           + "done\n"
+                                           + "[ \"$benchmark\" = h2 ] && echo 'Completed 4000 transactions'\n"
+                                           + "echo \"===== DaCapo 9.12-MR1 $benchmark PASSED in $((time + i)) msec "
+                                           + "=====\"\n";
+
+    @TempDir
+    File folder;
+
+    @Test
+    void mergesAgreeingHostsAndReportsConflicts() throws Exception {
+        var openJdk = JVM.valueOf("OPENJDK_8");
+        var graal = JVM.valueOf("GRAALVM_EE_11");
+        var avrora = Benchmark.valueOf("AVRORA");
+        var h2 = Benchmark.valueOf("H2");
+
+        var java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        var configuration = new File(folder, "campaign.properties");
+        write(configuration,
+              "dacapo.jar=" + new File(folder, "dacapo.jar") + "\n"
+              + "dacapo.iterations=" + ITERATIONS + "\n"
+              + "invocations=" + INVOCATIONS + "\n"
+              + "warmup.iterations=1\n"
+              + "concurrency=1\n"
+              + "seed=1\n"
+              + "benchmarks=avrora,h2\n"
+              + "output.folder=" + new File(folder, "raw") + "\n"
+              + "jvm.OPENJDK_8=" + createFakeJvm("openjdk8") + "\n"
+              + "jvm.GRAALVM_EE_11=" + createFakeJvm("graalvm11") + "\n"
+              + "workers=fasthost,slowhost\n"
+              + "worker.command=env HOST={host} " + java + " -cp " + System.getProperty("java.class.path")
+              + " benchmark.Main worker {config} {shard} {shards} {host} {snapshot}\n"
+              + "shard.folder=" + new File(folder, "shards") + "\n");
+
+        var manager = new ResultsManager();
+        var merger = new ShardMerger(ConfidenceLevel.PERCENT_99, MeasurementType.STARTUP, MeasurementType.STEADY_STATE);
+        var conflicts = new Coordinator(RunConfiguration.load(configuration), configuration).run(manager, merger);
+
+        for(String host : List.of("fasthost", "slowhost")) {
+            assertTrue(new File(folder, "shards/" + host + ".snapshot").isFile(), host + " wrote no snapshot");
+        }
+
+        Set<String> conflicting = conflicts.stream()
+                                           .map(conflict -> conflict.getBenchmark().name() + " "
+                                                            + conflict.getJvm().name() + " "
+                                                            + conflict.getType().name())
+                                           .collect(Collectors.toSet());
+        assertEquals(Set.of("H2 OPENJDK_8 STARTUP",
+                            "H2 OPENJDK_8 STEADY_STATE",
+                            "H2 GRAALVM_EE_11 STARTUP",
+                            "H2 GRAALVM_EE_11 STEADY_STATE"),
+                     conflicting);
+        for(ShardMerger.Conflict conflict : conflicts) {
+            assertEquals(Set.of("fasthost", "slowhost"), conflict.getResultsByHost().keySet());
+            assertTrue(conflict.getPValue() < 0.01, conflict.toString());
+        }
+
+        for(JVM jvm : List.of(openJdk, graal)) {
+            var startup = manager.getResults(avrora, jvm, MeasurementType.STARTUP);
+            assertEquals(INVOCATIONS, startup.getSize(), "avrora " + jvm + " startup was not pooled");
+            assertEquals(0, manager.getResults(h2, jvm, MeasurementType.STARTUP).getSize());
+
+            var transactions = manager.getMetricResults(h2, jvm).get(H2MetricExtractor.TRANSACTIONS);
+            assertNotNull(transactions, "h2 " + jvm + " transaction rates were lost");
+            var invocations = new HashSet<Integer>();
+            for(int i = 0; i < transactions.getSize(); i++) {
+                invocations.add(transactions.getInvocation(i));
+            }
+            assertEquals(INVOCATIONS, invocations.size(), "h2 " + jvm + " transaction rates were not pooled");
+        }
+        assertFalse(Files.readString(new File(folder, "shards/slowhost.log").toPath()).contains("Exception"));
+    }
+
+    private File createFakeJvm(String name) throws IOException {
+        var file = new File(folder, name);
+        write(file, FAKE_JVM);
+        assertTrue(file.setExecutable(true));
+        return file;
+    }
+
+    private static void write(File file, String text) throws IOException {
+        try(var writer = new FileWriter(file)) {
+            writer.write(text);
+        }
+    }
+}